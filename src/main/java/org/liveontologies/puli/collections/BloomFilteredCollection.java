@@ -0,0 +1,56 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.collections;
+
+import java.util.Collection;
+
+/**
+ * A {@link Collection} that supplies the Bloom filters used as keys by
+ * {@link BloomTrieCollection2}, so that the filters can be computed once,
+ * e.g., when the collection is created, and the elements do not need to be
+ * iterated every time the collection is added or tested. The filters must be
+ * equal to the ones computed from the hash codes of the elements:
+ * {@link #getBloomFilter()} should combine
+ * {@link BloomTrieCollection2#getFilterBit(int)} and
+ * {@link #getBloomFilter2()} should combine
+ * {@link BloomTrieCollection2#getFilter2Bit(int)} of these hash codes using
+ * bitwise OR.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <E>
+ *            the type of elements of this {@link Collection}
+ */
+public interface BloomFilteredCollection<E> extends Collection<E> {
+
+	/**
+	 * @return the Bloom filter of the elements used as a key in the trie
+	 */
+	long getBloomFilter();
+
+	/**
+	 * @return the Bloom filter of the elements used to further prune subset
+	 *         tests
+	 */
+	long getBloomFilter2();
+
+}
@@ -21,6 +21,7 @@
  */
 package org.liveontologies.puli.collections;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -59,33 +60,139 @@ public class BloomTrieCollection2<C extends Collection<?>>
 	}
 
 	// used as a key in the trie
-	private static long getFilter(Collection<?> s) {
+	static long getFilter(Collection<?> s) {
+		if (s instanceof BloomFilteredCollection<?>) {
+			return ((BloomFilteredCollection<?>) s).getBloomFilter();
+		}
+		// else
+		if (s instanceof SortedIntCollection) {
+			return getFilter(((SortedIntCollection) s).getSortedElements());
+		}
+		// else
 		long result = 0;
 		for (Object e : s) {
-			// use low 12 bits of hash
-			int hash = e.hashCode();
-			int pos = hash & FILTER_MASK_;
-			hash >>>= FILTER_SHIFT_;
-			pos ^= hash & FILTER_MASK_;
-			result |= 1L << pos;
+			result |= getFilterBit(e.hashCode());
 		}
 		return result;
 	}
 
 	// used to further prune subset test
-	private static long getFilter2(Collection<?> s) {
+	static long getFilter2(Collection<?> s) {
+		if (s instanceof BloomFilteredCollection<?>) {
+			return ((BloomFilteredCollection<?>) s).getBloomFilter2();
+		}
+		// else
+		if (s instanceof SortedIntCollection) {
+			return getFilter2(((SortedIntCollection) s).getSortedElements());
+		}
+		// else
 		long result = 0;
 		for (Object e : s) {
-			// use low 13-24 bits of hash
-			int hash = e.hashCode() >>> 12;
-			int pos = hash & FILTER_MASK_;
-			hash >>>= FILTER_SHIFT_;
-			pos ^= hash & FILTER_MASK_;
-			result |= 1L << pos;
+			result |= getFilter2Bit(e.hashCode());
+		}
+		return result;
+	}
+
+	// the hash of an integer is its value, so no boxing is needed
+	private static long getFilter(int[] elements) {
+		long result = 0;
+		for (int i = 0; i < elements.length; i++) {
+			result |= getFilterBit(elements[i]);
+		}
+		return result;
+	}
+
+	private static long getFilter2(int[] elements) {
+		long result = 0;
+		for (int i = 0; i < elements.length; i++) {
+			result |= getFilter2Bit(elements[i]);
 		}
 		return result;
 	}
 
+	/**
+	 * @param hash
+	 *            the hash code of an element
+	 * @return the bit set by this element in the Bloom filter used as a key
+	 * @see BloomFilteredCollection#getBloomFilter()
+	 */
+	public static long getFilterBit(int hash) {
+		// use low 12 bits of hash
+		int pos = hash & FILTER_MASK_;
+		hash >>>= FILTER_SHIFT_;
+		pos ^= hash & FILTER_MASK_;
+		return 1L << pos;
+	}
+
+	/**
+	 * @param hash
+	 *            the hash code of an element
+	 * @return the bit set by this element in the Bloom filter used to prune
+	 *         subset tests
+	 * @see BloomFilteredCollection#getBloomFilter2()
+	 */
+	public static long getFilter2Bit(int hash) {
+		// use low 13-24 bits of hash
+		hash >>>= 12;
+		int pos = hash & FILTER_MASK_;
+		hash >>>= FILTER_SHIFT_;
+		pos ^= hash & FILTER_MASK_;
+		return 1L << pos;
+	}
+
+	/**
+	 * @param first
+	 * @param second
+	 * @return {@code true} if the first collection contains all elements of
+	 *         the second collection; for {@link SortedIntCollection}s this is
+	 *         checked by merging the arrays of their elements
+	 */
+	static boolean containsAll(Collection<?> first, Collection<?> second) {
+		if (first instanceof SortedIntCollection
+				&& second instanceof SortedIntCollection) {
+			return containsAll(
+					((SortedIntCollection) first).getSortedElements(),
+					((SortedIntCollection) second).getSortedElements());
+		}
+		// else
+		return first.containsAll(second);
+	}
+
+	static boolean containsAll(int[] first, int[] second) {
+		if (second.length > first.length) {
+			return false;
+		}
+		int i = 0;
+		for (int j = 0; j < second.length; j++) {
+			int y = second[j];
+			for (;;) {
+				if (i == first.length) {
+					return false;
+				}
+				int x = first[i];
+				if (x > y) {
+					return false;
+				}
+				if (x == y) {
+					break;
+				}
+				i++;
+			}
+		}
+		return true;
+	}
+
+	static boolean equals(Collection<?> first, Object second) {
+		if (first instanceof SortedIntCollection
+				&& second instanceof SortedIntCollection) {
+			return Arrays.equals(
+					((SortedIntCollection) first).getSortedElements(),
+					((SortedIntCollection) second).getSortedElements());
+		}
+		// else
+		return first.equals(second);
+	}
+
 	@Override
 	public boolean add(C s) {
 		Node<C> newRoot = root_.add(s, LONG_MASK_, getFilter(s), getFilter2(s));
@@ -129,7 +236,7 @@ public class BloomTrieCollection2<C extends Collection<?>>
 
 				@Override
 				public boolean holds(C o) {
-					return s.containsAll(o);
+					return containsAll(s, o);
 				}
 			};
 			final long filter = getFilter(s), filter2 = getFilter2(s);
@@ -157,7 +264,7 @@ public class BloomTrieCollection2<C extends Collection<?>>
 
 				@Override
 				public boolean holds(C o) {
-					return o.containsAll(s);
+					return containsAll(o, s);
 				}
 			};
 			final long filter = getFilter(s), filter2 = getFilter2(s);
@@ -613,7 +720,8 @@ public class BloomTrieCollection2<C extends Collection<?>>
 		public boolean contains(Collection<?> s, long mask, long fragment,
 				long filter2) {
 			for (int i = 0; i < size_; i++) {
-				if (filter2 == filters2_[i] && s.equals(collections_[i])) {
+				if (filter2 == filters2_[i]
+						&& BloomTrieCollection2.equals(s, collections_[i])) {
 					return true;
 				}
 			}
@@ -627,7 +735,7 @@ public class BloomTrieCollection2<C extends Collection<?>>
 			for (int i = 0; i < size_; i++) {
 				if ((fragment | getFragment(i)) == fragment
 						&& (filter2 | filters2_[i]) == filter2
-						&& s.containsAll(getCollection(i))) {
+						&& containsAll(s, getCollection(i))) {
 					return false;
 				}
 			}
@@ -641,7 +749,7 @@ public class BloomTrieCollection2<C extends Collection<?>>
 			for (int i = 0; i < size_; i++) {
 				if ((fragment & getFragment(i)) == fragment
 						&& (filter2 & filters2_[i]) == filter2
-						&& getCollection(i).containsAll(s)) {
+						&& containsAll(getCollection(i), s)) {
 					return false;
 				}
 			}
@@ -0,0 +1,800 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.collections;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link Collection2} that stores collections in a trie like
+ * {@link BloomTrieCollection2} and that can be used from several threads
+ * concurrently without locking. The nodes of the trie are never modified:
+ * an update creates copies of the nodes on the path to the changed node and
+ * atomically replaces the root of the trie, retrying if the root was
+ * replaced by another thread in the meantime. Therefore the methods that do
+ * not modify the trie, such as {@link #isMinimal(Collection)}, work with a
+ * consistent snapshot of the trie and never wait. The iterators returned by
+ * this {@link Collection2} also traverse the snapshot taken when they are
+ * created, so they never throw
+ * {@link java.util.ConcurrentModificationException}; collections removed by
+ * {@link Iterator#remove()} are removed from the current trie.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of collections maintained by this {@link Collection2}
+ */
+public class ConcurrentBloomTrieCollection2<C extends Collection<?>>
+		extends AbstractCollection2<C> {
+
+	private final static long LONG_MASK_ = -1L; // all bits set to 1
+
+	private final AtomicReference<Trie<C>> trie_ = new AtomicReference<Trie<C>>(
+			new Trie<C>(new LeafNode<C>(LONG_MASK_), 0));
+
+	@Override
+	public boolean add(C s) {
+		long filter = BloomTrieCollection2.getFilter(s),
+				filter2 = BloomTrieCollection2.getFilter2(s);
+		for (;;) {
+			Trie<C> trie = trie_.get();
+			if (trie_.compareAndSet(trie, new Trie<C>(
+					trie.root.add(s, LONG_MASK_, filter, filter2),
+					trie.size + 1))) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Adds the given collection if this {@link Collection2} does not contain
+	 * any of its subsets; the check and the addition are performed
+	 * atomically
+	 * 
+	 * @param s
+	 * @return {@code true} if the collection was added
+	 */
+	public boolean addIfMinimal(C s) {
+		long filter = BloomTrieCollection2.getFilter(s),
+				filter2 = BloomTrieCollection2.getFilter2(s);
+		for (;;) {
+			Trie<C> trie = trie_.get();
+			if (!trie.root.isMinimal(s, LONG_MASK_, filter, filter2)) {
+				return false;
+			}
+			// else
+			if (trie_.compareAndSet(trie, new Trie<C>(
+					trie.root.add(s, LONG_MASK_, filter, filter2),
+					trie.size + 1))) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (o instanceof Collection<?>) {
+			return remove((Collection<?>) o, false);
+		}
+		// else
+		return false;
+	}
+
+	/**
+	 * Removes one collection equal to the given one or, if
+	 * {@code sameInstance} is {@code true}, the given collection itself
+	 * 
+	 * @param s
+	 * @param sameInstance
+	 * @return {@code true} if a collection was removed
+	 */
+	boolean remove(Collection<?> s, boolean sameInstance) {
+		long filter = BloomTrieCollection2.getFilter(s),
+				filter2 = BloomTrieCollection2.getFilter2(s);
+		for (;;) {
+			Trie<C> trie = trie_.get();
+			Node<C> updated = trie.root.remove(s, sameInstance, LONG_MASK_,
+					filter, filter2);
+			if (updated == trie.root) {
+				// not found
+				return false;
+			}
+			// else
+			if (trie_.compareAndSet(trie,
+					new Trie<C>(updated, trie.size - 1))) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o instanceof Collection<?>) {
+			Collection<?> s = (Collection<?>) o;
+			return trie_.get().root.contains(s, LONG_MASK_,
+					BloomTrieCollection2.getFilter(s),
+					BloomTrieCollection2.getFilter2(s));
+		}
+		// else
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		trie_.set(new Trie<C>(new LeafNode<C>(LONG_MASK_), 0));
+	}
+
+	@Override
+	public boolean isMinimal(Collection<?> s) {
+		return trie_.get().root.isMinimal(s, LONG_MASK_,
+				BloomTrieCollection2.getFilter(s),
+				BloomTrieCollection2.getFilter2(s));
+	}
+
+	@Override
+	public boolean isMaximal(Collection<?> s) {
+		return trie_.get().root.isMaximal(s, LONG_MASK_,
+				BloomTrieCollection2.getFilter(s),
+				BloomTrieCollection2.getFilter2(s));
+	}
+
+	@Override
+	public Iterable<C> subCollectionsOf(final Collection<?> s) {
+		return new Iterable<C>() {
+			final Condition<C> subsetCondition = new Condition<C>() {
+
+				@Override
+				public boolean holds(C o) {
+					return BloomTrieCollection2.containsAll(s, o);
+				}
+			};
+			final long filter = BloomTrieCollection2.getFilter(s),
+					filter2 = BloomTrieCollection2.getFilter2(s);
+
+			@Override
+			public Iterator<C> iterator() {
+				return new RemovingIterator(
+						trie_.get().root.subCollectionsOf(subsetCondition,
+								LONG_MASK_, filter, filter2));
+			}
+		};
+	}
+
+	@Override
+	public Iterable<C> superCollectionsOf(final Collection<?> s) {
+		return new Iterable<C>() {
+			final Condition<C> supersetCondition = new Condition<C>() {
+
+				@Override
+				public boolean holds(C o) {
+					return BloomTrieCollection2.containsAll(o, s);
+				}
+			};
+			final long filter = BloomTrieCollection2.getFilter(s),
+					filter2 = BloomTrieCollection2.getFilter2(s);
+
+			@Override
+			public Iterator<C> iterator() {
+				return new RemovingIterator(
+						trie_.get().root.superCollectionsOf(supersetCondition,
+								LONG_MASK_, filter, filter2));
+			}
+		};
+	}
+
+	@Override
+	public Iterator<C> iterator() {
+		return new RemovingIterator(trie_.get().root.iterator(LONG_MASK_));
+	}
+
+	@Override
+	public int size() {
+		return trie_.get().size;
+	}
+
+	/**
+	 * The root of the trie together with the number of collections in it, so
+	 * that both can be replaced atomically
+	 */
+	private static class Trie<C extends Collection<?>> {
+
+		final Node<C> root;
+
+		final int size;
+
+		Trie(Node<C> root, int size) {
+			this.root = root;
+			this.size = size;
+		}
+
+	}
+
+	/**
+	 * An iterator over a snapshot of the trie that removes the returned
+	 * collections from the current trie
+	 */
+	private class RemovingIterator extends DelegatingIterator<C> {
+
+		private C last_ = null;
+
+		RemovingIterator(Iterator<C> delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public C next() {
+			last_ = super.next();
+			return last_;
+		}
+
+		@Override
+		public void remove() {
+			if (last_ == null) {
+				throw new IllegalStateException();
+			}
+			// else
+			ConcurrentBloomTrieCollection2.this.remove(last_, true);
+			last_ = null;
+		}
+
+	}
+
+	interface Node<C extends Collection<?>> {
+
+		/**
+		 * @param s
+		 * @param mask
+		 * @param fragment
+		 * @param filter2
+		 * @return the copy of this node with the given collection added
+		 */
+		Node<C> add(C s, long mask, long fragment, long filter2);
+
+		/**
+		 * @param s
+		 * @param sameInstance
+		 * @param mask
+		 * @param fragment
+		 * @param filter2
+		 * @return the copy of this node with one collection equal to the
+		 *         given one (or the given collection itself if
+		 *         {@code sameInstance} is {@code true}) removed, or this node
+		 *         if there is no such collection
+		 */
+		Node<C> remove(Collection<?> s, boolean sameInstance, long mask,
+				long fragment, long filter2);
+
+		boolean isEmpty();
+
+		boolean contains(Collection<?> s, long mask, long fragment,
+				long filter2);
+
+		boolean isMinimal(Collection<?> s, long mask, long fragment,
+				long filter2);
+
+		boolean isMaximal(Collection<?> s, long mask, long fragment,
+				long filter2);
+
+		Iterator<C> iterator(long mask);
+
+		Iterator<C> subCollectionsOf(Condition<? super C> subsetCondition,
+				long mask, long fragment, long filter2);
+
+		Iterator<C> superCollectionsOf(Condition<? super C> supersetCondition,
+				long mask, long fragment, long filter2);
+
+	}
+
+	static class InternalNode<C extends Collection<?>> implements Node<C> {
+
+		private final static short BUCKET_SHIFT_ = 6;
+
+		private final static int BUCKET_MASK_ = (1 << BUCKET_SHIFT_) - 1;
+
+		private final Node<C>[] children_;
+
+		@SuppressWarnings("unchecked")
+		InternalNode(long mask) {
+			if (mask == 0L) {
+				throw new IllegalArgumentException();
+			}
+			children_ = new Node[(int) (BUCKET_MASK_ & mask) + 1];
+		}
+
+		private InternalNode(Node<C>[] children) {
+			this.children_ = children;
+		}
+
+		private InternalNode<C> replace(int pos, Node<C> child) {
+			Node<C>[] children = children_.clone();
+			children[pos] = child;
+			return new InternalNode<C>(children);
+		}
+
+		@Override
+		public Node<C> add(C s, long mask, long fragment, long filter2) {
+			int pos = (int) (fragment & BUCKET_MASK_ & mask);
+			mask >>>= BUCKET_SHIFT_;
+			fragment >>>= BUCKET_SHIFT_;
+			Node<C> child = children_[pos];
+			if (child == null) {
+				child = new LeafNode<C>(mask);
+			}
+			return replace(pos, child.add(s, mask, fragment, filter2));
+		}
+
+		@Override
+		public Node<C> remove(Collection<?> s, boolean sameInstance,
+				long mask, long fragment, long filter2) {
+			int pos = (int) (fragment & BUCKET_MASK_ & mask);
+			mask >>>= BUCKET_SHIFT_;
+			fragment >>>= BUCKET_SHIFT_;
+			Node<C> child = children_[pos];
+			if (child == null) {
+				return this;
+			}
+			// else
+			Node<C> updated = child.remove(s, sameInstance, mask, fragment,
+					filter2);
+			if (updated == child) {
+				return this;
+			}
+			// else
+			return replace(pos, updated.isEmpty() ? null : updated);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			for (int pos = 0; pos < children_.length; pos++) {
+				if (children_[pos] != null) {
+					return false;
+				}
+			}
+			// else
+			return true;
+		}
+
+		@Override
+		public boolean contains(Collection<?> s, long mask, long fragment,
+				long filter2) {
+			int pos = (int) (fragment & BUCKET_MASK_ & mask);
+			mask >>>= BUCKET_SHIFT_;
+			fragment >>>= BUCKET_SHIFT_;
+			Node<C> child = children_[pos];
+			if (child == null) {
+				return false;
+			}
+			// else
+			return child.contains(s, mask, fragment, filter2);
+		}
+
+		@Override
+		public boolean isMinimal(Collection<?> s, long mask, long fragment,
+				long filter2) {
+			int fragmentMask = (int) (fragment & mask & BUCKET_MASK_);
+			mask >>>= BUCKET_SHIFT_;
+			fragment >>>= BUCKET_SHIFT_;
+			int pos = 0;
+			for (;;) {
+				Node<C> child = children_[pos];
+				if (child != null
+						&& !child.isMinimal(s, mask, fragment, filter2)) {
+					return false;
+				}
+				if (pos == fragmentMask) {
+					// no subset is found
+					return true;
+				}
+				pos |= ~fragmentMask;
+				pos++;
+				pos &= fragmentMask;
+			}
+		}
+
+		@Override
+		public boolean isMaximal(Collection<?> s, long mask, long fragment,
+				long filter2) {
+			int fragmentMask = (int) (fragment & mask & BUCKET_MASK_);
+			int pos = (int) (mask & BUCKET_MASK_);
+			mask >>>= BUCKET_SHIFT_;
+			fragment >>>= BUCKET_SHIFT_;
+			for (;;) {
+				Node<C> child = children_[pos];
+				if (child != null
+						&& !child.isMaximal(s, mask, fragment, filter2)) {
+					return false;
+				}
+				if (pos == fragmentMask) {
+					// no superset is found
+					return true;
+				}
+				pos &= ~fragmentMask;
+				pos--;
+				pos |= fragmentMask;
+			}
+		}
+
+		@Override
+		public Iterator<C> iterator(long mask) {
+			return new BaseIterator(mask);
+		}
+
+		@Override
+		public Iterator<C> subCollectionsOf(
+				Condition<? super C> subsetCondition, long mask, long fragment,
+				long filter2) {
+			return new SubIterator(subsetCondition, mask, fragment, filter2);
+		}
+
+		@Override
+		public Iterator<C> superCollectionsOf(
+				Condition<? super C> supersetCondition, long mask,
+				long fragment, long filter2) {
+			return new SuperIterator(supersetCondition, mask, fragment,
+					filter2);
+		}
+
+		class BaseIterator implements Iterator<C> {
+
+			final long nextMask;
+			int pos = 0;
+			Iterator<C> iter = null;
+
+			BaseIterator(long mask) {
+				this.nextMask = mask >>> BUCKET_SHIFT_;
+			}
+
+			void advancePos() {
+				pos++;
+			}
+
+			boolean noMorePos() {
+				return pos == children_.length;
+			}
+
+			Iterator<C> getChildIterator(Node<C> child) {
+				return child.iterator(nextMask);
+			}
+
+			@Override
+			public boolean hasNext() {
+				for (;;) {
+					if (iter != null && iter.hasNext()) {
+						return true;
+					}
+					for (;;) {
+						if (noMorePos()) {
+							return false;
+						}
+						Node<C> child = children_[pos];
+						advancePos();
+						if (child == null) {
+							continue;
+						}
+						// else
+						iter = getChildIterator(child);
+						break;
+					}
+				}
+			}
+
+			@Override
+			public C next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return iter.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		}
+
+		class SubIterator extends BaseIterator {
+
+			final Condition<? super C> subsetCondition;
+
+			final long nextFragment, filter2;
+
+			final int fragmentMask;
+
+			boolean noMorePos = false;
+
+			SubIterator(Condition<? super C> subsetCondition, long mask,
+					long fragment, long filter2) {
+				super(mask);
+				this.subsetCondition = subsetCondition;
+				this.nextFragment = fragment >>> BUCKET_SHIFT_;
+				this.filter2 = filter2;
+				this.fragmentMask = (int) (fragment & mask & BUCKET_MASK_);
+			}
+
+			@Override
+			void advancePos() {
+				if (pos == fragmentMask) {
+					noMorePos = true;
+					return;
+				}
+				pos |= ~fragmentMask;
+				pos++;
+				pos &= fragmentMask;
+			}
+
+			@Override
+			boolean noMorePos() {
+				return noMorePos;
+			}
+
+			@Override
+			Iterator<C> getChildIterator(Node<C> child) {
+				return child.subCollectionsOf(subsetCondition, nextMask,
+						nextFragment, filter2);
+			}
+
+		}
+
+		class SuperIterator extends BaseIterator {
+
+			final Condition<? super C> supersetCondition;
+
+			final long nextFragment, filter2;
+
+			final int fragmentMask;
+
+			boolean noMorePos = false;
+
+			SuperIterator(Condition<? super C> supersetCondition, long mask,
+					long fragment, long filter2) {
+				super(mask);
+				this.supersetCondition = supersetCondition;
+				this.nextFragment = fragment >>> BUCKET_SHIFT_;
+				this.filter2 = filter2;
+				this.fragmentMask = (int) (fragment & mask & BUCKET_MASK_);
+				pos = (int) (mask & BUCKET_MASK_);
+			}
+
+			@Override
+			void advancePos() {
+				if (pos == fragmentMask) {
+					noMorePos = true;
+					return;
+				}
+				// else
+				pos &= ~fragmentMask;
+				pos--;
+				pos |= fragmentMask;
+			}
+
+			@Override
+			boolean noMorePos() {
+				return noMorePos;
+			}
+
+			@Override
+			Iterator<C> getChildIterator(Node<C> child) {
+				return child.superCollectionsOf(supersetCondition, nextMask,
+						nextFragment, filter2);
+			}
+
+		}
+
+	}
+
+	static class LeafNode<C extends Collection<?>> implements Node<C> {
+
+		private final static Object[] NO_COLLECTIONS_ = new Object[0];
+
+		private final static long[] NO_FILTERS_ = new long[0];
+
+		/**
+		 * the maximal number of element in a node after which it is split to an
+		 * internal node, if possible
+		 */
+		private final static int SPLIT_CAPACITY_ = 64;
+
+		private final Object[] collections_;
+
+		private final long[] fragments_, // can be null
+				filters2_;
+
+		LeafNode(long mask) {
+			this(NO_COLLECTIONS_, mask == 0L ? null : NO_FILTERS_,
+					NO_FILTERS_);
+		}
+
+		private LeafNode(Object[] collections, long[] fragments,
+				long[] filters2) {
+			this.collections_ = collections;
+			this.fragments_ = fragments;
+			this.filters2_ = filters2;
+		}
+
+		@SuppressWarnings("unchecked")
+		C getCollection(int index) {
+			return (C) collections_[index];
+		}
+
+		long getFragment(int index) {
+			if (fragments_ == null) {
+				return 0L;
+			}
+			// else
+			return fragments_[index];
+		}
+
+		@Override
+		public Node<C> add(C s, long mask, long fragment, long filter2) {
+			int size = collections_.length;
+			if (mask != 0L && size >= SPLIT_CAPACITY_) {
+				Node<C> replacement = new InternalNode<C>(mask);
+				for (int i = 0; i < size; i++) {
+					replacement = replacement.add(getCollection(i), mask,
+							getFragment(i), filters2_[i]);
+				}
+				return replacement.add(s, mask, fragment, filter2);
+			}
+			// else
+			Object[] collections = new Object[size + 1];
+			System.arraycopy(collections_, 0, collections, 0, size);
+			collections[size] = s;
+			long[] fragments = null;
+			if (fragments_ != null) {
+				fragments = new long[size + 1];
+				System.arraycopy(fragments_, 0, fragments, 0, size);
+				fragments[size] = fragment;
+			}
+			long[] filters2 = new long[size + 1];
+			System.arraycopy(filters2_, 0, filters2, 0, size);
+			filters2[size] = filter2;
+			return new LeafNode<C>(collections, fragments, filters2);
+		}
+
+		@Override
+		public Node<C> remove(Collection<?> s, boolean sameInstance,
+				long mask, long fragment, long filter2) {
+			int size = collections_.length;
+			for (int pos = 0; pos < size; pos++) {
+				Object c = collections_[pos];
+				if (getFragment(pos) != fragment || filters2_[pos] != filter2
+						|| (c != s && (sameInstance
+								|| !BloomTrieCollection2.equals(s, c)))) {
+					continue;
+				}
+				// else found
+				Object[] collections = new Object[size - 1];
+				System.arraycopy(collections_, 0, collections, 0, pos);
+				System.arraycopy(collections_, pos + 1, collections, pos,
+						size - pos - 1);
+				long[] fragments = null;
+				if (fragments_ != null) {
+					fragments = new long[size - 1];
+					System.arraycopy(fragments_, 0, fragments, 0, pos);
+					System.arraycopy(fragments_, pos + 1, fragments, pos,
+							size - pos - 1);
+				}
+				long[] filters2 = new long[size - 1];
+				System.arraycopy(filters2_, 0, filters2, 0, pos);
+				System.arraycopy(filters2_, pos + 1, filters2, pos,
+						size - pos - 1);
+				return new LeafNode<C>(collections, fragments, filters2);
+			}
+			// else not found
+			return this;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return collections_.length == 0;
+		}
+
+		@Override
+		public boolean contains(Collection<?> s, long mask, long fragment,
+				long filter2) {
+			for (int i = 0; i < collections_.length; i++) {
+				if (filter2 == filters2_[i] && BloomTrieCollection2.equals(s,
+						collections_[i])) {
+					return true;
+				}
+			}
+			// else not found
+			return false;
+		}
+
+		@Override
+		public boolean isMinimal(Collection<?> s, long mask, long fragment,
+				long filter2) {
+			for (int i = 0; i < collections_.length; i++) {
+				if ((fragment | getFragment(i)) == fragment
+						&& (filter2 | filters2_[i]) == filter2
+						&& BloomTrieCollection2.containsAll(s,
+								getCollection(i))) {
+					return false;
+				}
+			}
+			// else no subset is found
+			return true;
+		}
+
+		@Override
+		public boolean isMaximal(Collection<?> s, long mask, long fragment,
+				long filter2) {
+			for (int i = 0; i < collections_.length; i++) {
+				if ((fragment & getFragment(i)) == fragment
+						&& (filter2 & filters2_[i]) == filter2
+						&& BloomTrieCollection2.containsAll(getCollection(i),
+								s)) {
+					return false;
+				}
+			}
+			// else no superset is found
+			return true;
+		}
+
+		@Override
+		public Iterator<C> iterator(long mask) {
+			return new Iterator<C>() {
+				int pos = 0;
+
+				@Override
+				public boolean hasNext() {
+					return pos < collections_.length;
+				}
+
+				@Override
+				public C next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					// else
+					return getCollection(pos++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+			};
+		}
+
+		@Override
+		public Iterator<C> subCollectionsOf(
+				Condition<? super C> subsetCondition, long mask, long fragment,
+				long filter2) {
+			return new FilteredIterator<C>(iterator(mask), subsetCondition);
+		}
+
+		@Override
+		public Iterator<C> superCollectionsOf(
+				Condition<? super C> supersetCondition, long mask,
+				long fragment, long filter2) {
+			return new FilteredIterator<C>(iterator(mask), supersetCondition);
+		}
+
+	}
+
+}
@@ -0,0 +1,44 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.collections;
+
+import java.util.Collection;
+
+/**
+ * A {@link Collection} of integers that can also be accessed as a sorted array
+ * of primitive values. {@link Collection2} implementations can use this array
+ * to test subsets and compute keys without boxing the elements.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ */
+public interface SortedIntCollection extends Collection<Integer> {
+
+	/**
+	 * @return the elements of this {@link Collection} sorted in ascending
+	 *         order and without duplicates; implementations may return
+	 *         their internal array without copying, so callers must not
+	 *         modify the returned array
+	 */
+	int[] getSortedElements();
+
+}
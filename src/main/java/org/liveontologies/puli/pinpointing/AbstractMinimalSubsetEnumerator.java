@@ -21,12 +21,99 @@
  */
 package org.liveontologies.puli.pinpointing;
 
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+
 public abstract class AbstractMinimalSubsetEnumerator<E>
-		implements MinimalSubsetEnumerator<E> {
+		implements BoundedMinimalSubsetEnumerator<E> {
 
 	@Override
 	public void enumerate(final Listener<E> listener) {
 		enumerate(listener, PriorityComparators.<E> cardinality());
 	}
 
+	/**
+	 * Filters the sets reported by
+	 * {@link #enumerate(Listener, PriorityComparator)}; the enumeration is not
+	 * stopped when no further sets can be reported. Enumerators that can stop
+	 * earlier should override this method.
+	 */
+	@Override
+	public <P> void enumerate(final Listener<E> listener,
+			final PriorityComparator<? super Set<E>, P> priorityComparator,
+			final P bound, final int limit) {
+		Preconditions.checkNotNull(listener);
+		Preconditions.checkNotNull(priorityComparator);
+		Preconditions.checkArgument(limit > 0,
+				"The limit must be positive: %s", limit);
+		enumerate(new Listener<E>() {
+
+			private int count_ = 0;
+
+			@Override
+			public void newMinimalSubset(Set<E> set) {
+				if (count_ >= limit || (bound != null && priorityComparator
+						.compare(priorityComparator.getPriority(set),
+								bound) > 0)) {
+					return;
+				}
+				// else
+				count_++;
+				listener.newMinimalSubset(set);
+			}
+
+		}, priorityComparator);
+	}
+
+	/**
+	 * Computes all sets using
+	 * {@link #enumerate(Listener, PriorityComparator)} before returning the
+	 * cursor. Enumerators that can compute the sets on demand should override
+	 * this method.
+	 */
+	@Override
+	public MinimalSubsetCursor<E> newCursor(
+			final PriorityComparator<? super Set<E>, ?> priorityComparator) {
+		final Queue<Set<E>> sets = new ArrayDeque<Set<E>>();
+		enumerate(new Listener<E>() {
+
+			@Override
+			public void newMinimalSubset(Set<E> set) {
+				sets.add(set);
+			}
+
+		}, priorityComparator);
+		return new MinimalSubsetCursor<E>() {
+
+			@Override
+			public boolean hasNext() {
+				return !sets.isEmpty();
+			}
+
+			@Override
+			public Set<E> next() {
+				if (sets.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				// else
+				return sets.poll();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+				sets.clear();
+			}
+
+		};
+	}
+
 }
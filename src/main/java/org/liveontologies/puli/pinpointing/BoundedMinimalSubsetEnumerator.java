@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.Set;
+
+/**
+ * A {@link MinimalSubsetEnumerator} that can enumerate only the first
+ * subset-minimal sets in the order of their priorities and that can compute
+ * the sets on demand using a {@link MinimalSubsetCursor}. Enumerators that
+ * implement only {@link MinimalSubsetEnumerator} can be used in this way
+ * through {@link MinimalSubsetEnumerators#bounded(MinimalSubsetEnumerator)}.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <E>
+ *            the type of elements of the enumerated sets
+ */
+public interface BoundedMinimalSubsetEnumerator<E>
+		extends MinimalSubsetEnumerator<E> {
+
+	/**
+	 * Enumerates subset-minimal sets like
+	 * {@link #enumerate(Listener, PriorityComparator)}, but only the sets whose
+	 * priority is not greater than the given bound and at most the given
+	 * number of such sets. Since the sets are enumerated in the order of their
+	 * priorities, the listener is notified about the first sets in this order
+	 * that satisfy these conditions. Enumerators should stop the computation
+	 * as soon as no further set satisfying these conditions can be found.
+	 * 
+	 * @param listener
+	 *            The listener that is notified about new subset-minimal sets.
+	 * @param priorityComparator
+	 *            The comparator that defines the order of the sets based on
+	 *            their priorities provided by this comparator. The same
+	 *            constraints as for
+	 *            {@link #enumerate(Listener, PriorityComparator)} apply.
+	 * @param bound
+	 *            The maximal priority of the enumerated sets or {@code null}
+	 *            if the priorities are not bounded.
+	 * @param limit
+	 *            The maximal number of the enumerated sets; must be positive.
+	 */
+	<P> void enumerate(Listener<E> listener,
+			PriorityComparator<? super Set<E>, P> priorityComparator, P bound,
+			int limit);
+
+	/**
+	 * Creates a cursor over subset-minimal sets that are returned in the
+	 * order defined by the provided {@link PriorityComparator}, like for
+	 * {@link #enumerate(Listener, PriorityComparator)}. The sets are
+	 * computed only when they are requested from the cursor, so the
+	 * computation can be suspended and resumed by the consumer of the sets.
+	 * 
+	 * @param priorityComparator
+	 *            The comparator that defines the order of the sets based on
+	 *            their priorities provided by this comparator. The same
+	 *            constraints as for
+	 *            {@link #enumerate(Listener, PriorityComparator)} apply.
+	 * @return a new {@link MinimalSubsetCursor} over the subset-minimal sets
+	 */
+	MinimalSubsetCursor<E> newCursor(
+			PriorityComparator<? super Set<E>, ?> priorityComparator);
+
+}
@@ -0,0 +1,418 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An immutable snapshot of the inferences of a {@link Proof} and their
+ * justifications that can be used to derive the given queries. The
+ * conclusions, inferences and axioms are assigned consecutive ids, and the
+ * inferences of every conclusion, as well as the premises and the
+ * justification of every inference, are stored in arrays of ids, so that
+ * {@link #getInferences(Object)} and the justifications returned by
+ * {@link #getJustifier()} are computed without calling the original
+ * {@link Proof} and {@link InferenceJustifier}. This is useful when these are
+ * expensive and the pinpointing computations use them repeatedly, e.g., when
+ * several queries are processed or enumerations are repeated. The snapshot
+ * does not change when the original {@link Proof} changes.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <A>
+ *            the type of axioms used in justifications of inferences
+ */
+public class CompiledProof<C, A>
+		implements Proof<CompiledProof.CompiledInference<C>> {
+
+	private final FrozenIdMap<C> conclusionIds_;
+
+	private final FrozenIdMap<A> axiomIds_;
+
+	/**
+	 * the inferences of the conclusion with id {@code c} have ids from
+	 * {@code inferenceStart_[c]} (inclusive) to
+	 * {@code inferenceStart_[c + 1]} (exclusive)
+	 */
+	private final int[] inferenceStart_;
+
+	/**
+	 * the premises of the inference with id {@code i} are stored in
+	 * {@link #premiseIds_} from {@code premiseStart_[i]} to
+	 * {@code premiseStart_[i + 1]}; the premises are stored in the order of
+	 * the original inference
+	 */
+	private final int[] premiseStart_, premiseIds_;
+
+	/**
+	 * the sorted ids of axioms in the justification of the inference with id
+	 * {@code i} are stored in {@link #justificationIds_} from
+	 * {@code justificationStart_[i]} to {@code justificationStart_[i + 1]}
+	 */
+	private final int[] justificationStart_, justificationIds_;
+
+	private final List<CompiledInference<C>> inferences_;
+
+	private final InferenceJustifier<CompiledInference<C>, Set<A>> justifier_ = new InferenceJustifier<CompiledInference<C>, Set<A>>() {
+
+		@Override
+		public Set<A> getJustification(final CompiledInference<C> inference) {
+			Preconditions.checkArgument(inference.proof_ == CompiledProof.this,
+					"Inference from a different proof: %s", inference);
+			return new SortedIdSet<A>(getJustificationIds(inference.id_),
+					axiomIds_);
+		}
+
+	};
+
+	private CompiledProof(final FrozenIdMap<C> conclusionIds,
+			final FrozenIdMap<A> axiomIds, final int[] inferenceStart,
+			final int[] premiseStart, final int[] premiseIds,
+			final int[] justificationStart, final int[] justificationIds,
+			final String[] names) {
+		this.conclusionIds_ = conclusionIds;
+		this.axiomIds_ = axiomIds;
+		this.inferenceStart_ = inferenceStart;
+		this.premiseStart_ = premiseStart;
+		this.premiseIds_ = premiseIds;
+		this.justificationStart_ = justificationStart;
+		this.justificationIds_ = justificationIds;
+		final List<CompiledInference<C>> inferences = new ArrayList<CompiledInference<C>>(
+				names.length);
+		int conclusionId = 0;
+		for (int id = 0; id < names.length; id++) {
+			while (inferenceStart[conclusionId + 1] <= id) {
+				conclusionId++;
+			}
+			inferences.add(
+					new CompiledInference<C>(this, id, conclusionId, names[id]));
+		}
+		this.inferences_ = inferences;
+	}
+
+	/**
+	 * Creates a snapshot of the inferences of the given {@link Proof} that
+	 * can be used to derive the given queries
+	 * 
+	 * @param proof
+	 * @param justifier
+	 *            justifies the inferences of the proof
+	 * @param queries
+	 *            the conclusions whose inferences, the inferences of their
+	 *            premises, and so on, are included in the snapshot
+	 * @return the new {@link CompiledProof}
+	 */
+	public static <C, I extends Inference<? extends C>, A> CompiledProof<C, A> compile(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final Collection<? extends C> queries) {
+		Preconditions.checkNotNull(proof);
+		Preconditions.checkNotNull(justifier);
+		final IdMap<C> conclusionIds = HashIdMap.create();
+		final IdMap<A> axiomIds = HashIdMap.create();
+		final List<C> conclusions = new ArrayList<C>();
+		final List<A> axioms = new ArrayList<A>();
+		final IntListBuilder inferenceStart = new IntListBuilder(),
+				premiseStart = new IntListBuilder(),
+				premiseIds = new IntListBuilder(),
+				justificationStart = new IntListBuilder(),
+				justificationIds = new IntListBuilder();
+		final List<String> names = new ArrayList<String>();
+		final Queue<C> toDo = new ArrayDeque<C>();
+		for (final C query : queries) {
+			addConclusion(query, conclusionIds, conclusions, toDo);
+		}
+		// the conclusions are processed in the order of their ids
+		for (;;) {
+			final C next = toDo.poll();
+			if (next == null) {
+				break;
+			}
+			// else
+			inferenceStart.add(names.size());
+			for (final I inf : proof.getInferences(next)) {
+				names.add(inf.getName());
+				premiseStart.add(premiseIds.size());
+				for (final C premise : inf.getPremises()) {
+					premiseIds.add(addConclusion(premise, conclusionIds,
+							conclusions, toDo));
+				}
+				justificationStart.add(justificationIds.size());
+				final Set<? extends A> justification = justifier
+						.getJustification(inf);
+				final int[] ids = new int[justification.size()];
+				int pos = 0;
+				for (final A axiom : justification) {
+					final int id = axiomIds.getId(axiom);
+					if (id == axioms.size()) {
+						axioms.add(axiom);
+					}
+					ids[pos++] = id;
+				}
+				Arrays.sort(ids);
+				for (final int id : ids) {
+					justificationIds.add(id);
+				}
+			}
+		}
+		inferenceStart.add(names.size());
+		premiseStart.add(premiseIds.size());
+		justificationStart.add(justificationIds.size());
+		return new CompiledProof<C, A>(
+				new FrozenIdMap<C>(conclusions), new FrozenIdMap<A>(axioms),
+				inferenceStart.toArray(), premiseStart.toArray(),
+				premiseIds.toArray(), justificationStart.toArray(),
+				justificationIds.toArray(),
+				names.toArray(new String[names.size()]));
+	}
+
+	private static <C> int addConclusion(final C conclusion,
+			final IdMap<C> conclusionIds, final List<C> conclusions,
+			final Queue<C> toDo) {
+		final int id = conclusionIds.getId(conclusion);
+		if (id == conclusions.size()) {
+			conclusions.add(conclusion);
+			toDo.add(conclusion);
+		}
+		return id;
+	}
+
+	/**
+	 * @return the {@link InferenceJustifier} for the inferences of this proof
+	 *         that returns the justifications of the original inferences
+	 */
+	public InferenceJustifier<CompiledInference<C>, Set<A>> getJustifier() {
+		return justifier_;
+	}
+
+	@Override
+	public List<CompiledInference<C>> getInferences(final Object conclusion) {
+		final Integer id = conclusionIds_.contains(conclusion);
+		if (id == null) {
+			return Collections.emptyList();
+		}
+		// else the ids of the inferences are consecutive
+		return inferences_.subList(inferenceStart_[id],
+				inferenceStart_[id + 1]);
+	}
+
+	/**
+	 * @return the number of conclusions of this proof, which are assigned
+	 *         ids from {@code 0} to this number (exclusive)
+	 */
+	public int getConclusionCount() {
+		return conclusionIds_.size();
+	}
+
+	/**
+	 * @return the number of inferences of this proof, which are assigned ids
+	 *         from {@code 0} to this number (exclusive)
+	 */
+	public int getInferenceCount() {
+		return inferences_.size();
+	}
+
+	/**
+	 * @return the number of axioms in the justifications of inferences of
+	 *         this proof, which are assigned ids from {@code 0} to this
+	 *         number (exclusive)
+	 */
+	public int getAxiomCount() {
+		return axiomIds_.size();
+	}
+
+	/**
+	 * @param inferenceId
+	 * @return the sorted ids of the axioms in the justification of the
+	 *         inference with the given id
+	 */
+	int[] getJustificationIds(final int inferenceId) {
+		final int from = justificationStart_[inferenceId];
+		final int to = justificationStart_[inferenceId + 1];
+		if (from == to) {
+			return SortedIdSet.NO_IDS_;
+		}
+		// else
+		return Arrays.copyOfRange(justificationIds_, from, to);
+	}
+
+	/**
+	 * An inference of a {@link CompiledProof}; its premises are computed from
+	 * their ids. Two such inferences are equal only if they are the same
+	 * object.
+	 * 
+	 * @author Yevgeny Kazakov
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 */
+	public static class CompiledInference<C> implements Inference<C> {
+
+		private final CompiledProof<C, ?> proof_;
+
+		private final int id_;
+
+		private final int conclusionId_;
+
+		private final String name_;
+
+		CompiledInference(final CompiledProof<C, ?> proof, final int id,
+				final int conclusionId, final String name) {
+			this.proof_ = proof;
+			this.id_ = id;
+			this.conclusionId_ = conclusionId;
+			this.name_ = name;
+		}
+
+		/**
+		 * @return the id of this inference in its {@link CompiledProof}
+		 */
+		public int getId() {
+			return id_;
+		}
+
+		@Override
+		public String getName() {
+			return name_;
+		}
+
+		@Override
+		public C getConclusion() {
+			return proof_.conclusionIds_.getElement(conclusionId_);
+		}
+
+		@Override
+		public List<? extends C> getPremises() {
+			final int from = proof_.premiseStart_[id_];
+			final int to = proof_.premiseStart_[id_ + 1];
+			return new AbstractList<C>() {
+
+				@Override
+				public C get(final int index) {
+					Preconditions.checkElementIndex(index, to - from);
+					return proof_.conclusionIds_
+							.getElement(proof_.premiseIds_[from + index]);
+				}
+
+				@Override
+				public int size() {
+					return to - from;
+				}
+
+			};
+		}
+
+		@Override
+		public String toString() {
+			return Inferences.toString(this);
+		}
+
+	}
+
+	/**
+	 * An {@link IdMap} to which no new elements can be added
+	 */
+	private static class FrozenIdMap<E> implements IdMap<E> {
+
+		private final Map<Object, Integer> ids_;
+
+		private final Object[] elements_;
+
+		FrozenIdMap(final List<E> elements) {
+			this.elements_ = elements.toArray();
+			this.ids_ = new HashMap<Object, Integer>(elements_.length * 2);
+			for (int id = 0; id < elements_.length; id++) {
+				ids_.put(elements_[id], id);
+			}
+		}
+
+		@Override
+		public int getId(final E element) {
+			final Integer result = ids_.get(element);
+			Preconditions.checkArgument(result != null,
+					"Unknown element: %s", element);
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E getElement(final int id) {
+			return (E) elements_[id];
+		}
+
+		@Override
+		public Integer contains(final Object o) {
+			return ids_.get(o);
+		}
+
+		public int size() {
+			return elements_.length;
+		}
+
+	}
+
+	/**
+	 * A growable array of ints
+	 */
+	private static class IntListBuilder {
+
+		private int[] elements_ = new int[16];
+
+		private int size_ = 0;
+
+		void add(final int element) {
+			if (size_ == elements_.length) {
+				elements_ = Arrays.copyOf(elements_, size_ << 1);
+			}
+			elements_[size_++] = element;
+		}
+
+		int size() {
+			return size_;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(elements_, size_);
+		}
+
+	}
+
+}
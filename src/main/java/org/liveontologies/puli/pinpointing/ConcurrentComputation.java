@@ -0,0 +1,389 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A {@link MinimalSubsetEnumerator.Factory} whose enumerators can be used
+ * concurrently by several threads. The enumerations are delegated to a pool
+ * of computations created by the given {@link MinimalSubsetsFromProofs.Factory}
+ * for the same proof; each computation is used by at most one thread at a
+ * time, so the computations need not be thread-safe, and it is reused by the
+ * subsequent enumerations, preferably for the same queries, so that their
+ * results are shared. The number of enumerations running in parallel is
+ * limited by the number of computations in the pool; if all of them are in
+ * use, the enumerations wait until some computation is released or the
+ * monitor is interrupted. The proof and the justifier must support concurrent
+ * reads.
+ * <p>
+ * A cursor keeps its computation until it is closed or all sets are returned.
+ * A thread that holds cursors for all computations in the pool and starts
+ * another enumeration waits for a computation that only this thread can
+ * release, so it is blocked until the monitor is interrupted; such a thread
+ * should close its cursors first.
+ * 
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class ConcurrentComputation<C, I extends Inference<? extends C>, A>
+		implements MinimalSubsetEnumerator.Factory<C, A> {
+
+	/**
+	 * how long an enumeration waits for a computation before checking the
+	 * monitor again
+	 */
+	private static final long WAIT_TIMEOUT_MS_ = 100;
+
+	/**
+	 * the maximal number of queries for which the last used computations are
+	 * remembered
+	 */
+	private static final int MAX_REMEMBERED_QUERIES_ = 1 << 10;
+
+	private final MinimalSubsetsFromProofs.Factory<C, I, A> factory_;
+
+	private final Proof<? extends I> proof_;
+
+	private final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier_;
+
+	private final InterruptMonitor monitor_;
+
+	/**
+	 * the maximal number of computations in the pool
+	 */
+	private final int parallelism_;
+
+	/**
+	 * the computations in the pool that are not used by any enumeration
+	 */
+	private final List<MinimalSubsetEnumerator.Factory<C, A>> idle_ = new ArrayList<MinimalSubsetEnumerator.Factory<C, A>>();
+
+	/**
+	 * the computation that was used for the last enumeration for the query;
+	 * only the most recently enumerated queries are remembered
+	 */
+	private final Map<C, MinimalSubsetEnumerator.Factory<C, A>> lastUsed_ = new LinkedHashMap<C, MinimalSubsetEnumerator.Factory<C, A>>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<C, MinimalSubsetEnumerator.Factory<C, A>> eldest) {
+			return size() > MAX_REMEMBERED_QUERIES_;
+		}
+
+	};
+
+	/**
+	 * the number of computations created so far
+	 */
+	private int computationCount_ = 0;
+
+	// Statistics
+	private int waitCount_ = 0;
+
+	ConcurrentComputation(final MinimalSubsetsFromProofs.Factory<C, I, A> factory,
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor, final int parallelism) {
+		Preconditions.checkNotNull(factory);
+		Preconditions.checkNotNull(proof);
+		Preconditions.checkNotNull(justifier);
+		Preconditions.checkNotNull(monitor);
+		Preconditions.checkArgument(parallelism > 0,
+				"The parallelism must be positive: %s", parallelism);
+		this.factory_ = factory;
+		this.proof_ = proof;
+		this.justifier_ = justifier;
+		this.monitor_ = monitor;
+		this.parallelism_ = parallelism;
+	}
+
+	/**
+	 * @param factory
+	 *            the factory used to create the computations in the pool
+	 * @param proof
+	 * @param justifier
+	 * @param monitor
+	 * @param parallelism
+	 *            the maximal number of enumerations that can run in parallel
+	 * @return a new {@link ConcurrentComputation} using the computations
+	 *         created by the given factory
+	 */
+	public static <C, I extends Inference<? extends C>, A> ConcurrentComputation<C, I, A> create(
+			final MinimalSubsetsFromProofs.Factory<C, I, A> factory,
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor, final int parallelism) {
+		return new ConcurrentComputation<C, I, A>(factory, proof, justifier,
+				monitor, parallelism);
+	}
+
+	@Override
+	public BoundedMinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		return new Enumerator(query);
+	}
+
+	/**
+	 * Takes a computation from the pool, waiting if all computations are in
+	 * use
+	 * 
+	 * @param query
+	 * @return the computation that can be used only by the calling thread
+	 *         until it is released using
+	 *         {@link #release(Object, MinimalSubsetEnumerator.Factory)} or
+	 *         {@code null} if the monitor was interrupted while waiting
+	 */
+	synchronized MinimalSubsetEnumerator.Factory<C, A> acquire(C query) {
+		for (;;) {
+			MinimalSubsetEnumerator.Factory<C, A> last = lastUsed_.get(query);
+			if (last != null && idle_.remove(last)) {
+				return last;
+			}
+			// else
+			if (computationCount_ < parallelism_) {
+				MinimalSubsetEnumerator.Factory<C, A> created = factory_
+						.create(proof_, justifier_, monitor_);
+				// not counted if the creation fails
+				computationCount_++;
+				return created;
+			}
+			// else
+			if (!idle_.isEmpty()) {
+				return idle_.remove(idle_.size() - 1);
+			}
+			// else
+			if (monitor_.isInterrupted()) {
+				return null;
+			}
+			// else
+			waitCount_++;
+			try {
+				wait(WAIT_TIMEOUT_MS_);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Waiting for computation interrupted",
+						e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the computation taken by
+	 * {@link #acquire(Object)} back to the pool
+	 * 
+	 * @param query
+	 * @param computation
+	 */
+	synchronized void release(C query,
+			MinimalSubsetEnumerator.Factory<C, A> computation) {
+		lastUsed_.put(query, computation);
+		idle_.add(computation);
+		notify();
+	}
+
+	/**
+	 * @return the number of computations created for the pool so far
+	 */
+	@Stat
+	public synchronized int nComputations() {
+		return computationCount_;
+	}
+
+	/**
+	 * @return how many times enumerations had to wait for a computation
+	 */
+	@Stat
+	public synchronized int nWaits() {
+		return waitCount_;
+	}
+
+	class Enumerator extends AbstractMinimalSubsetEnumerator<A> {
+
+		private final C query_;
+
+		Enumerator(C query) {
+			this.query_ = query;
+		}
+
+		@Override
+		public void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			MinimalSubsetEnumerator.Factory<C, A> computation = acquire(
+					query_);
+			if (computation == null) {
+				notifyInterrupted(listener);
+				return;
+			}
+			// else
+			try {
+				computation.newEnumerator(query_).enumerate(listener,
+						priorityComparator);
+			} finally {
+				release(query_, computation);
+			}
+		}
+
+		@Override
+		public <P> void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, P> priorityComparator,
+				final P bound, final int limit) {
+			MinimalSubsetEnumerator.Factory<C, A> computation = acquire(
+					query_);
+			if (computation == null) {
+				notifyInterrupted(listener);
+				return;
+			}
+			// else
+			try {
+				MinimalSubsetEnumerators
+						.bounded(computation.newEnumerator(query_))
+						.enumerate(listener, priorityComparator, bound, limit);
+			} finally {
+				release(query_, computation);
+			}
+		}
+
+		private void notifyInterrupted(final Listener<A> listener) {
+			MinimalSubsetsFromProofs.notifyFinished(listener,
+					new EnumerationResult(MinimalSubsetsFromProofs
+							.getInterruptionStatus(monitor_), 0, 0, 0));
+		}
+
+		/**
+		 * The returned cursor keeps a computation from the pool until it is
+		 * closed or all sets are returned; the thread holding the cursor
+		 * should not start other enumerations using this
+		 * {@link ConcurrentComputation} before closing it. If the monitor is
+		 * interrupted while waiting for a computation, the returned cursor is
+		 * empty.
+		 */
+		@Override
+		public MinimalSubsetCursor<A> newCursor(
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			final MinimalSubsetEnumerator.Factory<C, A> computation = acquire(
+					query_);
+			if (computation == null) {
+				return new MinimalSubsetCursor<A>() {
+
+					@Override
+					public boolean hasNext() {
+						return false;
+					}
+
+					@Override
+					public Set<A> next() {
+						throw new NoSuchElementException();
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+
+					@Override
+					public void close() {
+						// nothing to release
+					}
+
+				};
+			}
+			// else
+			final MinimalSubsetCursor<A> cursor;
+			try {
+				cursor = MinimalSubsetEnumerators
+						.bounded(computation.newEnumerator(query_))
+						.newCursor(priorityComparator);
+			} catch (RuntimeException e) {
+				release(query_, computation);
+				throw e;
+			}
+			return new MinimalSubsetCursor<A>() {
+
+				private boolean released_ = false;
+
+				@Override
+				public boolean hasNext() {
+					if (released_) {
+						return false;
+					}
+					// else
+					if (cursor.hasNext()) {
+						return true;
+					}
+					// else
+					close();
+					return false;
+				}
+
+				@Override
+				public Set<A> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					// else
+					return cursor.next();
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() {
+					if (released_) {
+						return;
+					}
+					// else
+					released_ = true;
+					try {
+						cursor.close();
+					} finally {
+						release(query_, computation);
+					}
+				}
+
+			};
+		}
+
+	}
+
+}
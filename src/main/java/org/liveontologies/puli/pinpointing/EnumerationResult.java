@@ -0,0 +1,102 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Summarizes a finished enumeration of subset-minimal sets, so that callers
+ * can tell whether the enumerated sets are all requested sets or only a
+ * part of them.
+ * 
+ * @see MinimalSubsetEnumerator.ResultListener
+ */
+public class EnumerationResult {
+
+	private final EnumerationStatus status_;
+
+	private final int enumeratedCount_;
+
+	private final int unprocessedCount_;
+
+	private final int postponedCount_;
+
+	/**
+	 * @param status
+	 *            how the enumeration has finished
+	 * @param enumeratedCount
+	 *            the number of sets enumerated
+	 * @param unprocessedCount
+	 *            the number of elements in the queue of the computation when
+	 *            the enumeration has finished
+	 * @param postponedCount
+	 *            the number of elements kept by the computation for the next
+	 *            enumerations
+	 */
+	public EnumerationResult(EnumerationStatus status, int enumeratedCount,
+			int unprocessedCount, int postponedCount) {
+		Preconditions.checkNotNull(status);
+		this.status_ = status;
+		this.enumeratedCount_ = enumeratedCount;
+		this.unprocessedCount_ = unprocessedCount;
+		this.postponedCount_ = postponedCount;
+	}
+
+	/**
+	 * @return how the enumeration has finished
+	 */
+	public EnumerationStatus getStatus() {
+		return status_;
+	}
+
+	/**
+	 * @return the number of sets enumerated
+	 */
+	public int getEnumeratedCount() {
+		return enumeratedCount_;
+	}
+
+	/**
+	 * @return the number of inferences or jobs that remained in the queue of
+	 *         the computation when the enumeration has finished; these are
+	 *         not processed if the enumeration was truncated
+	 */
+	public int getUnprocessedCount() {
+		return unprocessedCount_;
+	}
+
+	/**
+	 * @return the number of inferences or jobs that the computation keeps for
+	 *         the next enumerations
+	 */
+	public int getPostponedCount() {
+		return postponedCount_;
+	}
+
+	@Override
+	public String toString() {
+		return status_ + " [enumerated: " + enumeratedCount_
+				+ ", unprocessed: " + unprocessedCount_ + ", postponed: "
+				+ postponedCount_ + "]";
+	}
+
+}
@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+/**
+ * Describes how an enumeration of subset-minimal sets has finished.
+ * 
+ * @see EnumerationResult
+ */
+public enum EnumerationStatus {
+
+	/**
+	 * all requested sets have been enumerated
+	 */
+	COMPLETE,
+	/**
+	 * the enumeration was stopped because the requested number of sets was
+	 * enumerated; further sets could exist
+	 */
+	LIMIT_REACHED,
+	/**
+	 * the enumeration was interrupted by the {@link InterruptMonitor} for an
+	 * unknown reason
+	 */
+	INTERRUPTED,
+	/**
+	 * the enumeration was interrupted because the deadline has passed
+	 */
+	TRUNCATED_BY_TIME,
+	/**
+	 * the enumeration was interrupted because the budget of processed
+	 * inferences was exhausted
+	 */
+	TRUNCATED_BY_BUDGET,
+	/**
+	 * the enumeration was interrupted because the heap was almost exhausted
+	 */
+	TRUNCATED_BY_MEMORY;
+
+	/**
+	 * @return {@code true} if the enumeration was interrupted, in which case
+	 *         some requested sets may not have been enumerated
+	 */
+	public boolean isTruncated() {
+		return this != COMPLETE && this != LIMIT_REACHED;
+	}
+
+}
@@ -31,7 +31,7 @@ public class HashIdMap<E> implements IdMap<E> {
 
 	int nextId_ = 0;
 
-	private HashIdMap() {
+	HashIdMap() {
 		baseBiMap_ = HashBiMap.create();
 	}
 
@@ -68,4 +68,12 @@ public class HashIdMap<E> implements IdMap<E> {
 		return baseBiMap_.get(o);
 	}
 
+	/**
+	 * @return the number of elements for which ids were assigned; the ids are
+	 *         assigned consecutively starting from 0
+	 */
+	public int size() {
+		return nextId_;
+	}
+
 }
@@ -0,0 +1,359 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.Set;
+
+/**
+ * Computes priorities of sets of elements represented by sorted arrays of
+ * their ids. Implementations may avoid creating the sets for which priorities
+ * are computed.
+ *
+ * @param <P>
+ *            the type of priorities
+ */
+abstract class IdPriorityFunction<P> {
+
+	/**
+	 * @param ids
+	 *            sorted ids of elements
+	 * @return the priority of the set of elements with the given ids
+	 */
+	abstract P getPriority(int[] ids);
+
+	/**
+	 * @param first
+	 *            sorted ids of elements
+	 * @param firstPriority
+	 *            the priority of the elements with ids in {@code first}
+	 *            computed by this function
+	 * @param second
+	 *            sorted ids of elements
+	 * @param secondPriority
+	 *            the priority of the elements with ids in {@code second}
+	 *            computed by this function
+	 * @return the priority of the union of sets of elements with the given ids
+	 */
+	abstract P getUnionPriority(int[] first, P firstPriority, int[] second,
+			P secondPriority);
+
+	/**
+	 * @param other
+	 * @return {@code true} if the given {@link IdPriorityFunction} computes
+	 *         the same priorities for the same ids as this one, so that the
+	 *         priorities computed by one function can be used by another;
+	 *         the functions using {@link PriorityComparator}s that do not
+	 *         override {@link Object#equals(Object)} are compatible only if
+	 *         they use the same comparator
+	 */
+	abstract boolean isCompatible(IdPriorityFunction<?> other);
+
+	/**
+	 * Should be called before {@link #getPriority(int[])} and
+	 * {@link #getUnionPriority(int[], Object, int[], Object)} can be called
+	 * concurrently from several threads
+	 * 
+	 * @param idCount
+	 *            the number of ids that can be used after that; the ids are
+	 *            from {@code 0} to this number (exclusive)
+	 */
+	void prepare(int idCount) {
+		// nothing by default
+	}
+
+	/**
+	 * Creates an {@link IdPriorityFunction} that computes priorities using the
+	 * given {@link PriorityComparator}. The priorities of
+	 * {@link PriorityComparators#cardinality()} and
+	 * {@link WeightedPriorityComparator}s are computed directly from the ids.
+	 * 
+	 * @param priorityComparator
+	 * @param idMap
+	 *            the map that assigns ids to elements
+	 * @return the new {@link IdPriorityFunction}
+	 */
+	@SuppressWarnings("unchecked")
+	static <E, P> IdPriorityFunction<P> create(
+			final PriorityComparator<? super Set<E>, P> priorityComparator,
+			final IdMap<E> idMap) {
+		final Object comparator = priorityComparator;
+		if (comparator instanceof PriorityComparators.Cardinality<?>) {
+			return (IdPriorityFunction<P>) new CardinalityFunction();
+		}
+		if (comparator instanceof WeightedPriorityComparator<?>) {
+			// the weights are defined for elements of the compared sets
+			return (IdPriorityFunction<P>) new WeightedFunction<E>(
+					(WeightedPriorityComparator<? super E>) comparator, idMap);
+		}
+		// else
+		return new DefaultFunction<E, P>(priorityComparator, idMap);
+	}
+
+	static class DefaultFunction<E, P> extends IdPriorityFunction<P> {
+
+		private final PriorityComparator<? super Set<E>, P> priorityComparator_;
+
+		private final IdMap<E> idMap_;
+
+		DefaultFunction(PriorityComparator<? super Set<E>, P> priorityComparator,
+				IdMap<E> idMap) {
+			this.priorityComparator_ = priorityComparator;
+			this.idMap_ = idMap;
+		}
+
+		@Override
+		P getPriority(int[] ids) {
+			return priorityComparator_.getPriority(new SortedIdSet<E>(ids, idMap_));
+		}
+
+		@Override
+		P getUnionPriority(int[] first, P firstPriority, int[] second,
+				P secondPriority) {
+			// nothing is known about how the priorities are computed
+			return getPriority(SortedIdSet.union(first, second));
+		}
+
+		@Override
+		boolean isCompatible(IdPriorityFunction<?> other) {
+			return other instanceof DefaultFunction<?, ?>
+					&& ((DefaultFunction<?, ?>) other).priorityComparator_
+							.equals(priorityComparator_)
+					&& ((DefaultFunction<?, ?>) other).idMap_ == idMap_;
+		}
+
+	}
+
+	/**
+	 * An {@link IdPriorityFunction} whose priorities are represented by
+	 * {@code long} values that are additive: the priority of a union of two
+	 * sets is the sum of their priorities minus the priority of their
+	 * intersection. The priorities can be computed without boxing using the
+	 * methods for {@code long} values, and they are ordered like these values.
+	 *
+	 * @param <P>
+	 *            the type of (boxed) priorities
+	 */
+	static abstract class LongFunction<P> extends IdPriorityFunction<P> {
+
+		/**
+		 * @param ids
+		 *            sorted ids of elements
+		 * @return the priority of the set of elements with the given ids
+		 */
+		abstract long getLongPriority(int[] ids);
+
+		/**
+		 * @param first
+		 *            sorted ids of elements
+		 * @param second
+		 *            sorted ids of elements
+		 * @return the priority of the intersection of the sets of elements
+		 *         with the given ids
+		 */
+		abstract long getLongCommonPriority(int[] first, int[] second);
+
+		/**
+		 * @param first
+		 *            sorted ids of elements
+		 * @param firstPriority
+		 *            the result of {@link #getLongPriority(int[])} for
+		 *            {@code first}
+		 * @param second
+		 *            sorted ids of elements
+		 * @param secondPriority
+		 *            the result of {@link #getLongPriority(int[])} for
+		 *            {@code second}
+		 * @return the priority of the union of sets of elements with the
+		 *         given ids
+		 */
+		long getLongUnionPriority(int[] first, long firstPriority,
+				int[] second, long secondPriority) {
+			return firstPriority + secondPriority
+					- getLongCommonPriority(first, second);
+		}
+
+		abstract P box(long priority);
+
+		abstract long unbox(P priority);
+
+		@Override
+		P getPriority(int[] ids) {
+			return box(getLongPriority(ids));
+		}
+
+		@Override
+		P getUnionPriority(int[] first, P firstPriority, int[] second,
+				P secondPriority) {
+			return box(getLongUnionPriority(first, unbox(firstPriority),
+					second, unbox(secondPriority)));
+		}
+
+	}
+
+	static class CardinalityFunction extends LongFunction<Integer> {
+
+		@Override
+		long getLongPriority(int[] ids) {
+			return ids.length;
+		}
+
+		@Override
+		long getLongCommonPriority(int[] first, int[] second) {
+			long result = 0;
+			int i = 0;
+			int j = 0;
+			while (i < first.length && j < second.length) {
+				int x = first[i];
+				int y = second[j];
+				if (x < y) {
+					i++;
+				} else if (x > y) {
+					j++;
+				} else {
+					result++;
+					i++;
+					j++;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		Integer box(long priority) {
+			return (int) priority;
+		}
+
+		@Override
+		long unbox(Integer priority) {
+			return priority;
+		}
+
+		@Override
+		boolean isCompatible(IdPriorityFunction<?> other) {
+			return other instanceof CardinalityFunction;
+		}
+
+	}
+
+	static class WeightedFunction<E> extends LongFunction<Long> {
+
+		private final WeightedPriorityComparator<? super E> priorityComparator_;
+
+		private final IdMap<E> idMap_;
+
+		/**
+		 * the weights of elements indexed by their ids; the weights are
+		 * computed for the first {@link #weightCount_} ids
+		 */
+		private long[] weights_ = new long[16];
+
+		private int weightCount_ = 0;
+
+		WeightedFunction(WeightedPriorityComparator<? super E> priorityComparator,
+				IdMap<E> idMap) {
+			this.priorityComparator_ = priorityComparator;
+			this.idMap_ = idMap;
+		}
+
+		/**
+		 * @param id
+		 * @return the weight of the element with the given id
+		 */
+		long getWeight(int id) {
+			if (id >= weightCount_) {
+				computeWeights(id + 1);
+			}
+			return weights_[id];
+		}
+
+		private void computeWeights(int count) {
+			if (count > weights_.length) {
+				long[] newWeights = new long[Math.max(count,
+						weights_.length << 1)];
+				System.arraycopy(weights_, 0, newWeights, 0, weightCount_);
+				weights_ = newWeights;
+			}
+			for (; weightCount_ < count; weightCount_++) {
+				weights_[weightCount_] = priorityComparator_
+						.getWeight(idMap_.getElement(weightCount_));
+			}
+		}
+
+		@Override
+		void prepare(int idCount) {
+			if (idCount > weightCount_) {
+				computeWeights(idCount);
+			}
+		}
+
+		@Override
+		long getLongPriority(int[] ids) {
+			long result = 0;
+			for (int id : ids) {
+				result += getWeight(id);
+			}
+			return result;
+		}
+
+		@Override
+		long getLongCommonPriority(int[] first, int[] second) {
+			// only the weights of common elements are needed
+			long result = 0;
+			int i = 0;
+			int j = 0;
+			while (i < first.length && j < second.length) {
+				int x = first[i];
+				int y = second[j];
+				if (x < y) {
+					i++;
+				} else if (x > y) {
+					j++;
+				} else {
+					result += getWeight(x);
+					i++;
+					j++;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		Long box(long priority) {
+			return priority;
+		}
+
+		@Override
+		long unbox(Long priority) {
+			return priority;
+		}
+
+		@Override
+		boolean isCompatible(IdPriorityFunction<?> other) {
+			return other instanceof WeightedFunction<?>
+					&& ((WeightedFunction<?>) other).priorityComparator_
+							.equals(priorityComparator_)
+					&& ((WeightedFunction<?>) other).idMap_ == idMap_;
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.liveontologies.puli.collections.BloomTrieCollection2;
+import org.liveontologies.puli.collections.Collection2;
+
+/**
+ * Maintains the minimal hitting sets of the sets added so far, e.g., the
+ * repairs for the justifications reported by a {@link MinimalSubsetEnumerator}
+ * to which this object is passed as a listener, so that the repairs can be
+ * inspected before the enumeration of justifications is finished. The
+ * minimal hitting sets are updated after every new set using Berge's
+ * algorithm: the hitting sets that do not hit the new set are extended by
+ * each of its elements, and the extensions that are not minimal are
+ * discarded. The methods are synchronized, so the hitting sets can be
+ * obtained by other threads while the sets are added.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <E>
+ *            the type of elements of the sets
+ */
+public class IncrementalHittingSets<E>
+		implements MinimalSubsetEnumerator.Listener<E> {
+
+	/**
+	 * orders the hitting sets by their sizes, so that the subsets come first
+	 */
+	private static final Comparator<SortedIntSet> SIZE_COMPARATOR_ = new Comparator<SortedIntSet>() {
+
+		@Override
+		public int compare(final SortedIntSet first,
+				final SortedIntSet second) {
+			return first.size() - second.size();
+		}
+
+	};
+
+	private final IdMap<E> elementIds_ = HashIdMap.create();
+
+	/**
+	 * the current minimal hitting sets represented by the sorted ids of their
+	 * elements; initially, the empty set hits all of the (zero) sets
+	 */
+	private List<SortedIntSet> hittingSets_ = Collections
+			.singletonList(new SortedIntSet(SortedIdSet.NO_IDS_));
+
+	private int setCount_ = 0;
+
+	/**
+	 * Updates the minimal hitting sets so that they also hit the given set
+	 * 
+	 * @param set
+	 */
+	public synchronized void add(final Set<? extends E> set) {
+		setCount_++;
+		final int[] ids = SortedIdSet.getIds(set, elementIds_);
+		final List<SortedIntSet> hitting = new ArrayList<SortedIntSet>(
+				hittingSets_.size());
+		final List<SortedIntSet> extended = new ArrayList<SortedIntSet>();
+		for (final SortedIntSet hittingSet : hittingSets_) {
+			final int[] hittingIds = hittingSet.getElements();
+			if (SortedIdSet.intersects(hittingIds, ids)) {
+				hitting.add(hittingSet);
+			} else {
+				for (final int id : ids) {
+					extended.add(new SortedIntSet(
+							SortedIdSet.add(hittingIds, id)));
+				}
+			}
+		}
+		if (extended.isEmpty()) {
+			// the hitting sets that do not hit the new set are removed
+			hittingSets_ = hitting;
+			return;
+		}
+		// else the remaining hitting sets stay minimal
+		final Collection2<SortedIntSet> minimal = new BloomTrieCollection2<SortedIntSet>();
+		minimal.addAll(hitting);
+		Collections.sort(extended, SIZE_COMPARATOR_);
+		for (final SortedIntSet candidate : extended) {
+			if (minimal.isMinimal(candidate)) {
+				minimal.add(candidate);
+				hitting.add(candidate);
+			}
+		}
+		hittingSets_ = hitting;
+	}
+
+	/**
+	 * Adds the given set, so that this object can be used as a
+	 * {@link MinimalSubsetEnumerator.Listener}
+	 * 
+	 * @see #add(Set)
+	 */
+	@Override
+	public void newMinimalSubset(final Set<E> set) {
+		add(set);
+	}
+
+	/**
+	 * @return the number of sets added so far
+	 */
+	public synchronized int getSetCount() {
+		return setCount_;
+	}
+
+	/**
+	 * @return the minimal hitting sets of the sets added so far; the result
+	 *         is not updated when new sets are added
+	 */
+	public synchronized List<Set<E>> getMinimalHittingSets() {
+		final List<Set<E>> result = new ArrayList<Set<E>>(
+				hittingSets_.size());
+		for (final SortedIntSet hittingSet : hittingSets_) {
+			result.add(new SortedIdSet<E>(hittingSet.getElements(),
+					elementIds_));
+		}
+		return result;
+	}
+
+}
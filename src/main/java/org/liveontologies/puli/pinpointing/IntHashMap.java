@@ -0,0 +1,189 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code int} keys to non-{@code null} values based on open
+ * addressing with linear probing. In contrast to {@link java.util.HashMap},
+ * keys are not boxed and no objects are created for map entries.
+ *
+ * @param <V>
+ *            the type of values stored in this map
+ */
+class IntHashMap<V> {
+
+	private final static int INIT_CAPACITY_ = 16;
+
+	private int[] keys_;
+
+	/**
+	 * the value for the key at the same position or {@code null} if the
+	 * position is free
+	 */
+	private Object[] values_;
+
+	private int size_ = 0;
+
+	IntHashMap() {
+		this(INIT_CAPACITY_);
+	}
+
+	IntHashMap(int expectedSize) {
+		int capacity = INIT_CAPACITY_;
+		while (capacity < expectedSize << 1) {
+			capacity <<= 1;
+		}
+		keys_ = new int[capacity];
+		values_ = new Object[capacity];
+	}
+
+	private static int getIndex(int key, int mask) {
+		int hash = key * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private int find(int key) {
+		int mask = keys_.length - 1;
+		int pos = getIndex(key, mask);
+		for (;;) {
+			if (values_[pos] == null || keys_[pos] == key) {
+				return pos;
+			}
+			pos = (pos + 1) & mask;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(int key) {
+		return (V) values_[find(key)];
+	}
+
+	/**
+	 * Associates the key with the given value
+	 * 
+	 * @param key
+	 * @param value
+	 *            must not be {@code null}
+	 * @return the value previously associated with the key or {@code null} if
+	 *         there was no such a value
+	 */
+	@SuppressWarnings("unchecked")
+	V put(int key, V value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		int pos = find(key);
+		Object previous = values_[pos];
+		keys_[pos] = key;
+		values_[pos] = value;
+		if (previous == null && ++size_ > keys_.length >>> 1) {
+			resize(keys_.length << 1);
+		}
+		return (V) previous;
+	}
+
+	/**
+	 * Removes the value associated with the given key
+	 * 
+	 * @param key
+	 * @return the removed value or {@code null} if there was no value
+	 *         associated with the key
+	 */
+	@SuppressWarnings("unchecked")
+	V remove(int key) {
+		int pos = find(key);
+		Object previous = values_[pos];
+		if (previous == null) {
+			return null;
+		}
+		// else
+		size_--;
+		// shift the following entries to keep probing sequences intact
+		int mask = keys_.length - 1;
+		int free = pos;
+		for (;;) {
+			values_[free] = null;
+			pos = free;
+			for (;;) {
+				pos = (pos + 1) & mask;
+				if (values_[pos] == null) {
+					return (V) previous;
+				}
+				int home = getIndex(keys_[pos], mask);
+				// move the entry if its home position is not within the
+				// cyclic interval (free, pos]
+				if (free <= pos ? (home <= free || home > pos)
+						: (home <= free && home > pos)) {
+					break;
+				}
+			}
+			keys_[free] = keys_[pos];
+			values_[free] = values_[pos];
+			free = pos;
+		}
+	}
+
+	int size() {
+		return size_;
+	}
+
+	boolean isEmpty() {
+		return size_ == 0;
+	}
+
+	void clear() {
+		Arrays.fill(values_, null);
+		size_ = 0;
+	}
+
+	/**
+	 * @return a new array containing the keys of this map in no particular
+	 *         order
+	 */
+	int[] getKeys() {
+		int[] result = new int[size_];
+		int pos = 0;
+		for (int i = 0; i < keys_.length; i++) {
+			if (values_[i] != null) {
+				result[pos++] = keys_[i];
+			}
+		}
+		return result;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys_;
+		Object[] oldValues = values_;
+		keys_ = new int[capacity];
+		values_ = new Object[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != null) {
+				int pos = find(oldKeys[i]);
+				keys_[pos] = oldKeys[i];
+				values_[pos] = oldValues[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A multimap from {@code int} keys to lists of values backed by an
+ * {@link IntHashMap}
+ *
+ * @param <V>
+ *            the type of values stored in this multimap
+ */
+class IntListMultimap<V> {
+
+	private final IntHashMap<List<V>> lists_ = new IntHashMap<List<V>>();
+
+	/**
+	 * @param key
+	 * @return the values associated with the given key; the result is backed
+	 *         by this multimap and should not be modified
+	 */
+	List<V> get(int key) {
+		List<V> result = lists_.get(key);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		// else
+		return result;
+	}
+
+	void put(int key, V value) {
+		List<V> values = lists_.get(key);
+		if (values == null) {
+			values = new ArrayList<V>(4);
+			lists_.put(key, values);
+		}
+		values.add(value);
+	}
+
+	/**
+	 * Removes all values associated with the given key
+	 * 
+	 * @param key
+	 * @return the removed values
+	 */
+	List<V> removeAll(int key) {
+		List<V> result = lists_.remove(key);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		// else
+		return result;
+	}
+
+	void clear() {
+		lists_.clear();
+	}
+
+	/**
+	 * @return a new array containing the keys with which some values are
+	 *         associated, in no particular order
+	 */
+	int[] getKeys() {
+		return lists_.getKeys();
+	}
+
+}
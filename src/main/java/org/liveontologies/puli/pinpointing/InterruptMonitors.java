@@ -0,0 +1,233 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Built-in {@link InterruptMonitor}s that truncate enumerations that take too
+ * much time or memory. The computations check their monitor once for every
+ * inference or job they process.
+ */
+public class InterruptMonitors {
+
+	private InterruptMonitors() {
+		// Forbid instantiation.
+	}
+
+	/**
+	 * @param timeout
+	 * @param unit
+	 * @return {@link TruncationMonitor} that interrupts the computation when
+	 *         the given time has elapsed since its creation or the last
+	 *         {@link TruncationMonitor#reset()}
+	 */
+	public static TruncationMonitor deadline(long timeout, TimeUnit unit) {
+		Preconditions.checkArgument(timeout >= 0,
+				"The timeout cannot be negative: %s", timeout);
+		return new Deadline(unit.toNanos(timeout));
+	}
+
+	/**
+	 * @param maxSteps
+	 * @return {@link TruncationMonitor} that interrupts the computation after
+	 *         the given number of inferences or jobs were processed since its
+	 *         creation or the last {@link TruncationMonitor#reset()}
+	 */
+	public static TruncationMonitor budget(long maxSteps) {
+		Preconditions.checkArgument(maxSteps >= 0,
+				"The budget cannot be negative: %s", maxSteps);
+		return new Budget(maxSteps);
+	}
+
+	/**
+	 * @param maxUsage
+	 *            the fraction of the maximal heap size, between {@code 0} and
+	 *            {@code 1}
+	 * @return {@link TruncationMonitor} that interrupts the computation when
+	 *         the used heap memory exceeds the given fraction of the maximal
+	 *         heap size; once the computation was interrupted, it remains
+	 *         interrupted until {@link TruncationMonitor#reset()}
+	 */
+	public static TruncationMonitor heapThreshold(double maxUsage) {
+		Preconditions.checkArgument(maxUsage > 0 && maxUsage <= 1,
+				"The heap usage should be between 0 and 1: %s", maxUsage);
+		return new HeapThreshold(maxUsage);
+	}
+
+	/**
+	 * @param monitors
+	 * @return {@link TruncationMonitor} that interrupts the computation when
+	 *         one of the given monitors interrupts it; the status is taken
+	 *         from the first such monitor
+	 */
+	public static TruncationMonitor anyOf(InterruptMonitor... monitors) {
+		for (InterruptMonitor monitor : monitors) {
+			Preconditions.checkNotNull(monitor);
+		}
+		return new AnyOf(monitors.clone());
+	}
+
+	private static class Deadline implements TruncationMonitor {
+
+		private final long timeoutNanos_;
+
+		private volatile long startNanos_;
+
+		Deadline(long timeoutNanos) {
+			this.timeoutNanos_ = timeoutNanos;
+			this.startNanos_ = System.nanoTime();
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			return System.nanoTime() - startNanos_ >= timeoutNanos_;
+		}
+
+		@Override
+		public EnumerationStatus getInterruptionStatus() {
+			return isInterrupted() ? EnumerationStatus.TRUNCATED_BY_TIME
+					: null;
+		}
+
+		@Override
+		public void reset() {
+			startNanos_ = System.nanoTime();
+		}
+
+	}
+
+	private static class Budget implements TruncationMonitor {
+
+		private final long maxSteps_;
+
+		/**
+		 * the number of times {@link #isInterrupted()} was called
+		 */
+		private final AtomicLong steps_ = new AtomicLong();
+
+		Budget(long maxSteps) {
+			this.maxSteps_ = maxSteps;
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			return steps_.incrementAndGet() > maxSteps_;
+		}
+
+		@Override
+		public EnumerationStatus getInterruptionStatus() {
+			return steps_.get() > maxSteps_
+					? EnumerationStatus.TRUNCATED_BY_BUDGET
+					: null;
+		}
+
+		@Override
+		public void reset() {
+			steps_.set(0);
+		}
+
+	}
+
+	private static class HeapThreshold implements TruncationMonitor {
+
+		private final long maxUsedBytes_;
+
+		private volatile boolean exceeded_ = false;
+
+		HeapThreshold(double maxUsage) {
+			this.maxUsedBytes_ = (long) (Runtime.getRuntime().maxMemory()
+					* maxUsage);
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			if (exceeded_) {
+				return true;
+			}
+			// else
+			Runtime runtime = Runtime.getRuntime();
+			if (runtime.totalMemory() - runtime.freeMemory() > maxUsedBytes_) {
+				exceeded_ = true;
+			}
+			return exceeded_;
+		}
+
+		@Override
+		public EnumerationStatus getInterruptionStatus() {
+			return exceeded_ ? EnumerationStatus.TRUNCATED_BY_MEMORY : null;
+		}
+
+		@Override
+		public void reset() {
+			exceeded_ = false;
+		}
+
+	}
+
+	private static class AnyOf implements TruncationMonitor {
+
+		private final InterruptMonitor[] monitors_;
+
+		AnyOf(InterruptMonitor[] monitors) {
+			this.monitors_ = monitors;
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			for (InterruptMonitor monitor : monitors_) {
+				if (monitor.isInterrupted()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public EnumerationStatus getInterruptionStatus() {
+			for (InterruptMonitor monitor : monitors_) {
+				if (monitor instanceof TruncationMonitor) {
+					EnumerationStatus status = ((TruncationMonitor) monitor)
+							.getInterruptionStatus();
+					if (status != null) {
+						return status;
+					}
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void reset() {
+			for (InterruptMonitor monitor : monitors_) {
+				if (monitor instanceof TruncationMonitor) {
+					((TruncationMonitor) monitor).reset();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,467 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Enumerates minimal hitting sets of collections of sets using the MMCS
+ * algorithm:
+ * <p>
+ * Keisuke Murakami, Takeaki Uno: Efficient algorithms for dualizing
+ * large-scale hypergraphs. Discrete Applied Mathematics 170: 83-94 (2014)
+ * <p>
+ * The elements of the input sets are assigned ids, and the input sets
+ * containing every element, the sets that are not yet hit, and the sets
+ * critical for the elements of the current hitting set, i.e., hit by only
+ * this element, are represented by bit sets over the positions of the input
+ * sets. The hitting sets are found in no particular order, so all of them are
+ * computed before they are reported in the order of their priorities.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <E>
+ *            the type of elements of the sets
+ */
+public class MinimalHittingSetComputation<E> implements
+		MinimalSubsetEnumerator.Factory<Collection<? extends Set<? extends E>>, E> {
+
+	private final InterruptMonitor monitor_;
+
+	// Statistics
+	private int visitedNodesCount_ = 0;
+
+	public MinimalHittingSetComputation(final InterruptMonitor monitor) {
+		Preconditions.checkNotNull(monitor);
+		this.monitor_ = monitor;
+	}
+
+	@Override
+	public BoundedMinimalSubsetEnumerator<E> newEnumerator(
+			final Collection<? extends Set<? extends E>> query) {
+		return new Enumerator(query);
+	}
+
+	/**
+	 * @param sets
+	 * @return all minimal hitting sets of the given sets
+	 */
+	public static <E> Collection<? extends Set<? extends E>> compute(
+			final Collection<? extends Set<? extends E>> sets) {
+		final Collection<Set<? extends E>> result = new ArrayList<Set<? extends E>>();
+		new MinimalHittingSetComputation<E>(InterruptMonitor.DUMMY)
+				.newEnumerator(sets)
+				.enumerate(new MinimalSubsetCollector<E>(result));
+		return result;
+	}
+
+	@Stat
+	public int nVisitedNodes() {
+		return visitedNodesCount_;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		visitedNodesCount_ = 0;
+	}
+
+	/**
+	 * @param bits
+	 * @param index
+	 * @return {@code true} if the bit with the given index is set
+	 */
+	private static boolean get(final long[] bits, final int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void set(final long[] bits, final int index) {
+		bits[index >>> 6] |= 1L << index;
+	}
+
+	private static void clear(final long[] bits, final int index) {
+		bits[index >>> 6] &= ~(1L << index);
+	}
+
+	private static boolean isEmpty(final long[] bits) {
+		for (final long word : bits) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param first
+	 * @param second
+	 * @return the number of bits set in both arrays
+	 */
+	private static int countCommon(final long[] first, final long[] second) {
+		int result = 0;
+		for (int i = 0; i < first.length; i++) {
+			result += Long.bitCount(first[i] & second[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * @param bits
+	 * @param from
+	 * @return the index of the first bit set starting from the given index
+	 *         or {@code -1} if there is no such bit
+	 */
+	private static int nextSetBit(final long[] bits, final int from) {
+		int pos = from >>> 6;
+		if (pos >= bits.length) {
+			return -1;
+		}
+		// else
+		long word = bits[pos] & (-1L << from);
+		for (;;) {
+			if (word != 0) {
+				return (pos << 6) + Long.numberOfTrailingZeros(word);
+			}
+			// else
+			if (++pos == bits.length) {
+				return -1;
+			}
+			// else
+			word = bits[pos];
+		}
+	}
+
+	private class Enumerator extends AbstractMinimalSubsetEnumerator<E> {
+
+		private final Collection<? extends Set<? extends E>> originalSets_;
+
+		Enumerator(final Collection<? extends Set<? extends E>> originalSets) {
+			this.originalSets_ = originalSets;
+		}
+
+		@Override
+		public void enumerate(final Listener<E> listener,
+				final PriorityComparator<? super Set<E>, ?> priorityComparator) {
+			Preconditions.checkNotNull(priorityComparator);
+			enumerate(listener, priorityComparator, null, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public <P> void enumerate(final Listener<E> listener,
+				final PriorityComparator<? super Set<E>, P> priorityComparator,
+				final P bound, final int limit) {
+			Preconditions.checkNotNull(listener);
+			Preconditions.checkNotNull(priorityComparator);
+			Preconditions.checkArgument(limit > 0,
+					"The limit must be positive: %s", limit);
+			final Search<P> search = new Search<P>(originalSets_,
+					priorityComparator, bound);
+			search.run();
+			final List<Set<E>> found = search.found_;
+			final List<P> priorities = new ArrayList<P>(found.size());
+			for (final Set<E> set : found) {
+				priorities.add(priorityComparator.getPriority(set));
+			}
+			final Integer[] order = new Integer[found.size()];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+
+				@Override
+				public int compare(final Integer first, final Integer second) {
+					return priorityComparator.compare(priorities.get(first),
+							priorities.get(second));
+				}
+
+			});
+			int count = 0;
+			for (final int i : order) {
+				if (count == limit) {
+					break;
+				}
+				// else
+				listener.newMinimalSubset(found.get(i));
+				count++;
+			}
+			final EnumerationStatus status;
+			if (search.interrupted_) {
+				status = getInterruptionStatus();
+			} else if (count < found.size()) {
+				status = EnumerationStatus.LIMIT_REACHED;
+			} else {
+				status = EnumerationStatus.COMPLETE;
+			}
+			MinimalSubsetsFromProofs.notifyFinished(listener,
+					new EnumerationResult(status, count, 0, 0));
+		}
+
+	}
+
+	private EnumerationStatus getInterruptionStatus() {
+		if (monitor_ instanceof TruncationMonitor) {
+			final EnumerationStatus status = ((TruncationMonitor) monitor_)
+					.getInterruptionStatus();
+			if (status != null) {
+				return status;
+			}
+		}
+		// else
+		return EnumerationStatus.INTERRUPTED;
+	}
+
+	/**
+	 * The state of the MMCS search for the minimal hitting sets of the given
+	 * sets
+	 *
+	 * @param <P>
+	 *            the type of priorities of the hitting sets
+	 */
+	private class Search<P> {
+
+		private final PriorityComparator<? super Set<E>, P> priorityComparator_;
+
+		/**
+		 * the maximal priority of the hitting sets to find or {@code null}
+		 */
+		private final P bound_;
+
+		private final IdMap<E> elementIds_ = HashIdMap.create();
+
+		/**
+		 * for every element id, the positions of the input sets that contain
+		 * the element
+		 */
+		private final List<long[]> occurrences_ = new ArrayList<long[]>();
+
+		/**
+		 * for every position of an input set, the ids of its elements
+		 */
+		private final List<long[]> sets_ = new ArrayList<long[]>();
+
+		/**
+		 * the number of words in the bit sets over the positions of the input
+		 * sets
+		 */
+		private final int setWords_;
+
+		/**
+		 * the ids of elements in the current hitting set
+		 */
+		private final int[] hitting_;
+
+		private int hittingSize_ = 0;
+
+		/**
+		 * for the elements of the current hitting set, the input sets that
+		 * contain only this element of the hitting set
+		 */
+		private final long[][] critical_;
+
+		private final List<Set<E>> found_ = new ArrayList<Set<E>>();
+
+		private boolean interrupted_ = false;
+
+		/**
+		 * {@code true} if some input set is empty, so there are no hitting
+		 * sets
+		 */
+		private boolean hasEmpty_ = false;
+
+		Search(final Collection<? extends Set<? extends E>> originalSets,
+				final PriorityComparator<? super Set<E>, P> priorityComparator,
+				final P bound) {
+			this.priorityComparator_ = priorityComparator;
+			this.bound_ = bound;
+			final int setCount = originalSets.size();
+			this.setWords_ = (setCount + 63) >>> 6;
+			final List<int[]> setIds = new ArrayList<int[]>(setCount);
+			for (final Set<? extends E> set : originalSets) {
+				if (set.isEmpty()) {
+					hasEmpty_ = true;
+				}
+				final int[] ids = new int[set.size()];
+				int pos = 0;
+				for (final E element : set) {
+					final int id = elementIds_.getId(element);
+					if (id == occurrences_.size()) {
+						occurrences_.add(new long[setWords_]);
+					}
+					ids[pos++] = id;
+				}
+				setIds.add(ids);
+			}
+			final int elementWords = (occurrences_.size() + 63) >>> 6;
+			for (int setPos = 0; setPos < setCount; setPos++) {
+				final long[] elements = new long[elementWords];
+				for (final int id : setIds.get(setPos)) {
+					set(elements, id);
+					set(occurrences_.get(id), setPos);
+				}
+				sets_.add(elements);
+			}
+			this.hitting_ = new int[occurrences_.size()];
+			this.critical_ = new long[occurrences_.size()][];
+		}
+
+		void run() {
+			if (hasEmpty_) {
+				return;
+			}
+			// else
+			final long[] uncovered = new long[setWords_];
+			for (int setPos = 0; setPos < sets_.size(); setPos++) {
+				set(uncovered, setPos);
+			}
+			final long[] candidates = new long[(occurrences_.size() + 63) >>> 6];
+			for (int id = 0; id < occurrences_.size(); id++) {
+				set(candidates, id);
+			}
+			search(uncovered, candidates);
+		}
+
+		/**
+		 * Extends the current hitting set in all possible ways by the
+		 * candidate elements
+		 * 
+		 * @param uncovered
+		 *            the positions of the input sets not hit by the current
+		 *            hitting set
+		 * @param candidates
+		 *            the ids of elements that can be added to the current
+		 *            hitting set; restored when the method returns
+		 */
+		private void search(final long[] uncovered, final long[] candidates) {
+			visitedNodesCount_++;
+			if (monitor_.isInterrupted()) {
+				interrupted_ = true;
+				return;
+			}
+			// else
+			int chosen = -1;
+			int chosenCount = Integer.MAX_VALUE;
+			for (int setPos = nextSetBit(uncovered,
+					0); setPos >= 0; setPos = nextSetBit(uncovered,
+							setPos + 1)) {
+				final int count = countCommon(sets_.get(setPos), candidates);
+				if (count < chosenCount) {
+					chosen = setPos;
+					chosenCount = count;
+					if (count == 0) {
+						break;
+					}
+				}
+			}
+			if (chosen < 0) {
+				// all sets are hit
+				report();
+				return;
+			}
+			// else
+			final long[] chosenSet = sets_.get(chosen);
+			final int[] toAdd = new int[chosenCount];
+			int pos = 0;
+			for (int id = nextSetBit(chosenSet,
+					0); id >= 0; id = nextSetBit(chosenSet, id + 1)) {
+				if (get(candidates, id)) {
+					toAdd[pos++] = id;
+					clear(candidates, id);
+				}
+			}
+			final long[] newUncovered = new long[setWords_];
+			final long[][] savedCritical = new long[hittingSize_][];
+			for (final int id : toAdd) {
+				if (interrupted_) {
+					break;
+				}
+				// else
+				final long[] occurrences = occurrences_.get(id);
+				// the sets hit only by the new element
+				final long[] newCritical = new long[setWords_];
+				for (int i = 0; i < setWords_; i++) {
+					newCritical[i] = uncovered[i] & occurrences[i];
+					newUncovered[i] = uncovered[i] & ~occurrences[i];
+				}
+				boolean isMinimal = true;
+				for (int k = 0; k < hittingSize_; k++) {
+					final long[] critical = critical_[k];
+					savedCritical[k] = critical;
+					final long[] updated = new long[setWords_];
+					for (int i = 0; i < setWords_; i++) {
+						updated[i] = critical[i] & ~occurrences[i];
+					}
+					critical_[k] = updated;
+					if (isEmpty(updated)) {
+						isMinimal = false;
+					}
+				}
+				if (isMinimal) {
+					hitting_[hittingSize_] = id;
+					critical_[hittingSize_] = newCritical;
+					hittingSize_++;
+					if (isWithinBound()) {
+						search(newUncovered, candidates);
+					}
+					hittingSize_--;
+				}
+				System.arraycopy(savedCritical, 0, critical_, 0, hittingSize_);
+				set(candidates, id);
+			}
+			// restore the candidates not yet returned due to interruption
+			for (final int id : toAdd) {
+				set(candidates, id);
+			}
+		}
+
+		private Set<E> getHittingSet() {
+			final int[] ids = Arrays.copyOf(hitting_, hittingSize_);
+			Arrays.sort(ids);
+			return new SortedIdSet<E>(ids, elementIds_);
+		}
+
+		/**
+		 * @return {@code true} if the priority of the current hitting set is
+		 *         not greater than the bound; otherwise the hitting sets
+		 *         obtained by extending it cannot be within the bound
+		 */
+		private boolean isWithinBound() {
+			return bound_ == null || priorityComparator_.compare(
+					priorityComparator_.getPriority(getHittingSet()),
+					bound_) <= 0;
+		}
+
+		private void report() {
+			found_.add(getHittingSet());
+		}
+
+	}
+
+}
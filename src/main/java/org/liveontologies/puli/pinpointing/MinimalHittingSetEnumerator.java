@@ -21,7 +21,6 @@
  */
 package org.liveontologies.puli.pinpointing;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -34,6 +33,15 @@ import org.liveontologies.puli.Proof;
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 
+/**
+ * Enumerates minimal hitting sets using a computation of repairs: every set
+ * is the justification of an inference of the same conclusion, whose repairs
+ * are the minimal hitting sets. {@link MinimalHittingSetComputation} computes
+ * minimal hitting sets directly and is usually much faster.
+ * 
+ * @param <E>
+ *            the type of elements of the sets
+ */
 public class MinimalHittingSetEnumerator<E> implements
 		MinimalSubsetEnumerator.Factory<Collection<? extends Set<? extends E>>, E> {
 
@@ -51,7 +59,7 @@ public class MinimalHittingSetEnumerator<E> implements
 	}
 
 	@Override
-	public MinimalSubsetEnumerator<E> newEnumerator(
+	public BoundedMinimalSubsetEnumerator<E> newEnumerator(
 			final Collection<? extends Set<? extends E>> query) {
 		return new Enumerator(query);
 	}
@@ -69,15 +77,31 @@ public class MinimalHittingSetEnumerator<E> implements
 		public void enumerate(final Listener<E> listener,
 				final PriorityComparator<? super Set<E>, ?> priorityComparator) {
 
+			newRepairEnumerator().enumerate(listener, priorityComparator);
+		}
+
+		@Override
+		public <P> void enumerate(final Listener<E> listener,
+				final PriorityComparator<? super Set<E>, P> priorityComparator,
+				final P bound, final int limit) {
+			newRepairEnumerator().enumerate(listener, priorityComparator,
+					bound, limit);
+		}
+
+		@Override
+		public MinimalSubsetCursor<E> newCursor(
+				final PriorityComparator<? super Set<E>, ?> priorityComparator) {
+			return newRepairEnumerator().newCursor(priorityComparator);
+		}
+
+		private BoundedMinimalSubsetEnumerator<E> newRepairEnumerator() {
 			final Proof<SetWrapperInference> proof = new SetWrapperProof(
 					originalSets_);
 
 			final MinimalSubsetEnumerator.Factory<Object, E> computation = repairComputationFactory_
 					.create(proof, setWrapperJustifier_, monitor_);
-			final MinimalSubsetEnumerator<E> enumerator = computation
-					.newEnumerator(CONCLUSION_);
-
-			enumerator.enumerate(listener, priorityComparator);
+			return MinimalSubsetEnumerators
+					.bounded(computation.newEnumerator(CONCLUSION_));
 		}
 
 	}
@@ -147,19 +171,14 @@ public class MinimalHittingSetEnumerator<E> implements
 
 	};
 
+	/**
+	 * @param sets
+	 * @return all minimal hitting sets of the given sets computed using
+	 *         {@link MinimalHittingSetComputation}
+	 */
 	public static <E> Collection<? extends Set<? extends E>> compute(
 			final Collection<? extends Set<? extends E>> sets) {
-
-		final Collection<Set<? extends E>> result = new ArrayList<Set<? extends E>>();
-
-		final MinimalHittingSetEnumerator<E> computation = new MinimalHittingSetEnumerator<E>(
-				TopDownRepairComputation.<Object, MinimalHittingSetEnumerator<E>
-						.SetWrapperInference, E> getFactory(),
-				InterruptMonitor.DUMMY);
-		computation.newEnumerator(sets)
-				.enumerate(new MinimalSubsetCollector<E>(result));
-
-		return result;
+		return MinimalHittingSetComputation.compute(sets);
 	}
 
 }
@@ -0,0 +1,47 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * An {@link Iterator} over subset-minimal sets that computes the sets only
+ * when they are requested. A cursor should be closed when the remaining sets
+ * are not needed anymore, so that the resources used for the computation are
+ * released.
+ * 
+ * @param <E>
+ *            the type of elements of the enumerated sets
+ * 
+ * @see BoundedMinimalSubsetEnumerator#newCursor(PriorityComparator)
+ */
+public interface MinimalSubsetCursor<E> extends Iterator<Set<E>>, AutoCloseable {
+
+	/**
+	 * Stops the enumeration and releases the resources used by it; the
+	 * remaining sets are not returned by this cursor
+	 */
+	@Override
+	void close();
+
+}
@@ -91,6 +91,27 @@ public interface MinimalSubsetEnumerator<E> {
 
 	}
 
+	/**
+	 * A {@link Listener} that is also notified when the enumeration has
+	 * finished, e.g., to find out whether the enumeration was truncated by the
+	 * {@link InterruptMonitor} of the computation. Enumerators that do not
+	 * support this notification treat it as a usual {@link Listener}.
+	 *
+	 * @param <E>
+	 *            the type of elements of the enumerated sets
+	 */
+	public static interface ResultListener<E> extends Listener<E> {
+
+		/**
+		 * Called once after the last set of the enumeration was reported
+		 * 
+		 * @param result
+		 *            describes how the enumeration has finished
+		 */
+		void enumerationFinished(EnumerationResult result);
+
+	}
+
 	/**
 	 * Factory that creates {@link MinimalSubsetEnumerator}s for the provided
 	 * query.
@@ -223,4 +223,34 @@ public class MinimalSubsetEnumerators {
 				listener);
 	}
 
+	/**
+	 * @param enumerator
+	 * @return the provided {@link MinimalSubsetEnumerator} if it is a
+	 *         {@link BoundedMinimalSubsetEnumerator}, or otherwise a
+	 *         {@link BoundedMinimalSubsetEnumerator} that delegates the
+	 *         enumeration to the provided one and implements the remaining
+	 *         methods as in {@link AbstractMinimalSubsetEnumerator}
+	 */
+	public static <E> BoundedMinimalSubsetEnumerator<E> bounded(
+			final MinimalSubsetEnumerator<E> enumerator) {
+		if (enumerator instanceof BoundedMinimalSubsetEnumerator) {
+			return (BoundedMinimalSubsetEnumerator<E>) enumerator;
+		}
+		// else
+		return new AbstractMinimalSubsetEnumerator<E>() {
+
+			@Override
+			public void enumerate(final Listener<E> listener) {
+				enumerator.enumerate(listener);
+			}
+
+			@Override
+			public void enumerate(final Listener<E> listener,
+					final PriorityComparator<? super Set<E>, ?> priorityComparator) {
+				enumerator.enumerate(listener, priorityComparator);
+			}
+
+		};
+	}
+
 }
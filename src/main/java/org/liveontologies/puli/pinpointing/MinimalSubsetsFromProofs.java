@@ -88,6 +88,48 @@ public abstract class MinimalSubsetsFromProofs<C, I extends Inference<? extends
 		return monitor_.isInterrupted();
 	}
 
+	/**
+	 * @return the status of the enumeration interrupted by the monitor of
+	 *         this computation
+	 * @see TruncationMonitor
+	 */
+	protected EnumerationStatus getInterruptionStatus() {
+		return getInterruptionStatus(monitor_);
+	}
+
+	/**
+	 * @param monitor
+	 * @return the status of the enumeration interrupted by the given monitor
+	 * @see TruncationMonitor
+	 */
+	static EnumerationStatus getInterruptionStatus(InterruptMonitor monitor) {
+		if (monitor instanceof TruncationMonitor) {
+			EnumerationStatus status = ((TruncationMonitor) monitor)
+					.getInterruptionStatus();
+			if (status != null) {
+				return status;
+			}
+		}
+		// else
+		return EnumerationStatus.INTERRUPTED;
+	}
+
+	/**
+	 * Notifies the given listener about the result of the enumeration if it
+	 * is a {@link MinimalSubsetEnumerator.ResultListener}
+	 * 
+	 * @param listener
+	 * @param result
+	 */
+	protected static <E> void notifyFinished(
+			final MinimalSubsetEnumerator.Listener<E> listener,
+			final EnumerationResult result) {
+		if (listener instanceof MinimalSubsetEnumerator.ResultListener<?>) {
+			((MinimalSubsetEnumerator.ResultListener<E>) listener)
+					.enumerationFinished(result);
+		}
+	}
+
 	/**
 	 * Factory for creating enumerator factories.
 	 * 
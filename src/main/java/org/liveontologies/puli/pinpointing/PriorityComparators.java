@@ -34,14 +34,7 @@ public class PriorityComparators {
 	 *         their cardinality.
 	 */
 	public static <E> PriorityComparator<Collection<E>, Integer> cardinality() {
-		return new NaturalPriorityComparator<Collection<E>, Integer>() {
-
-			@Override
-			public Integer getPriority(final Collection<E> original) {
-				return original.size();
-			}
-
-		};
+		return new Cardinality<E>();
 	}
 
 	/**
@@ -59,4 +52,19 @@ public class PriorityComparators {
 		};
 	}
 
+	/**
+	 * The {@link PriorityComparator} returned by {@link #cardinality()};
+	 * computations can recognize it to compute the priorities more
+	 * efficiently
+	 */
+	static class Cardinality<E>
+			extends NaturalPriorityComparator<Collection<E>, Integer> {
+
+		@Override
+		public Integer getPriority(final Collection<E> original) {
+			return original.size();
+		}
+
+	}
+
 }
@@ -21,24 +21,43 @@
  */
 package org.liveontologies.puli.pinpointing;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.AbstractSet;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 
 import org.liveontologies.puli.Delegator;
+import org.liveontologies.puli.DynamicProof;
 import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.collections.BloomFilteredCollection;
 import org.liveontologies.puli.collections.BloomTrieCollection2;
 import org.liveontologies.puli.collections.Collection2;
 import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator.Listener;
@@ -48,10 +67,7 @@ import org.liveontologies.puli.statistics.Stat;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 
 /**
@@ -83,52 +99,173 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 
 	public enum SelectionType {
 		TOP_DOWN, BOTTOM_UP, THRESHOLD
-		// TODO: switch to class hierarchy to support threshold with parameter
 	}
 
-	private final SelectionType selectionType_;
+	/**
+	 * @param type
+	 * @return the {@link Selection} corresponding to the given
+	 *         {@link SelectionType}
+	 */
+	public static Selection getSelection(SelectionType type) {
+		switch (type) {
+		case TOP_DOWN:
+			return Selection.topDown();
+		case BOTTOM_UP:
+			return Selection.bottomUp();
+		case THRESHOLD:
+			return Selection.threshold(ThresholdSelection.DEFAULT_THRESHOLD_);
+		default:
+			throw new RuntimeException("Unsupported selection type: " + type);
+		}
+	}
+
+	/**
+	 * the version of the format used by {@link #saveState(OutputStream)}
+	 */
+	private static final int STATE_FORMAT_VERSION_ = 1;
+
+	private final Selection selection_;
+
+	/**
+	 * the maximal number of unprocessed inferences kept in memory; the
+	 * remaining unprocessed inferences are stored on disk
+	 */
+	private final int maxInMemoryInferences_;
+
+	/**
+	 * the directory for storing unprocessed inferences or {@code null} if the
+	 * default temporary-file directory should be used
+	 */
+	private final File spillDirectory_;
 
 	/**
 	 * Conclusions for which computation of justifications has been initialized
 	 */
 	private final Set<C> initialized_ = new HashSet<C>();
 
-	private final IdMap<C> conclusionIds_ = HashIdMap.create();
+	private final HashIdMap<C> conclusionIds_ = new HashIdMap<C>();
 
-	private final IdMap<A> axiomIds_ = HashIdMap.create();
+	private final HashIdMap<A> axiomIds_ = new HashIdMap<A>();
 
 	/**
 	 * a structure used to check inferences for minimality; an inference is
 	 * minimal if there was no other inference with the same conclusion, subset
 	 * of premises and subset of justirication produced
 	 */
-	private final Map<Integer, Collection2<DerivedInference>> minimalInferencesByConclusionIds_ = new HashMap<Integer, Collection2<DerivedInference>>();
+	private final IntHashMap<Collection2<DerivedInference>> minimalInferencesByConclusionIds_ = new IntHashMap<Collection2<DerivedInference>>();
 
-	private final ListMultimap<Integer, DerivedInference>
+	private final IntListMultimap<DerivedInference>
 	// inferences whose conclusions are selected, indexed by this conclusion
-	inferencesBySelectedConclusionIds_ = ArrayListMultimap.create(),
+	inferencesBySelectedConclusionIds_ = new IntListMultimap<DerivedInference>(),
 			// inferences whose premise is selected, indexed by this premise
-			inferencesBySelectedPremiseIds_ = ArrayListMultimap.create();
+			inferencesBySelectedPremiseIds_ = new IntListMultimap<DerivedInference>();
 
 	/**
 	 * inferences that are not necessary for computing the justifications for
 	 * the current query; these are (possibly minimal) inferences whose
-	 * justification is a superset of a justification for the query
+	 * justification is a superset of a justification for the queries
 	 */
 	private Queue<DerivedInference> blockedInferences_ = new ArrayDeque<DerivedInference>();
 
+	/**
+	 * the inferences left unprocessed by the last enumeration whose queue
+	 * has spilled to disk, or {@code null} if there are none; unlike
+	 * {@link #blockedInferences_}, they are kept in the queue so that they are
+	 * not loaded into memory at once
+	 */
+	private JustificationProcessor<?>.PostponedInferences postponedInferences_ = null;
+
+	/**
+	 * the processor that has been started and not yet disposed, e.g., by a
+	 * cursor that is not closed, or {@code null} if there is none
+	 */
+	private JustificationProcessor<?> activeProcessor_ = null;
+
+	/**
+	 * the priority function of the last created processor or {@code null} if
+	 * there is none; a processor with a compatible function uses this one
+	 * instead, so that the priorities stored in the inferences remain valid
+	 */
+	private IdPriorityFunction<?> storedPriorities_ = null;
+
+	/**
+	 * the inferences of the {@link #initialized_} conclusions that were used
+	 * by the computation or {@code null} if the changes of the proof are not
+	 * monitored
+	 */
+	private Map<C, Set<I>> usedInferences_ = null;
+
+	/**
+	 * {@code true} if the inferences of the proof may have changed since they
+	 * were used by the computation
+	 */
+	private boolean proofChanged_ = false;
+
+	/**
+	 * registered with the proof if the changes of the proof are monitored
+	 */
+	private final DynamicProof.ChangeListener changeListener_ = new DynamicProof.ChangeListener() {
+
+		@Override
+		public void inferencesChanged() {
+			proofChanged_ = true;
+		}
+
+	};
+
+	/**
+	 * the numbers of inferences for conclusions, indexed by the ids of
+	 * conclusions, increased by one; the value 0 means that the number was not
+	 * yet computed
+	 */
+	private int[] inferenceCounts_ = SortedIdSet.NO_IDS_;
+
+	/**
+	 * the justifications reported for the queries by the enumerators created
+	 * using {@link #newIncrementalEnumerator(Object)}
+	 */
+	private final Map<C, Collection2<Set<Integer>>> reportedJustifications_ = new HashMap<C, Collection2<Set<Integer>>>();
+
+	/**
+	 * the number of enumerations started so far; used for finding queries
+	 * that were not enumerated recently
+	 */
+	private int generation_ = 0;
+
+	/**
+	 * the last {@link #generation_} in which justifications for the query
+	 * were enumerated
+	 */
+	private final Map<C, Integer> queryGenerations_ = new HashMap<C, Integer>();
+
+	/**
+	 * if positive, the computation is compacted after every so many
+	 * enumerations discarding the results for queries that were not
+	 * enumerated during these enumerations
+	 */
+	private int compactionAge_ = 0;
+
 	// Statistics
-	private int producedInferenceCount_ = 0, minimalInferenceCount_ = 0;
+	private int producedInferenceCount_ = 0, minimalInferenceCount_ = 0,
+			spilledInferenceCount_ = 0, discardedInferenceCount_ = 0,
+			boundedInferenceCount_ = 0;
 
 	private ResolutionJustificationComputation(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor, final SelectionType selectionType) {
+			final InterruptMonitor monitor, final Selection selection,
+			final int maxInMemoryInferences, final File spillDirectory) {
 		super(proof, justifier, monitor);
-		this.selectionType_ = selectionType;
+		Preconditions.checkArgument(maxInMemoryInferences > 1,
+				"The maximal number of inferences in memory must be at least 2: %s",
+				maxInMemoryInferences);
+		Preconditions.checkNotNull(selection);
+		this.selection_ = selection;
+		this.maxInMemoryInferences_ = maxInMemoryInferences;
+		this.spillDirectory_ = spillDirectory;
 	}
 
 	private Collection2<DerivedInference> getMinimalInferences(
-			Integer conclusionId) {
+			int conclusionId) {
 		Collection2<DerivedInference> result = minimalInferencesByConclusionIds_
 				.get(conclusionId);
 		if (result == null) {
@@ -139,8 +276,236 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 	}
 
 	@Override
-	public MinimalSubsetEnumerator<A> newEnumerator(C query) {
-		return new JustificationEnumerator(query);
+	public BoundedMinimalSubsetEnumerator<A> newEnumerator(C query) {
+		return new JustificationEnumerator(query, null);
+	}
+
+	/**
+	 * @param query
+	 * @return an enumerator that reports only the justifications for the
+	 *         given query that were not reported by the previous enumerators
+	 *         created using this method for the same query, e.g., the
+	 *         justifications that appeared after some inferences were added to
+	 *         the proof; if some inferences were removed from the proof, all
+	 *         justifications are reported again. If the listener is an
+	 *         {@link IncrementalListener}, it is also notified about the
+	 *         justifications reported before that are not minimal anymore
+	 *         because some of their proper subsets are reported.
+	 */
+	public MinimalSubsetEnumerator<A> newIncrementalEnumerator(C query) {
+		Collection2<Set<Integer>> reported = reportedJustifications_
+				.get(query);
+		if (reported == null) {
+			reported = new BloomTrieCollection2<Set<Integer>>();
+			reportedJustifications_.put(query, reported);
+		}
+		return new JustificationEnumerator(query, reported);
+	}
+
+	/**
+	 * Stops monitoring the changes of the proof if this computation was
+	 * created using
+	 * {@link Factory#createIncremental(DynamicProof, InferenceJustifier, InterruptMonitor, Selection)}
+	 */
+	public void dispose() {
+		if (usedInferences_ != null) {
+			((DynamicProof<?>) getProof()).removeListener(changeListener_);
+		}
+		disposePostponed();
+	}
+
+	/**
+	 * Deletes the temporary files used for the inferences left unprocessed by
+	 * the last enumeration
+	 */
+	private void disposePostponed() {
+		if (postponedInferences_ != null) {
+			postponedInferences_.dispose();
+			postponedInferences_ = null;
+		}
+	}
+
+	/**
+	 * Moves the inferences left unprocessed by the last enumeration to
+	 * {@link #blockedInferences_}
+	 */
+	private void restorePostponed() {
+		if (postponedInferences_ == null) {
+			return;
+		}
+		// else
+		try {
+			for (;;) {
+				DerivedInference inf = postponedInferences_.poll();
+				if (inf == null) {
+					break;
+				}
+				// else
+				blockedInferences_.add(inf);
+			}
+		} finally {
+			disposePostponed();
+		}
+	}
+
+	/**
+	 * Forgets all results of the computation; the ids of conclusions and
+	 * axioms are kept
+	 */
+	private void clearState() {
+		initialized_.clear();
+		inferenceCounts_ = SortedIdSet.NO_IDS_;
+		if (usedInferences_ != null) {
+			usedInferences_.clear();
+		}
+		minimalInferencesByConclusionIds_.clear();
+		inferencesBySelectedConclusionIds_.clear();
+		inferencesBySelectedPremiseIds_.clear();
+		blockedInferences_.clear();
+		disposePostponed();
+		storedPriorities_ = null;
+		for (Collection2<Set<Integer>> reported : reportedJustifications_
+				.values()) {
+			reported.clear();
+		}
+	}
+
+	/**
+	 * Discards the results of the computation that are not needed for
+	 * enumerating justifications for the given queries, i.e., the derived
+	 * inferences for conclusions that cannot be reached from these queries
+	 * using the inferences in the proof. The justifications for other queries
+	 * are computed from scratch when they are enumerated again; the
+	 * enumerators created by {@link #newIncrementalEnumerator(Object)} for
+	 * such queries report all justifications again. This method should not be
+	 * called while justifications are enumerated, e.g., using cursors that
+	 * are not closed.
+	 * 
+	 * @param activeQueries
+	 *            the queries for which the results should be kept
+	 */
+	public void compact(Collection<? extends C> activeQueries) {
+		// the conclusions reachable from the active queries
+		final Set<C> retained = new HashSet<C>();
+		final Queue<C> todo = new ArrayDeque<C>();
+		for (C query : activeQueries) {
+			if (initialized_.contains(query) && retained.add(query)) {
+				todo.add(query);
+			}
+		}
+		for (;;) {
+			C next = todo.poll();
+			if (next == null) {
+				break;
+			}
+			// else
+			Collection<? extends I> inferences = usedInferences_ == null
+					? getInferences(next)
+					: usedInferences_.get(next);
+			for (I inf : inferences) {
+				for (C premise : inf.getPremises()) {
+					if (initialized_.contains(premise)
+							&& retained.add(premise)) {
+						todo.add(premise);
+					}
+				}
+			}
+		}
+		final BitSet retainedIds = new BitSet();
+		for (C conclusion : retained) {
+			retainedIds.set(conclusionIds_.getId(conclusion));
+		}
+		initialized_.retainAll(retained);
+		if (usedInferences_ != null) {
+			usedInferences_.keySet().retainAll(retained);
+		}
+		reportedJustifications_.keySet().retainAll(retained);
+		queryGenerations_.keySet().retainAll(retained);
+		for (int conclusionId : minimalInferencesByConclusionIds_.getKeys()) {
+			if (!retainedIds.get(conclusionId)) {
+				discardedInferenceCount_ += minimalInferencesByConclusionIds_
+						.remove(conclusionId).size();
+			}
+		}
+		for (int conclusionId : inferencesBySelectedConclusionIds_
+				.getKeys()) {
+			if (!retainedIds.get(conclusionId)) {
+				inferencesBySelectedConclusionIds_.removeAll(conclusionId);
+			}
+		}
+		for (int premiseId : inferencesBySelectedPremiseIds_.getKeys()) {
+			List<DerivedInference> inferences = inferencesBySelectedPremiseIds_
+					.removeAll(premiseId);
+			for (DerivedInference inf : inferences) {
+				if (retainedIds.get(inf.conclusionId_)) {
+					inferencesBySelectedPremiseIds_.put(premiseId, inf);
+				}
+			}
+		}
+		restorePostponed();
+		Queue<DerivedInference> blocked = blockedInferences_;
+		blockedInferences_ = new ArrayDeque<DerivedInference>();
+		for (DerivedInference inf : blocked) {
+			if (retainedIds.get(inf.conclusionId_)) {
+				blockedInferences_.add(inf);
+			} else {
+				discardedInferenceCount_++;
+			}
+		}
+	}
+
+	/**
+	 * Discards the results of the computation that are not needed for the
+	 * queries for which justifications were enumerated during the given
+	 * number of last enumerations
+	 * 
+	 * @param maxAge
+	 *            the number of last enumerations whose queries are kept
+	 * @see #compact(Collection)
+	 */
+	public void compact(int maxAge) {
+		Preconditions.checkArgument(maxAge >= 0,
+				"The age cannot be negative: %s", maxAge);
+		final List<C> activeQueries = new ArrayList<C>();
+		for (Map.Entry<C, Integer> entry : queryGenerations_.entrySet()) {
+			if (generation_ - entry.getValue() < maxAge) {
+				activeQueries.add(entry.getKey());
+			}
+		}
+		compact(activeQueries);
+	}
+
+	/**
+	 * Enables or disables automatic compaction of this computation. If
+	 * enabled, {@link #compact(int)} is called with the given age after
+	 * every so many enumerations, so that the memory used by the computation
+	 * depends only on the recently enumerated queries.
+	 * 
+	 * @param maxAge
+	 *            the number of last enumerations whose queries are kept or
+	 *            {@code 0} if the computation should not be compacted
+	 *            automatically
+	 */
+	public void setAutoCompaction(int maxAge) {
+		Preconditions.checkArgument(maxAge >= 0,
+				"The age cannot be negative: %s", maxAge);
+		this.compactionAge_ = maxAge;
+	}
+
+	/**
+	 * Records that justifications for the given queries are enumerated in a
+	 * new generation and compacts the computation if it is time to do so
+	 * 
+	 * @param queries
+	 */
+	private void startGeneration(Collection<? extends C> queries) {
+		generation_++;
+		for (C query : queries) {
+			queryGenerations_.put(query, generation_);
+		}
+		if (compactionAge_ > 0 && generation_ % compactionAge_ == 0) {
+			compact(compactionAge_);
+		}
 	}
 
 	@Stat
@@ -153,10 +518,50 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 		return minimalInferenceCount_;
 	}
 
+	@Stat
+	public int nSpilledInferences() {
+		return spilledInferenceCount_;
+	}
+
+	@Stat
+	public int nDiscardedInferences() {
+		return discardedInferenceCount_;
+	}
+
+	/**
+	 * @return the number of inferences produced with priorities exceeding
+	 *         the bound of the enumeration; these inferences are not
+	 *         processed by this enumeration
+	 */
+	@Stat
+	public int nBoundedInferences() {
+		return boundedInferenceCount_;
+	}
+
+	/**
+	 * @return the number of derived inferences kept by this computation for
+	 *         the next enumerations
+	 */
+	@Stat
+	public int nRetainedInferences() {
+		int result = blockedInferences_.size();
+		if (postponedInferences_ != null) {
+			result += postponedInferences_.size();
+		}
+		for (int conclusionId : minimalInferencesByConclusionIds_.getKeys()) {
+			result += minimalInferencesByConclusionIds_.get(conclusionId)
+					.size();
+		}
+		return result;
+	}
+
 	@ResetStats
 	public void resetStats() {
+		discardedInferenceCount_ = 0;
 		producedInferenceCount_ = 0;
 		minimalInferenceCount_ = 0;
+		spilledInferenceCount_ = 0;
+		boundedInferenceCount_ = 0;
 	}
 
 	@NestedStats
@@ -164,14 +569,251 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 		return BloomTrieCollection2.class;
 	}
 
-	static int[] getIds(Collection<? extends Integer> set) {
-		return SortedIdSet.getIds(set);
-	}
-
 	Set<A> getJustification(int[] ids) {
 		return new SortedIdSet<A>(ids, axiomIds_);
 	}
 
+	/**
+	 * @param conclusionId
+	 * @return the number of inferences in the proof for the conclusion with
+	 *         the given id; the values are cached until the proof changes
+	 */
+	int getInferenceCount(int conclusionId) {
+		if (conclusionId >= inferenceCounts_.length) {
+			inferenceCounts_ = Arrays.copyOf(inferenceCounts_,
+					Math.max(conclusionId + 1, 2 * inferenceCounts_.length));
+		}
+		int result = inferenceCounts_[conclusionId];
+		if (result == 0) {
+			result = getInferences(conclusionIds_.getElement(conclusionId))
+					.size() + 1;
+			inferenceCounts_[conclusionId] = result;
+		}
+		return result - 1;
+	}
+
+	/**
+	 * Writes the state of this computation accumulated during the previous
+	 * enumerations of justifications, i.e., the conclusions for which the
+	 * computation was initialized and the inferences obtained by resolution,
+	 * to the given stream. The state can be read back using
+	 * {@link #loadState(InputStream)} by a new computation over the same
+	 * proof and justifier, which can then enumerate justifications without
+	 * repeating the resolution steps. The conclusions and axioms must be
+	 * {@link java.io.Serializable}. The inferences left unprocessed by the
+	 * last enumeration that were stored in temporary files are loaded into
+	 * memory. This method should not be called while justifications are
+	 * enumerated.
+	 * 
+	 * @param out
+	 *            the stream to which the state is written; it is flushed but
+	 *            not closed by this method
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void saveState(final OutputStream out) throws IOException {
+		restorePostponed();
+		final int[] initializedIds = new int[initialized_.size()];
+		int pos = 0;
+		for (C conclusion : initialized_) {
+			initializedIds[pos++] = conclusionIds_.getId(conclusion);
+		}
+		Arrays.sort(initializedIds);
+		// the stored inferences are written once and referenced by positions
+		final Map<DerivedInference, Integer> inferenceIds = new IdentityHashMap<DerivedInference, Integer>();
+		final List<DerivedInference> inferences = new ArrayList<DerivedInference>();
+		for (int conclusionId : minimalInferencesByConclusionIds_.getKeys()) {
+			collect(minimalInferencesByConclusionIds_.get(conclusionId),
+					inferenceIds, inferences);
+		}
+		for (int conclusionId : inferencesBySelectedConclusionIds_
+				.getKeys()) {
+			collect(inferencesBySelectedConclusionIds_.get(conclusionId),
+					inferenceIds, inferences);
+		}
+		for (int premiseId : inferencesBySelectedPremiseIds_.getKeys()) {
+			collect(inferencesBySelectedPremiseIds_.get(premiseId),
+					inferenceIds, inferences);
+		}
+		collect(blockedInferences_, inferenceIds, inferences);
+		final ObjectOutputStream output = new ObjectOutputStream(
+				new BufferedOutputStream(out));
+		output.writeInt(STATE_FORMAT_VERSION_);
+		writeElements(conclusionIds_, output);
+		writeElements(axiomIds_, output);
+		SortedIdSet.writeIds(initializedIds, output);
+		output.writeInt(inferences.size());
+		for (DerivedInference inf : inferences) {
+			output.writeInt(inf.conclusionId_);
+			output.writeBoolean(inf.isMinimal_);
+			SortedIdSet.writeIds(inf.premiseIds_, output);
+			SortedIdSet.writeIds(inf.justificationIds_, output);
+		}
+		final int[] conclusionIds = minimalInferencesByConclusionIds_
+				.getKeys();
+		output.writeInt(conclusionIds.length);
+		for (int conclusionId : conclusionIds) {
+			output.writeInt(conclusionId);
+			writeReferences(minimalInferencesByConclusionIds_.get(conclusionId),
+					inferenceIds, output);
+		}
+		writeIndex(inferencesBySelectedConclusionIds_, inferenceIds, output);
+		writeIndex(inferencesBySelectedPremiseIds_, inferenceIds, output);
+		writeReferences(blockedInferences_, inferenceIds, output);
+		output.flush();
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(OutputStream)}. This
+	 * method can be called only before any justifications are enumerated
+	 * using this computation. The state must have been saved by a computation
+	 * over the same proof and justifier; otherwise the enumerated
+	 * justifications may be incorrect. If an exception is thrown, this
+	 * computation should not be used anymore.
+	 * 
+	 * @param in
+	 *            the stream from which the state is read; it is not closed
+	 *            by this method
+	 * @throws IOException
+	 *             if an I/O error occurs or the stream does not contain a
+	 *             valid state
+	 * @throws IllegalStateException
+	 *             if justifications were already enumerated using this
+	 *             computation
+	 */
+	public void loadState(final InputStream in) throws IOException {
+		if (!initialized_.isEmpty() || conclusionIds_.size() > 0) {
+			throw new IllegalStateException(
+					"The state can be loaded only before enumeration of justifications!");
+		}
+		// else
+		final ObjectInputStream input = new ObjectInputStream(
+				new BufferedInputStream(in));
+		final int version = input.readInt();
+		if (version != STATE_FORMAT_VERSION_) {
+			throw new IOException("Unsupported state format: " + version);
+		}
+		// else
+		readElements(conclusionIds_, input);
+		readElements(axiomIds_, input);
+		for (int conclusionId : SortedIdSet.readIds(input)) {
+			final C conclusion = conclusionIds_.getElement(conclusionId);
+			initialized_.add(conclusion);
+			if (usedInferences_ != null) {
+				usedInferences_.put(conclusion,
+						new HashSet<I>(getInferences(conclusion)));
+			}
+		}
+		final int inferenceCount = input.readInt();
+		if (inferenceCount < 0) {
+			throw new IOException(
+					"Invalid number of inferences: " + inferenceCount);
+		}
+		// else
+		final DerivedInference[] inferences = new DerivedInference[inferenceCount];
+		for (int i = 0; i < inferences.length; i++) {
+			final int conclusionId = input.readInt();
+			final boolean isMinimal = input.readBoolean();
+			final DerivedInference inf = new DerivedInference(conclusionId,
+					SortedIdSet.readIds(input), SortedIdSet.readIds(input));
+			inf.isMinimal_ = isMinimal;
+			inferences[i] = inf;
+		}
+		for (int i = input.readInt(); i > 0; i--) {
+			final Collection<DerivedInference> minimalInferences = getMinimalInferences(
+					input.readInt());
+			for (int j = input.readInt(); j > 0; j--) {
+				minimalInferences.add(readReference(inferences, input));
+			}
+		}
+		readIndex(inferencesBySelectedConclusionIds_, inferences, input);
+		readIndex(inferencesBySelectedPremiseIds_, inferences, input);
+		for (int i = input.readInt(); i > 0; i--) {
+			blockedInferences_.add(readReference(inferences, input));
+		}
+	}
+
+	private static void collect(final Collection<DerivedInference> inferences,
+			final Map<DerivedInference, Integer> inferenceIds,
+			final List<DerivedInference> collected) {
+		for (DerivedInference inf : inferences) {
+			if (!inferenceIds.containsKey(inf)) {
+				inferenceIds.put(inf, collected.size());
+				collected.add(inf);
+			}
+		}
+	}
+
+	private static void writeElements(final HashIdMap<?> idMap,
+			final ObjectOutput out) throws IOException {
+		final int size = idMap.size();
+		out.writeInt(size);
+		for (int id = 0; id < size; id++) {
+			out.writeObject(idMap.getElement(id));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> void readElements(final IdMap<E> idMap,
+			final ObjectInput in) throws IOException {
+		for (int id = 0, size = in.readInt(); id < size; id++) {
+			final E element;
+			try {
+				element = (E) in.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Cannot read the state", e);
+			}
+			if (idMap.getId(element) != id) {
+				throw new IOException("Duplicate element in the state: "
+						+ element);
+			}
+		}
+	}
+
+	private static void writeReferences(
+			final Collection<DerivedInference> inferences,
+			final Map<DerivedInference, Integer> inferenceIds,
+			final DataOutput out) throws IOException {
+		out.writeInt(inferences.size());
+		for (DerivedInference inf : inferences) {
+			out.writeInt(inferenceIds.get(inf));
+		}
+	}
+
+	private static DerivedInference readReference(
+			final DerivedInference[] inferences, final DataInput in)
+			throws IOException {
+		final int pos = in.readInt();
+		if (pos < 0 || pos >= inferences.length) {
+			throw new IOException("Invalid inference reference: " + pos);
+		}
+		// else
+		return inferences[pos];
+	}
+
+	private static void writeIndex(
+			final IntListMultimap<DerivedInference> index,
+			final Map<DerivedInference, Integer> inferenceIds,
+			final DataOutput out) throws IOException {
+		final int[] keys = index.getKeys();
+		out.writeInt(keys.length);
+		for (int key : keys) {
+			out.writeInt(key);
+			writeReferences(index.get(key), inferenceIds, out);
+		}
+	}
+
+	private static void readIndex(final IntListMultimap<DerivedInference> index,
+			final DerivedInference[] inferences, final DataInput in)
+			throws IOException {
+		for (int i = in.readInt(); i > 0; i--) {
+			final int key = in.readInt();
+			for (int j = in.readInt(); j > 0; j--) {
+				index.put(key, readReference(inferences, in));
+			}
+		}
+	}
+
 	/**
 	 * A derived inference obtained from either original inferences or
 	 * resolution between two inferences on the conclusion and a premise.
@@ -179,31 +821,95 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 	 * @author Peter Skocovsky
 	 * @author Yevgeny Kazakov
 	 */
-	static class DerivedInference extends AbstractSet<DerivedInferenceMember> {
+	static class DerivedInference extends AbstractSet<DerivedInferenceMember>
+			implements BloomFilteredCollection<DerivedInferenceMember>,
+			ResolutionInference {
 
 		private final int conclusionId_;
 		private final int[] premiseIds_;
 		private final int[] justificationIds_;
+		/**
+		 * the Bloom filters of the members of this inference; the hash code
+		 * of a member is its id
+		 */
+		private final long filter_, filter2_;
 		/**
 		 * {@code true} if the inference was checked for minimality
 		 */
 		boolean isMinimal_ = false;
+		/**
+		 * the priority of the justification of this inference if it was
+		 * computed by an {@link IdPriorityFunction.LongFunction}
+		 */
+		long longPriority_;
+		/**
+		 * the priority of the justification of this inference if it was
+		 * computed by another {@link IdPriorityFunction}
+		 */
+		Object priority_;
+		/**
+		 * the function that has computed the priority of this inference or
+		 * {@code null} if it was not computed; the priority is recomputed
+		 * only when it is needed by a processor with a different function
+		 */
+		IdPriorityFunction<?> priorityFunction_ = null;
 
 		protected DerivedInference(final int conclusionId,
 				final int[] premiseIds, final int[] justificationIds) {
 			this.conclusionId_ = conclusionId;
 			this.premiseIds_ = premiseIds;
 			this.justificationIds_ = justificationIds;
+			long filter = BloomTrieCollection2.getFilterBit(conclusionId);
+			long filter2 = BloomTrieCollection2.getFilter2Bit(conclusionId);
+			for (int i = 0; i < premiseIds.length; i++) {
+				filter |= BloomTrieCollection2.getFilterBit(premiseIds[i]);
+				filter2 |= BloomTrieCollection2.getFilter2Bit(premiseIds[i]);
+			}
+			for (int i = 0; i < justificationIds.length; i++) {
+				filter |= BloomTrieCollection2
+						.getFilterBit(justificationIds[i]);
+				filter2 |= BloomTrieCollection2
+						.getFilter2Bit(justificationIds[i]);
+			}
+			this.filter_ = filter;
+			this.filter2_ = filter2;
+		}
+
+		@Override
+		public long getBloomFilter() {
+			return filter_;
+		}
+
+		@Override
+		public long getBloomFilter2() {
+			return filter2_;
+		}
+
+		@Override
+		public int getConclusionId() {
+			return conclusionId_;
+		}
+
+		@Override
+		public int getPremiseId(int index) {
+			return premiseIds_[index];
 		}
 
+		@Override
 		public Set<Integer> getPremises() {
 			return new SortedIntSet(premiseIds_);
 		}
 
+		@Override
 		public Set<Integer> getJustification() {
 			return new SortedIntSet(justificationIds_);
 		}
 
+		@Override
+		public int getPremiseCount() {
+			return premiseIds_.length;
+		}
+
 		public boolean isATautology() {
 			return Arrays.binarySearch(premiseIds_, conclusionId_) >= 0;
 		}
@@ -281,7 +987,7 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 
 		@Override
 		public int size() {
-			return getPremises().size() + getJustification().size() + 1;
+			return premiseIds_.length + justificationIds_.length + 1;
 		}
 
 		@Override
@@ -357,8 +1063,16 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 		 */
 		private final C query_;
 
-		public JustificationEnumerator(C query) {
+		/**
+		 * the justifications that should not be reported or {@code null} if
+		 * all justifications should be reported
+		 */
+		private final Collection2<Set<Integer>> reported_;
+
+		public JustificationEnumerator(C query,
+				Collection2<Set<Integer>> reported) {
 			this.query_ = query;
+			this.reported_ = reported;
 		}
 
 		@Override
@@ -370,41 +1084,296 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 				return;
 			}
 			// else
-			JustificationProcessor<?> p = createProcessor(listener,
-					priorityComparator);
-			p.initialize();
-			p.unblockJobs();
-			p.changeSelection();
-			p.process();
+			enumerate(listener, priorityComparator, null, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public <P> void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, P> priorityComparator,
+				final P bound, final int limit) {
+			Preconditions.checkNotNull(listener);
+			Preconditions.checkNotNull(priorityComparator);
+			Preconditions.checkArgument(limit > 0,
+					"The limit must be positive: %s", limit);
+			EnumerationResult result = createProcessor(
+					Collections.singleton(query_),
+					new IncrementalJustificationListener<C, A>() {
+
+						@Override
+						public void newJustification(C query,
+								Set<A> justification) {
+							listener.newMinimalSubset(justification);
+						}
+
+						@Override
+						public void supersededJustification(C query,
+								Set<A> justification) {
+							if (listener instanceof IncrementalListener<?>) {
+								((IncrementalListener<A>) listener)
+										.supersededMinimalSubset(
+												justification);
+							}
+						}
+
+					}, priorityComparator, bound, limit, reported_).run();
+			notifyFinished(listener, result);
 		}
 
-		<P> JustificationProcessor<P> createProcessor(Listener<A> listener,
-				PriorityComparator<? super Set<A>, P> priorityComparator) {
-			return new JustificationProcessor<P>(query_, listener,
-					priorityComparator);
+		/**
+		 * The returned cursor computes the justifications only when they are
+		 * requested. At most one enumeration of this computation can be in
+		 * progress: if justifications are enumerated using other enumerators
+		 * of this computation before the cursor is closed or all
+		 * justifications are returned, the cursor is stopped, i.e., it
+		 * returns no further justifications and its unprocessed inferences
+		 * are taken over by the new enumeration.
+		 */
+		@Override
+		public MinimalSubsetCursor<A> newCursor(
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(priorityComparator);
+			return new JustificationCursor(query_, priorityComparator,
+					reported_);
 		}
 
 	}
 
-	class JustificationProcessor<P> {
+	/**
+	 * A {@link MinimalSubsetCursor} that processes inferences only until the
+	 * next justification is found
+	 */
+	class JustificationCursor
+			implements MinimalSubsetCursor<A>, JustificationListener<C, A> {
 
 		/**
-		 * the conclusion for which to enumerate justifications
+		 * the processor used to compute justifications or {@code null} if the
+		 * computation is finished
 		 */
-		private final C query_;
+		private JustificationProcessor<?> processor_;
 
-		private final int queryId_;
+		private boolean started_ = false;
 
 		/**
-		 * a function used for selecting conclusions in inferences on which to
+		 * the computed justifications that were not yet returned
+		 */
+		private final Queue<Set<A>> computed_ = new ArrayDeque<Set<A>>();
+
+		JustificationCursor(C query,
+				PriorityComparator<? super Set<A>, ?> priorityComparator,
+				Collection2<Set<Integer>> reported) {
+			this.processor_ = createProcessor(Collections.singleton(query),
+					this, priorityComparator, null, Integer.MAX_VALUE,
+					reported);
+		}
+
+		@Override
+		public void newJustification(C query, Set<A> justification) {
+			computed_.add(justification);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (computed_.isEmpty() && processor_ != null) {
+				boolean finished = true;
+				try {
+					if (!started_) {
+						started_ = true;
+						processor_.start();
+					}
+					finished = !processor_.processNext();
+				} finally {
+					if (finished) {
+						processor_.dispose();
+						processor_ = null;
+					}
+				}
+			}
+			return !computed_.isEmpty();
+		}
+
+		@Override
+		public Set<A> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// else
+			return computed_.poll();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			computed_.clear();
+			if (processor_ == null) {
+				return;
+			}
+			// else
+			try {
+				if (started_) {
+					// keep the remaining inferences for the next enumerations
+					processor_.stop();
+				} else {
+					processor_.dispose();
+				}
+			} finally {
+				processor_ = null;
+			}
+		}
+
+	}
+
+	<P> JustificationProcessor<P> createProcessor(
+			Collection<? extends C> queries,
+			JustificationListener<C, A> listener,
+			PriorityComparator<? super Set<A>, P> priorityComparator, P bound,
+			int limit, Collection2<Set<Integer>> reported) {
+		return new JustificationProcessor<P>(queries, listener,
+				priorityComparator, bound, limit, reported);
+	}
+
+	/**
+	 * Enumerates justifications for several queries at once using the
+	 * cardinality-based priorities
+	 * 
+	 * @param queries
+	 * @param listener
+	 * @return the description of how the enumeration has finished
+	 * @see #enumerate(Collection, JustificationListener, PriorityComparator)
+	 */
+	public EnumerationResult enumerate(final Collection<? extends C> queries,
+			final JustificationListener<C, A> listener) {
+		return enumerate(queries, listener, PriorityComparators.<A> cardinality());
+	}
+
+	/**
+	 * Enumerates justifications for several queries at once and notifies the
+	 * provided listener about each justification together with the query for
+	 * which it was computed. The listener is notified exactly once for every
+	 * justification of every query and the justifications of each query are
+	 * reported in the order defined by the provided
+	 * {@link PriorityComparator}, which must be compatible with subset
+	 * ordering as for
+	 * {@link MinimalSubsetEnumerator#enumerate(Listener, PriorityComparator)}.
+	 * Unlike enumerating the justifications for each query separately, the
+	 * inferences used for several queries are initialized and resolved only
+	 * once.
+	 * 
+	 * @param queries
+	 *            the conclusions for which to enumerate justifications
+	 * @param listener
+	 *            the listener that is notified about new justifications
+	 * @param priorityComparator
+	 *            the comparator that defines the order of justifications
+	 * @return the description of how the enumeration has finished, e.g.,
+	 *         whether it was truncated by the {@link InterruptMonitor}
+	 */
+	public EnumerationResult enumerate(final Collection<? extends C> queries,
+			final JustificationListener<C, A> listener,
+			final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+		Preconditions.checkNotNull(queries);
+		Preconditions.checkNotNull(listener);
+		Preconditions.checkNotNull(priorityComparator);
+		return createProcessor(queries, listener, priorityComparator, null,
+				Integer.MAX_VALUE, null).run();
+	}
+
+	/**
+	 * A listener for justifications computed for several queries
+	 * 
+	 * @param <C>
+	 *            the type of queries
+	 * @param <A>
+	 *            the type of axioms in justifications
+	 */
+	public interface JustificationListener<C, A> {
+
+		/**
+		 * Called when a new justification for the query is computed
+		 * 
+		 * @param query
+		 * @param justification
+		 */
+		void newJustification(C query, Set<A> justification);
+
+	}
+
+	/**
+	 * A {@link JustificationListener} that is also notified when a
+	 * justification reported before by an incremental enumeration is not
+	 * minimal anymore
+	 * 
+	 * @param <C>
+	 *            the type of queries
+	 * @param <A>
+	 *            the type of axioms in justifications
+	 * 
+	 * @see ResolutionJustificationComputation#newIncrementalEnumerator(Object)
+	 */
+	public interface IncrementalJustificationListener<C, A>
+			extends JustificationListener<C, A> {
+
+		/**
+		 * Called when a proper subset of a justification for the query that
+		 * was reported before is reported
+		 * 
+		 * @param query
+		 * @param justification
+		 *            the justification reported before
+		 */
+		void supersededJustification(C query, Set<A> justification);
+
+	}
+
+	/**
+	 * A {@link MinimalSubsetEnumerator.Listener} for the enumerators created
+	 * by {@link ResolutionJustificationComputation#newIncrementalEnumerator(Object)}
+	 * that is also notified about the justifications reported before that
+	 * are not minimal anymore; other enumerators treat it as a usual
+	 * {@link MinimalSubsetEnumerator.Listener}
+	 * 
+	 * @param <A>
+	 *            the type of axioms in justifications
+	 */
+	public interface IncrementalListener<A>
+			extends MinimalSubsetEnumerator.Listener<A> {
+
+		/**
+		 * Called when a proper subset of the given justification reported
+		 * before is reported; the given justification should not be
+		 * considered minimal anymore
+		 * 
+		 * @param justification
+		 */
+		void supersededMinimalSubset(Set<A> justification);
+
+	}
+
+	class JustificationProcessor<P> implements SelectionContext {
+
+		/**
+		 * the conclusions for which to enumerate justifications
+		 */
+		private final Collection<? extends C> queries_;
+
+		/**
+		 * the ids of {@link #queries_}
+		 */
+		private final int[] queryIds_;
+
+		/**
+		 * a function used for selecting conclusions in inferences on which to
 		 * resolve
 		 */
 		private final SelectionFunction selectionFunction_;
 
 		/**
-		 * to check minimality of justifications
+		 * to check minimality of justifications, indexed by the ids of queries
 		 */
-		private final Collection2<Set<Integer>> minimalJustifications_ = new BloomTrieCollection2<Set<Integer>>();
+		private final IntHashMap<Collection2<Set<Integer>>> minimalJustifications_ = new IntHashMap<Collection2<Set<Integer>>>();
 
 		/**
 		 * a temporary queue used to initialize computation of justifications
@@ -415,10 +1384,52 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 		/**
 		 * the listener through which to report the justifications
 		 */
-		private Listener<A> listener_;
+		private final JustificationListener<C, A> listener_;
+
+		/**
+		 * the justifications that should not be reported through the
+		 * {@link #listener_} or {@code null} if all justifications should be
+		 * reported; newly reported justifications are added to this set
+		 */
+		private final Collection2<Set<Integer>> reported_;
 
 		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
 
+		/**
+		 * the maximal priority of the justifications to report or
+		 * {@code null} if the priorities are not bounded
+		 */
+		private final P bound_;
+
+		/**
+		 * the maximal number of justifications to report
+		 */
+		private final int limit_;
+
+		/**
+		 * the number of justifications reported so far
+		 */
+		private int reportedCount_ = 0;
+
+		/**
+		 * computes the priorities of inferences from the ids of their
+		 * justifications
+		 */
+		private final IdPriorityFunction<P> priorityFunction_;
+
+		/**
+		 * the {@link #priorityFunction_} if its priorities are represented by
+		 * {@code long} values, which are then stored and compared without
+		 * boxing, or {@code null} otherwise
+		 */
+		private final IdPriorityFunction.LongFunction<P> longFunction_;
+
+		/**
+		 * the {@code long} value of {@link #bound_} if {@link #longFunction_}
+		 * is used and the priorities are bounded
+		 */
+		private final long longBound_;
+
 		/**
 		 * newly computed inferences to be resolved upon
 		 */
@@ -426,17 +1437,79 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 
 		private final InferenceProcessor<P> resolver_;
 
-		JustificationProcessor(C query, final Listener<A> listener,
-				PriorityComparator<? super Set<A>, P> priorityComparator) {
-			this.query_ = query;
-			this.queryId_ = conclusionIds_.getId(query);
+		/**
+		 * the numbers of inferences produced and found minimal by this
+		 * processor
+		 */
+		private int producedCount_ = 0, minimalCount_ = 0;
+
+		/**
+		 * how the enumeration has finished or {@code null} if it is not
+		 * finished yet
+		 */
+		private EnumerationStatus status_ = null;
+
+		/**
+		 * the number of unprocessed inferences when the enumeration has
+		 * finished
+		 */
+		private int unprocessedCount_ = 0;
+
+		/**
+		 * {@code true} if {@link #unprocessedInferences_} is kept as
+		 * {@link #postponedInferences_} after this processor is disposed
+		 */
+		private boolean queuePostponed_ = false;
+
+		private boolean disposed_ = false;
+
+		JustificationProcessor(Collection<? extends C> queries,
+				final JustificationListener<C, A> listener,
+				PriorityComparator<? super Set<A>, P> priorityComparator,
+				P bound, int limit, Collection2<Set<Integer>> reported) {
+			this.queries_ = queries;
+			this.bound_ = bound;
+			this.limit_ = limit;
+			this.reported_ = reported;
+			for (C query : queries) {
+				minimalJustifications_.put(conclusionIds_.getId(query),
+						new BloomTrieCollection2<Set<Integer>>());
+			}
+			this.queryIds_ = minimalJustifications_.getKeys();
 			this.priorityComparator_ = priorityComparator;
-			this.selectionFunction_ = getSelectionFunction(selectionType_);
+			IdPriorityFunction<P> priorityFunction = IdPriorityFunction
+					.create(priorityComparator, axiomIds_);
+			if (priorityFunction.isCompatible(storedPriorities_)) {
+				// computes the same priorities
+				@SuppressWarnings("unchecked")
+				IdPriorityFunction<P> stored = (IdPriorityFunction<P>) storedPriorities_;
+				priorityFunction = stored;
+			} else {
+				storedPriorities_ = priorityFunction;
+			}
+			this.priorityFunction_ = priorityFunction;
+			if (priorityFunction instanceof IdPriorityFunction.LongFunction<?>) {
+				this.longFunction_ = (IdPriorityFunction.LongFunction<P>) priorityFunction;
+				this.longBound_ = bound == null ? Long.MAX_VALUE
+						: longFunction_.unbox(bound);
+			} else {
+				this.longFunction_ = null;
+				this.longBound_ = Long.MAX_VALUE;
+			}
+			this.selectionFunction_ = selection_.createFunction(this);
 			this.listener_ = listener;
-			this.resolver_ = new InferenceProcessor<P>(priorityComparator);
-			this.unprocessedInferences_ = new PriorityQueue<UnprocessedInference<P>>(
-					256,
-					new UnprocessedInferenceCompatator<P>(priorityComparator));
+			this.resolver_ = new InferenceProcessor<P>(priorityFunction);
+			// long priorities are ordered like the numbers
+			UnprocessedInferenceCompatator<P> comparator = new UnprocessedInferenceCompatator<P>(
+					longFunction_ == null ? priorityComparator : null);
+			if (maxInMemoryInferences_ == Integer.MAX_VALUE) {
+				this.unprocessedInferences_ = new PriorityQueue<UnprocessedInference<P>>(
+						256, comparator);
+			} else {
+				this.unprocessedInferences_ = new SpillingPriorityQueue<UnprocessedInference<P>>(
+						comparator, maxInMemoryInferences_, spillDirectory_,
+						new UnprocessedInferenceCodec());
+			}
 		}
 
 		Proof<? extends I> getProof() {
@@ -457,63 +1530,279 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 			blockedInferences_.add(inf);
 		}
 
+		/**
+		 * Records the given justification as reported by the incremental
+		 * enumerations and removes the justifications reported before that
+		 * are not minimal anymore, notifying the listener about them if it
+		 * is an {@link IncrementalJustificationListener}
+		 * 
+		 * @param conclusionId
+		 * @param justification
+		 * @return {@code true} if the justification was not reported before
+		 */
+		private boolean reportIncrementally(int conclusionId,
+				Set<Integer> justification) {
+			if (reported_.contains(justification)) {
+				return false;
+			}
+			// else
+			List<Set<Integer>> superseded = null;
+			Iterator<Set<Integer>> iter = reported_
+					.superCollectionsOf(justification).iterator();
+			while (iter.hasNext()) {
+				Set<Integer> next = iter.next();
+				iter.remove();
+				if (superseded == null) {
+					superseded = new ArrayList<Set<Integer>>();
+				}
+				superseded.add(next);
+			}
+			reported_.add(justification);
+			if (superseded != null
+					&& listener_ instanceof IncrementalJustificationListener<?, ?>) {
+				IncrementalJustificationListener<C, A> listener = (IncrementalJustificationListener<C, A>) listener_;
+				C query = conclusionIds_.getElement(conclusionId);
+				for (Set<Integer> ids : superseded) {
+					listener.supersededJustification(query,
+							getJustification(SortedIdSet.getIds(ids)));
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @param inf
+		 * @return {@code true} if the justification of the given inference
+		 *         contains some justification found for every query, in
+		 *         which case the inference is not needed for computing new
+		 *         justifications
+		 */
+		private boolean isBlocked(DerivedInference inf) {
+			Set<Integer> justification = inf.getJustification();
+			for (int queryId : queryIds_) {
+				if (minimalJustifications_.get(queryId)
+						.isMinimal(justification)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		EnumerationResult run() {
+			try {
+				start();
+				while (processNext()) {
+					// continue
+				}
+				return getResult();
+			} finally {
+				dispose();
+			}
+		}
+
+		/**
+		 * @return the description of how the enumeration has finished or
+		 *         {@code null} if {@link #processNext()} has not yet returned
+		 *         {@code false}
+		 */
+		EnumerationResult getResult() {
+			if (status_ == null) {
+				return null;
+			}
+			// else
+			return new EnumerationResult(status_, reportedCount_,
+					unprocessedCount_, blockedInferences_.size());
+		}
+
+		/**
+		 * Prepares the computation of justifications; should be called before
+		 * {@link #processNext()}
+		 */
+		void start() {
+			if (activeProcessor_ != null) {
+				activeProcessor_.stop();
+			}
+			activeProcessor_ = this;
+			startGeneration(queries_);
+			initialize();
+			unblockJobs();
+			changeSelection();
+			priorityFunction_.prepare(axiomIds_.size());
+		}
+
 		private void initialize() {
-			toInitialize(query_);
+			if (proofChanged_) {
+				update();
+			}
+			for (C query : queries_) {
+				toInitialize(query);
+			}
 			for (;;) {
 				C next = toInitialize_.poll();
 				if (next == null) {
 					return;
 				}
-				for (final I inf : getInferences(next)) {
-					produce(newDerivedInference(inf, getInferenceJustifier()));
-					for (C premise : inf.getPremises()) {
-						toInitialize(premise);
+				Collection<? extends I> inferences = getInferences(next);
+				if (usedInferences_ != null) {
+					usedInferences_.put(next, new HashSet<I>(inferences));
+				}
+				for (final I inf : inferences) {
+					initialize(inf);
+				}
+			}
+		}
+
+		private void initialize(I inf) {
+			produce(newDerivedInference(inf, getInferenceJustifier()));
+			for (C premise : inf.getPremises()) {
+				toInitialize(premise);
+			}
+		}
+
+		/**
+		 * Produces the inferences of the initialized conclusions that were
+		 * added to the proof since they were used by the computation; they are
+		 * resolved with the previously computed inferences. If some used
+		 * inferences were removed from the proof, the computation starts from
+		 * scratch.
+		 */
+		private void update() {
+			proofChanged_ = false;
+			inferenceCounts_ = SortedIdSet.NO_IDS_;
+			final List<I> added = new ArrayList<I>();
+			final List<Set<I>> addedTo = new ArrayList<Set<I>>();
+			for (Map.Entry<C, Set<I>> entry : usedInferences_.entrySet()) {
+				final Set<I> used = entry.getValue();
+				final Set<I> current = new HashSet<I>(
+						getInferences(entry.getKey()));
+				if (!current.containsAll(used)) {
+					clearState();
+					return;
+				}
+				// else
+				for (I inf : current) {
+					if (!used.contains(inf)) {
+						added.add(inf);
+						addedTo.add(used);
 					}
 				}
 			}
+			for (int i = 0; i < added.size(); i++) {
+				final I inf = added.get(i);
+				addedTo.get(i).add(inf);
+				initialize(inf);
+			}
 		}
 
 		private void unblockJobs() {
+			// some inferences can be blocked again when produced
+			Queue<DerivedInference> blocked = blockedInferences_;
+			blockedInferences_ = new ArrayDeque<DerivedInference>();
 			for (;;) {
-				DerivedInference inf = blockedInferences_.poll();
+				DerivedInference inf = blocked.poll();
 				if (inf == null) {
-					return;
+					break;
 				}
 				// else
 				produce(newDerivedInference(inf));
 			}
+			if (postponedInferences_ == null) {
+				return;
+			}
+			// else
+			JustificationProcessor<?>.PostponedInferences postponed = postponedInferences_;
+			postponedInferences_ = null;
+			try {
+				for (;;) {
+					DerivedInference inf = postponed.poll();
+					if (inf == null) {
+						return;
+					}
+					// else
+					produce(newDerivedInference(inf));
+				}
+			} finally {
+				postponed.dispose();
+			}
 		}
 
 		private void changeSelection() {
-			// selection for inferences with selected query must change
-			for (DerivedInference inf : inferencesBySelectedConclusionIds_
-					.removeAll(queryId_)) {
-				produce(newDerivedInference(inf));
+			// selection for inferences with selected queries must change
+			for (int queryId : queryIds_) {
+				for (DerivedInference inf : inferencesBySelectedConclusionIds_
+						.removeAll(queryId)) {
+					produce(newDerivedInference(inf));
+				}
 			}
 		}
 
-		private void process() {
+		/**
+		 * Processes the unprocessed inferences until a new justification is
+		 * reported
+		 * 
+		 * @return {@code true} if a new justification was reported and
+		 *         {@code false} if no further justifications can be reported
+		 *         because all inferences were processed, the limit of
+		 *         justifications was reached, or the computation was
+		 *         interrupted; in the latter cases the unprocessed inferences
+		 *         are kept for the next enumerations
+		 * @see #getResult()
+		 */
+		boolean processNext() {
+			final int reportedCount = reportedCount_;
 			for (;;) {
+				if (reportedCount_ > reportedCount) {
+					return true;
+				}
+				if (status_ != null) {
+					// stopped
+					return false;
+				}
 				if (isInterrupted()) {
-					break;
+					finish(getInterruptionStatus());
+					return false;
 				}
-				UnprocessedInference<P> next = unprocessedInferences_.poll();
-				if (next == null) {
-					break;
+				if (reportedCount_ >= limit_) {
+					finish(EnumerationStatus.LIMIT_REACHED);
+					return false;
 				}
+				UnprocessedInference<P> next = unprocessedInferences_.peek();
+				if (next == null || isOverBound(next)) {
+					// the remaining inferences cannot result in
+					// justifications within the bound
+					finish(EnumerationStatus.COMPLETE);
+					return false;
+				}
+				// else
+				unprocessedInferences_.poll();
 				DerivedInference inf = next.accept(resolver_);
-				if (!minimalJustifications_.isMinimal(inf.getJustification())) {
+				if (isBlocked(inf)) {
 					block(inf);
 					continue;
 				}
 				// else
-				if (inf.premiseIds_.length == 0
-						&& queryId_ == inf.conclusionId_) {
-					minimalJustifications_.add(inf.getJustification());
-					listener_.newMinimalSubset(
-							getJustification(inf.justificationIds_));
-					block(inf);
-					continue;
+				Collection2<Set<Integer>> justifications = minimalJustifications_
+						.get(inf.conclusionId_);
+				if (inf.premiseIds_.length == 0 && justifications != null) {
+					// a justification for a query
+					Set<Integer> justification = inf.getJustification();
+					if (justifications.isMinimal(justification)) {
+						justifications.add(justification);
+						if (reported_ == null
+								|| reportIncrementally(inf.conclusionId_,
+										justification)) {
+							listener_.newJustification(
+									conclusionIds_.getElement(
+											inf.conclusionId_),
+									getJustification(inf.justificationIds_));
+							reportedCount_++;
+						}
+					}
+					if (queryIds_.length == 1) {
+						// not needed for other queries
+						block(inf);
+						continue;
+					}
 				}
 				// else
 				if (!inf.isMinimal_) {
@@ -526,12 +1815,13 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 					inf.isMinimal_ = true;
 					minimalInferences.add(inf);
 					minimalInferenceCount_++;
+					minimalCount_++;
 				}
 				Integer selected = selectionFunction_.getResolvingAtomId(inf);
 				if (selected == null) {
 					// resolve on the conclusions
 					selected = inf.conclusionId_;
-					if (queryId_ == selected) {
+					if (inf.premiseIds_.length > 0 && isQuery(selected)) {
 						throw new RuntimeException(
 								"Goal conclusion cannot be selected if the inference has premises: "
 										+ inf);
@@ -553,42 +1843,241 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 
 		}
 
+		/**
+		 * Releases the resources used by this processor
+		 */
+		void dispose() {
+			if (activeProcessor_ == this) {
+				activeProcessor_ = null;
+			}
+			if (disposed_) {
+				return;
+			}
+			// else
+			disposed_ = true;
+			if (!queuePostponed_) {
+				disposeQueue();
+			}
+		}
+
+		/**
+		 * Finishes the enumeration if it is not finished yet and releases the
+		 * resources; the unprocessed inferences are kept for the next
+		 * enumerations
+		 */
+		void stop() {
+			try {
+				if (status_ == null) {
+					finish(EnumerationStatus.INTERRUPTED);
+				}
+			} finally {
+				dispose();
+			}
+		}
+
+		private void disposeQueue() {
+			if (unprocessedInferences_ instanceof SpillingPriorityQueue<?>) {
+				SpillingPriorityQueue<?> queue = (SpillingPriorityQueue<?>) unprocessedInferences_;
+				spilledInferenceCount_ += queue.getSpilledCount();
+				queue.dispose();
+			}
+		}
+
+		/**
+		 * The inferences left in {@link #unprocessedInferences_} for the next
+		 * enumerations
+		 */
+		class PostponedInferences {
+
+			/**
+			 * @return the next postponed inference or {@code null} if there
+			 *         are none left
+			 */
+			DerivedInference poll() {
+				UnprocessedInference<P> next = unprocessedInferences_.poll();
+				return next == null ? null : next.accept(resolver_);
+			}
+
+			int size() {
+				return unprocessedInferences_.size();
+			}
+
+			/**
+			 * Deletes the temporary files used for the remaining inferences
+			 */
+			void dispose() {
+				disposeQueue();
+			}
+
+		}
+
+		/**
+		 * Stores unprocessed inferences as the inferences they represent;
+		 * their priorities are recomputed when they are read
+		 */
+		class UnprocessedInferenceCodec
+				implements SpillingPriorityQueue.Codec<UnprocessedInference<P>> {
+
+			@Override
+			public void write(UnprocessedInference<P> element, DataOutput out)
+					throws IOException {
+				DerivedInference inf = element.accept(resolver_);
+				out.writeInt(inf.conclusionId_);
+				out.writeBoolean(inf.isMinimal_);
+				SortedIdSet.writeIds(inf.premiseIds_, out);
+				SortedIdSet.writeIds(inf.justificationIds_, out);
+			}
+
+			@Override
+			public UnprocessedInference<P> read(DataInput in)
+					throws IOException {
+				int conclusionId = in.readInt();
+				boolean isMinimal = in.readBoolean();
+				int[] premiseIds = SortedIdSet.readIds(in);
+				int[] justificationIds = SortedIdSet.readIds(in);
+				InitialInference<P> result = new InitialInference<P>(
+						conclusionId, premiseIds, justificationIds, isMinimal);
+				updatePriority(result);
+				return result;
+			}
+
+		}
+
+		private void finish(EnumerationStatus status) {
+			status_ = status;
+			unprocessedCount_ = unprocessedInferences_.size();
+			// keep the remaining inferences for the next enumerations
+			postponeUnprocessed();
+		}
+
+		/**
+		 * Keeps all unprocessed inferences for the next enumerations: if some
+		 * of them were stored on disk, the queue is kept as
+		 * {@link #postponedInferences_}; otherwise the inferences are moved to
+		 * {@link #blockedInferences_}
+		 */
+		private void postponeUnprocessed() {
+			if (unprocessedInferences_ instanceof SpillingPriorityQueue<?>
+					&& ((SpillingPriorityQueue<?>) unprocessedInferences_)
+							.getRunCount() > 0
+					&& postponedInferences_ == null) {
+				postponedInferences_ = new PostponedInferences();
+				queuePostponed_ = true;
+				return;
+			}
+			// else
+			for (;;) {
+				UnprocessedInference<P> next = unprocessedInferences_.poll();
+				if (next == null) {
+					return;
+				}
+				// else
+				block(next.accept(resolver_));
+			}
+		}
+
 		private void produce(final UnprocessedInference<P> resolvent) {
 			if (resolvent.isATautology()) {
 				// skip tautologies
 				return;
 			}
-			producedInferenceCount_++;
+			if (isOverBound(resolvent)) {
+				// not processed, but kept in the queue, which can store it on
+				// disk, for the next enumerations
+				boundedInferenceCount_++;
+			} else {
+				producedInferenceCount_++;
+				producedCount_++;
+			}
 			unprocessedInferences_.add(resolvent);
 		}
 
+		/**
+		 * @param inference
+		 * @return {@code true} if the priority of the given inference is
+		 *         greater than {@link #bound_}, so it cannot result in
+		 *         justifications within the bound
+		 */
+		private boolean isOverBound(UnprocessedInference<P> inference) {
+			if (bound_ == null) {
+				return false;
+			}
+			// else
+			if (longFunction_ == null) {
+				return priorityComparator_.compare(inference.getPriority(),
+						bound_) > 0;
+			}
+			// else
+			return inference.getLongPriority() > longBound_;
+		}
+
 		UnprocessedInference<P> newDerivedInference(
 				DerivedInference inference) {
-			return new InitialInference<P>(inference.conclusionId_,
-					inference.premiseIds_, inference.justificationIds_,
-					priorityComparator_.getPriority(
-							getJustification(inference.justificationIds_)),
-					inference.isMinimal_);
+			updatePriority(inference);
+			InitialInference<P> result = new InitialInference<P>(
+					inference.conclusionId_, inference.premiseIds_,
+					inference.justificationIds_, inference.isMinimal_);
+			result.longPriority_ = inference.longPriority_;
+			result.priority_ = inference.priority_;
+			result.priorityFunction_ = priorityFunction_;
+			return result;
 		}
 
 		UnprocessedInference<P> newDerivedInference(I inference,
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier) {
-			int[] justificationIds = getAxiomIds(
-					justifier.getJustification(inference));
-			return new InitialInference<P>(
+			InitialInference<P> result = new InitialInference<P>(
 					conclusionIds_.getId(inference.getConclusion()),
-					getConclusionIds(inference.getPremises()), justificationIds,
-					priorityComparator_
-							.getPriority(getJustification(justificationIds)));
+					getConclusionIds(inference.getPremises()),
+					getAxiomIds(justifier.getJustification(inference)));
+			updatePriority(result);
+			return result;
 		}
 
+		@SuppressWarnings("unchecked")
 		UnprocessedInference<P> newResolvent(
 				final DerivedInference firstInference,
 				final DerivedInference secondInference) {
+			updatePriority(firstInference);
+			updatePriority(secondInference);
+			if (longFunction_ == null) {
+				return new Resolvent<P>(firstInference, secondInference, 0,
+						priorityFunction_.getUnionPriority(
+								firstInference.justificationIds_,
+								(P) firstInference.priority_,
+								secondInference.justificationIds_,
+								(P) secondInference.priority_));
+			}
+			// else
 			return new Resolvent<P>(firstInference, secondInference,
-					priorityComparator_.getPriority(getJustification(
-							SortedIdSet.union(firstInference.justificationIds_,
-									secondInference.justificationIds_))));
+					longFunction_.getLongUnionPriority(
+							firstInference.justificationIds_,
+							firstInference.longPriority_,
+							secondInference.justificationIds_,
+							secondInference.longPriority_),
+					null);
+		}
+
+		/**
+		 * Computes the priority of the given inference unless it was
+		 * computed by {@link #priorityFunction_}; the priorities of the
+		 * inferences kept in memory are thus recomputed only when they are
+		 * needed after the function has changed
+		 * 
+		 * @param inference
+		 */
+		private void updatePriority(DerivedInference inference) {
+			if (inference.priorityFunction_ == priorityFunction_) {
+				return;
+			}
+			// else
+			if (longFunction_ == null) {
+				inference.priority_ = priorityFunction_
+						.getPriority(inference.justificationIds_);
+			} else {
+				inference.longPriority_ = longFunction_
+						.getLongPriority(inference.justificationIds_);
+			}
+			inference.priorityFunction_ = priorityFunction_;
 		}
 
 		int[] getConclusionIds(Collection<? extends C> conclusions) {
@@ -599,94 +2088,25 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 			return SortedIdSet.getIds(axioms, axiomIds_);
 		}
 
-		SelectionFunction getSelectionFunction(SelectionType type) {
-			switch (type) {
-			case BOTTOM_UP:
-				return new SelectionFunction() {
-
-					@Override
-					public Integer getResolvingAtomId(
-							DerivedInference inference) {
-						// select the premise that is derived by the fewest
-						// inferences;
-						// if there are no premises, select the conclusion
-						Integer result = null;
-						int minInferenceCount = Integer.MAX_VALUE;
-						for (int premiseId : inference.premiseIds_) {
-							int inferenceCount = getProof().getInferences(
-									conclusionIds_.getElement(premiseId))
-									.size();
-							if (inferenceCount < minInferenceCount) {
-								result = premiseId;
-								minInferenceCount = inferenceCount;
-							}
-						}
-						return result;
-					}
-				};
-			case THRESHOLD:
-				return new SelectionFunction() {
-
-					static final int THRESHOLD_ = 2;
-
-					@Override
-					public Integer getResolvingAtomId(
-							DerivedInference inference) {
-						// select the premise derived by the fewest inferences
-						// unless the number of such inferences is larger than
-						// the give threshold and the conclusion is not the
-						// query; in this case select the conclusion
-						int minInferenceCount = Integer.MAX_VALUE;
-						Integer result = null;
-						for (int premiseId : inference.premiseIds_) {
-							int inferenceCount = getProof().getInferences(
-									conclusionIds_.getElement(premiseId))
-									.size();
-							if (inferenceCount < minInferenceCount) {
-								result = premiseId;
-								minInferenceCount = inferenceCount;
-							}
-						}
-						if (minInferenceCount > THRESHOLD_
-								&& queryId_ != inference.conclusionId_) {
-							// resolve on the conclusion
-							result = null;
-						}
-						return result;
-					}
+		@Override
+		public boolean isQuery(int conclusionId) {
+			return minimalJustifications_.get(conclusionId) != null;
+		}
 
-				};
-
-			case TOP_DOWN:
-				return new SelectionFunction() {
-
-					@Override
-					public Integer getResolvingAtomId(
-							DerivedInference inference) {
-						// select the conclusion, unless it is the query
-						// conclusion and there are premises, in which case
-						// select the premise derived by the fewest inferences
-						Integer result = null;
-						if (queryId_ == inference.conclusionId_) {
-							int minInferenceCount = Integer.MAX_VALUE;
-							for (int premiseId : inference.premiseIds_) {
-								int inferenceCount = getProof().getInferences(
-										conclusionIds_.getElement(premiseId))
-										.size();
-								if (inferenceCount < minInferenceCount) {
-									result = premiseId;
-									minInferenceCount = inferenceCount;
-								}
-							}
-						}
-						return result;
-					}
-				};
+		@Override
+		public int getInferenceCount(int conclusionId) {
+			return ResolutionJustificationComputation.this
+					.getInferenceCount(conclusionId);
+		}
 
-			default:
-				throw new RuntimeException(
-						"Unsupported selection type: " + type);
-			}
+		@Override
+		public int getProducedInferenceCount() {
+			return producedCount_;
+		}
+
+		@Override
+		public int getMinimalInferenceCount() {
+			return minimalCount_;
 		}
 
 	}
@@ -702,9 +2122,18 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 
 		/**
 		 * @return the priority in which this inference should be processed
+		 *         if it is not computed by an
+		 *         {@link IdPriorityFunction.LongFunction}
 		 */
 		P getPriority();
 
+		/**
+		 * @return the priority in which this inference should be processed
+		 *         if it is computed by an
+		 *         {@link IdPriorityFunction.LongFunction}
+		 */
+		long getLongPriority();
+
 		/**
 		 * @return the number of premises of for the inference represented by
 		 *         this element
@@ -740,28 +2169,26 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 	static class InitialInference<P> extends DerivedInference
 			implements UnprocessedInference<P> {
 
-		private final P priority_;
-
 		private InitialInference(int conclusionId, int[] premiseIds,
-				int[] justificationIds, P priority) {
+				int[] justificationIds) {
 			super(conclusionId, premiseIds, justificationIds);
-			this.priority_ = priority;
 		}
 
 		private InitialInference(int conclusionId, int[] premiseIds,
-				int[] justificationIds, P priority, boolean isMinimal) {
-			this(conclusionId, premiseIds, justificationIds, priority);
+				int[] justificationIds, boolean isMinimal) {
+			this(conclusionId, premiseIds, justificationIds);
 			this.isMinimal_ = isMinimal;
 		}
 
+		@SuppressWarnings("unchecked")
 		@Override
-		public int getPremiseCount() {
-			return getPremises().size();
+		public P getPriority() {
+			return (P) priority_;
 		}
 
 		@Override
-		public P getPriority() {
-			return priority_;
+		public long getLongPriority() {
+			return longPriority_;
 		}
 
 		@Override
@@ -784,12 +2211,24 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 
 		private final DerivedInference firstInference_, secondInference_;
 
+		private final long longPriority_;
+
 		private final P priority_;
 
 		private final int premiseCount_;
 
+		/**
+		 * @param firstInference
+		 * @param secondInference
+		 * @param longPriority
+		 *            the priority of the resolvent if it is computed by an
+		 *            {@link IdPriorityFunction.LongFunction}
+		 * @param priority
+		 *            the priority of the resolvent otherwise
+		 */
 		Resolvent(DerivedInference firstInference,
-				DerivedInference secondInference, P priority) {
+				DerivedInference secondInference, long longPriority,
+				P priority) {
 			if (firstInference.isATautology()
 					|| secondInference.isATautology()) {
 				throw new IllegalArgumentException(
@@ -797,9 +2236,12 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 			}
 			this.firstInference_ = firstInference;
 			this.secondInference_ = secondInference;
+			this.longPriority_ = longPriority;
 			this.priority_ = priority;
-			this.premiseCount_ = Sets.union(firstInference_.getPremises(),
-					secondInference_.getPremises()).size() - 1;
+			// the resolved premise of the second inference is not included
+			this.premiseCount_ = SortedIdSet.unionSize(
+					firstInference_.premiseIds_, secondInference_.premiseIds_)
+					- 1;
 		}
 
 		@Override
@@ -819,6 +2261,11 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 			return priority_;
 		}
 
+		@Override
+		public long getLongPriority() {
+			return longPriority_;
+		}
+
 		@Override
 		public <O> O accept(UnprocessedInference.Visitor<P, O> visitor) {
 			return visitor.visit(this);
@@ -829,6 +2276,10 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 	static class UnprocessedInferenceCompatator<P>
 			implements Comparator<UnprocessedInference<P>> {
 
+		/**
+		 * compares the priorities of the inferences or {@code null} if their
+		 * {@code long} priorities should be compared
+		 */
 		private final Comparator<P> priorityComparator_;
 
 		UnprocessedInferenceCompatator(Comparator<P> priorityComparator) {
@@ -838,8 +2289,11 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 		@Override
 		public int compare(UnprocessedInference<P> first,
 				UnprocessedInference<P> second) {
-			final int result = priorityComparator_.compare(first.getPriority(),
-					second.getPriority());
+			final int result = priorityComparator_ == null
+					? Long.compare(first.getLongPriority(),
+							second.getLongPriority())
+					: priorityComparator_.compare(first.getPriority(),
+							second.getPriority());
 			if (result != 0) {
 				return result;
 			}
@@ -859,14 +2313,16 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 	 *
 	 * @param <P>
 	 */
-	class InferenceProcessor<P>
+	static class InferenceProcessor<P>
 			implements UnprocessedInference.Visitor<P, DerivedInference> {
 
-		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
+		/**
+		 * the function that has computed the priorities of the resolvents
+		 */
+		private final IdPriorityFunction<P> priorityFunction_;
 
-		InferenceProcessor(
-				PriorityComparator<? super Set<A>, P> priorityComparator) {
-			this.priorityComparator_ = priorityComparator;
+		InferenceProcessor(IdPriorityFunction<P> priorityFunction) {
+			this.priorityFunction_ = priorityFunction;
 		}
 
 		@Override
@@ -879,22 +2335,67 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 			int[] newPremiseIds;
 			DerivedInference first = inference.firstInference_;
 			DerivedInference second = inference.secondInference_;
-			if (second.getPremises().size() == 1) {
+			if (second.premiseIds_.length == 1) {
 				newPremiseIds = first.premiseIds_;
 			} else {
-				newPremiseIds = getIds(Sets.union(first.getPremises(),
-						Sets.difference(second.getPremises(),
-								Collections.singleton(first.conclusionId_))));
+				newPremiseIds = SortedIdSet.union(first.premiseIds_,
+						second.premiseIds_, first.conclusionId_,
+						inference.premiseCount_);
 			}
 			int[] newJustificationIds = SortedIdSet
 					.union(first.justificationIds_, second.justificationIds_);
-			return new InitialInference<P>(second.conclusionId_, newPremiseIds,
-					newJustificationIds, priorityComparator_.getPriority(
-							getJustification(newJustificationIds)));
+			InitialInference<P> result = new InitialInference<P>(
+					second.conclusionId_, newPremiseIds, newJustificationIds);
+			// the priority was computed for the resolvent
+			result.longPriority_ = inference.longPriority_;
+			result.priority_ = inference.priority_;
+			result.priorityFunction_ = priorityFunction_;
+			return result;
 		}
 
 	}
 
+	/**
+	 * An inference produced by the computation, in which conclusions and
+	 * axioms are represented by their ids, as seen by
+	 * {@link SelectionFunction}s
+	 * 
+	 * @author Yevgeny Kazakov
+	 */
+	public interface ResolutionInference {
+
+		/**
+		 * @return the id of the conclusion of this inference
+		 */
+		int getConclusionId();
+
+		/**
+		 * @return the number of premises of this inference
+		 */
+		int getPremiseCount();
+
+		/**
+		 * @param index
+		 *            a number from {@code 0} to {@link #getPremiseCount()}
+		 *            (exclusive)
+		 * @return the id of the premise at the given position; the ids of the
+		 *         premises are sorted in increasing order
+		 */
+		int getPremiseId(int index);
+
+		/**
+		 * @return the ids of the premises of this inference
+		 */
+		Set<Integer> getPremises();
+
+		/**
+		 * @return the ids of the axioms in the justification of this
+		 *         inference
+		 */
+		Set<Integer> getJustification();
+
+	}
+
 	public interface SelectionFunction {
 
 		/**
@@ -904,7 +2405,303 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 		 *         resolution rule should be applied on the conclusion of the
 		 *         inference
 		 */
-		Integer getResolvingAtomId(DerivedInference inference);
+		Integer getResolvingAtomId(ResolutionInference inference);
+
+	}
+
+	/**
+	 * The information about the computation of justifications for a query
+	 * that can be used by {@link SelectionFunction}s
+	 * 
+	 * @author Yevgeny Kazakov
+	 */
+	public interface SelectionContext {
+
+		/**
+		 * @param conclusionId
+		 * @return {@code true} if the justifications are computed for the
+		 *         conclusion with the given id
+		 */
+		boolean isQuery(int conclusionId);
+
+		/**
+		 * @param conclusionId
+		 * @return the number of inferences in the proof for the conclusion
+		 *         with the given id
+		 */
+		int getInferenceCount(int conclusionId);
+
+		/**
+		 * @return the number of inferences produced so far for the queries
+		 */
+		int getProducedInferenceCount();
+
+		/**
+		 * @return the number of produced inferences that were found to be
+		 *         minimal so far for the queries
+		 */
+		int getMinimalInferenceCount();
+
+	}
+
+	/**
+	 * A strategy for choosing the conclusions in inferences on which the
+	 * resolution rule is applied. The conclusion of the inference can be
+	 * selected only if it is not a query or there are no premises; the
+	 * inferences without premises must select the conclusion. New
+	 * strategies can be defined by implementing
+	 * {@link #createFunction(SelectionContext)}.
+	 * 
+	 * @author Yevgeny Kazakov
+	 */
+	public static abstract class Selection {
+
+		/**
+		 * @param context
+		 * @return a new {@link SelectionFunction} to be used for computing
+		 *         justifications in the given context; it is called from
+		 *         one thread at a time
+		 */
+		public abstract SelectionFunction createFunction(
+				SelectionContext context);
+
+		/**
+		 * @return the selection of the conclusion, unless it is a query
+		 *         and there are premises, in which case the premise derived
+		 *         by the fewest inferences is selected
+		 */
+		public static Selection topDown() {
+			return TopDownSelection.INSTANCE_;
+		}
+
+		/**
+		 * @return the selection of the premise derived by the fewest
+		 *         inferences; the conclusion is selected only if there are no
+		 *         premises
+		 */
+		public static Selection bottomUp() {
+			return BottomUpSelection.INSTANCE_;
+		}
+
+		/**
+		 * @param threshold
+		 * @return the selection of the premise derived by the fewest
+		 *         inferences unless the number of such inferences is larger
+		 *         than the given threshold and the conclusion is not a
+		 *         query; in this case the conclusion is selected
+		 */
+		public static Selection threshold(int threshold) {
+			Preconditions.checkArgument(threshold >= 0,
+					"The threshold must be non-negative: %s", threshold);
+			return new ThresholdSelection(threshold);
+		}
+
+		/**
+		 * @return the selection that works like {@link #threshold(int)} but
+		 *         adjusts the threshold during the computation: after every
+		 *         {@value AdaptiveSelection#PERIOD_} minimal inferences, the
+		 *         threshold is moved in the same direction as before if the
+		 *         ratio of produced inferences to minimal inferences has not
+		 *         grown and in the opposite direction otherwise. A small
+		 *         threshold means resolving mostly top-down and a large one
+		 *         bottom-up.
+		 */
+		public static Selection adaptive() {
+			return AdaptiveSelection.INSTANCE_;
+		}
+
+		/**
+		 * @param inference
+		 * @param context
+		 * @return the id of the premise of the inference derived by the
+		 *         fewest inferences or {@code null} if the inference has no
+		 *         premises
+		 */
+		public static Integer getRarestPremiseId(
+				ResolutionInference inference, SelectionContext context) {
+			Integer result = null;
+			int minInferenceCount = Integer.MAX_VALUE;
+			for (int i = 0; i < inference.getPremiseCount(); i++) {
+				int premiseId = inference.getPremiseId(i);
+				int inferenceCount = context.getInferenceCount(premiseId);
+				if (inferenceCount < minInferenceCount) {
+					result = premiseId;
+					minInferenceCount = inferenceCount;
+				}
+			}
+			return result;
+		}
+
+	}
+
+	static class TopDownSelection extends Selection {
+
+		static final Selection INSTANCE_ = new TopDownSelection();
+
+		@Override
+		public SelectionFunction createFunction(
+				final SelectionContext context) {
+			return new SelectionFunction() {
+
+				@Override
+				public Integer getResolvingAtomId(
+						ResolutionInference inference) {
+					if (context.isQuery(inference.getConclusionId())) {
+						return getRarestPremiseId(inference, context);
+					}
+					// else
+					return null;
+				}
+
+			};
+		}
+
+		@Override
+		public String toString() {
+			return "TOP_DOWN";
+		}
+
+	}
+
+	static class BottomUpSelection extends Selection {
+
+		static final Selection INSTANCE_ = new BottomUpSelection();
+
+		@Override
+		public SelectionFunction createFunction(
+				final SelectionContext context) {
+			return new SelectionFunction() {
+
+				@Override
+				public Integer getResolvingAtomId(
+						ResolutionInference inference) {
+					return getRarestPremiseId(inference, context);
+				}
+
+			};
+		}
+
+		@Override
+		public String toString() {
+			return "BOTTOM_UP";
+		}
+
+	}
+
+	static class ThresholdSelection extends Selection {
+
+		static final int DEFAULT_THRESHOLD_ = 2;
+
+		private final int threshold_;
+
+		ThresholdSelection(int threshold) {
+			this.threshold_ = threshold;
+		}
+
+		/**
+		 * @param inference
+		 * @param context
+		 * @param threshold
+		 * @return the id of the premise of the inference derived by the
+		 *         fewest inferences unless the number of such inferences is
+		 *         larger than the given threshold and the conclusion is not
+		 *         a query; in this case {@code null}
+		 */
+		static Integer getResolvingAtomId(ResolutionInference inference,
+				SelectionContext context, int threshold) {
+			Integer result = getRarestPremiseId(inference, context);
+			if (result != null && context.getInferenceCount(result) > threshold
+					&& !context.isQuery(inference.getConclusionId())) {
+				// resolve on the conclusion
+				result = null;
+			}
+			return result;
+		}
+
+		@Override
+		public SelectionFunction createFunction(
+				final SelectionContext context) {
+			return new SelectionFunction() {
+
+				@Override
+				public Integer getResolvingAtomId(
+						ResolutionInference inference) {
+					return ThresholdSelection.getResolvingAtomId(inference,
+							context, threshold_);
+				}
+
+			};
+		}
+
+		@Override
+		public String toString() {
+			return "THRESHOLD(" + threshold_ + ")";
+		}
+
+	}
+
+	static class AdaptiveSelection extends Selection {
+
+		static final Selection INSTANCE_ = new AdaptiveSelection();
+
+		/**
+		 * the number of minimal inferences after which the threshold is
+		 * adjusted
+		 */
+		static final int PERIOD_ = 256;
+
+		@Override
+		public SelectionFunction createFunction(
+				final SelectionContext context) {
+			return new SelectionFunction() {
+
+				private int threshold_ = ThresholdSelection.DEFAULT_THRESHOLD_;
+
+				/**
+				 * the direction in which the threshold is changed: +1 or -1
+				 */
+				private int direction_ = 1;
+
+				/**
+				 * the values of the counters when the threshold was adjusted
+				 * the last time
+				 */
+				private int lastProducedCount_ = 0, lastMinimalCount_ = 0;
+
+				/**
+				 * the ratio of produced to minimal inferences in the previous
+				 * period
+				 */
+				private double lastRatio_ = Double.MAX_VALUE;
+
+				@Override
+				public Integer getResolvingAtomId(
+						ResolutionInference inference) {
+					int minimalCount = context.getMinimalInferenceCount();
+					if (minimalCount - lastMinimalCount_ >= PERIOD_) {
+						int producedCount = context.getProducedInferenceCount();
+						double ratio = (double) (producedCount
+								- lastProducedCount_)
+								/ (minimalCount - lastMinimalCount_);
+						if (ratio > lastRatio_) {
+							direction_ = -direction_;
+						}
+						threshold_ = Math.max(0, threshold_ + direction_);
+						lastRatio_ = ratio;
+						lastProducedCount_ = producedCount;
+						lastMinimalCount_ = minimalCount;
+					}
+					return ThresholdSelection.getResolvingAtomId(inference,
+							context, threshold_);
+				}
+
+			};
+		}
+
+		@Override
+		public String toString() {
+			return "ADAPTIVE";
+		}
 
 	}
 
@@ -936,8 +2733,85 @@ public class ResolutionJustificationComputation<C, I extends Inference<? extends
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor, final SelectionType selection) {
+			return create(proof, justifier, monitor, getSelection(selection));
+		}
+
+		/**
+		 * @param proof
+		 * @param justifier
+		 * @param monitor
+		 * @param selection
+		 *            the strategy for choosing the conclusions on which to
+		 *            resolve, e.g., {@link Selection#threshold(int)} or
+		 *            {@link Selection#adaptive()}
+		 * @return a new {@link MinimalSubsetEnumerator.Factory} which uses the
+		 *         given proof and inference justifier
+		 */
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor, final Selection selection) {
+			return create(proof, justifier, monitor, selection,
+					Integer.MAX_VALUE, null);
+		}
+
+		/**
+		 * Creates a computation that monitors the changes of the given proof.
+		 * When inferences are added to the proof, the next enumeration resolves
+		 * only the new inferences with the previously computed ones; the
+		 * justifications that appeared since the previous enumeration can be
+		 * obtained using
+		 * {@link ResolutionJustificationComputation#newIncrementalEnumerator(Object)}.
+		 * The computation should be disposed using
+		 * {@link ResolutionJustificationComputation#dispose()} when it is not
+		 * needed anymore.
+		 * 
+		 * @param proof
+		 * @param justifier
+		 * @param monitor
+		 * @param selection
+		 * @return a new {@link ResolutionJustificationComputation} which uses
+		 *         the given proof and inference justifier
+		 */
+		public ResolutionJustificationComputation<C, I, A> createIncremental(
+				final DynamicProof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor, final Selection selection) {
+			final ResolutionJustificationComputation<C, I, A> result = new ResolutionJustificationComputation<C, I, A>(
+					proof, justifier, monitor, selection, Integer.MAX_VALUE,
+					null);
+			result.usedInferences_ = new HashMap<C, Set<I>>();
+			proof.addListener(result.changeListener_);
+			return result;
+		}
+
+		/**
+		 * Creates a computation that keeps at most the given number of
+		 * unprocessed inferences in memory; the remaining inferences, which
+		 * have the lowest priority, are stored in temporary files in the given
+		 * directory and read back when they are needed.
+		 * 
+		 * @param proof
+		 * @param justifier
+		 * @param monitor
+		 * @param selection
+		 * @param maxInMemoryInferences
+		 *            the maximal number of unprocessed inferences kept in
+		 *            memory; must be at least 2
+		 * @param spillDirectory
+		 *            the directory for temporary files or {@code null} if the
+		 *            default temporary-file directory should be used
+		 * @return a new {@link MinimalSubsetEnumerator.Factory} which uses the
+		 *         given proof and inference justifier
+		 */
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor, final Selection selection,
+				final int maxInMemoryInferences, final File spillDirectory) {
 			return new ResolutionJustificationComputation<C, I, A>(proof,
-					justifier, monitor, selection);
+					justifier, monitor, selection, maxInMemoryInferences,
+					spillDirectory);
 		}
 
 	}
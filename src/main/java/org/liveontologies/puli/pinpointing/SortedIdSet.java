@@ -22,6 +22,9 @@ package org.liveontologies.puli.pinpointing;
  * #L%
  */
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,6 +38,11 @@ import com.google.common.primitives.Ints;
 public class SortedIdSet<E> extends AbstractSet<E>
 		implements Function<Integer, E> {
 
+	/**
+	 * the shared array of ids for empty sets
+	 */
+	static final int[] NO_IDS_ = new int[0];
+
 	private final int[] elementIds_;
 
 	private final IdMap<E> idMap_;
@@ -91,23 +99,51 @@ public class SortedIdSet<E> extends AbstractSet<E>
 	// TODO: move to some utilities
 
 	static int[] getIds(Collection<? extends Integer> set) {
+		if (set.isEmpty()) {
+			return NO_IDS_;
+		}
+		// else
 		int[] ids = new int[set.size()];
 		int pos = 0;
 		for (int e : set) {
 			ids[pos++] = e;
 		}
-		Arrays.sort(ids);
-		return ids;
+		return sort(ids);
 	}
 
 	static <E> int[] getIds(Collection<? extends E> set, IdMap<E> idMap) {
+		if (set.isEmpty()) {
+			return NO_IDS_;
+		}
+		// else
 		int[] ids = new int[set.size()];
 		int pos = 0;
 		for (E e : set) {
 			ids[pos++] = idMap.getId(e);
 		}
+		return sort(ids);
+	}
+
+	/**
+	 * Sorts the given array and removes duplicate elements; the given
+	 * collections of elements can be lists
+	 * 
+	 * @param ids
+	 * @return the sorted array without duplicates
+	 */
+	private static int[] sort(int[] ids) {
 		Arrays.sort(ids);
-		return ids;
+		int size = 1;
+		for (int i = 1; i < ids.length; i++) {
+			if (ids[i] != ids[size - 1]) {
+				ids[size++] = ids[i];
+			}
+		}
+		if (size == ids.length) {
+			return ids;
+		}
+		// else
+		return Arrays.copyOf(ids, size);
 	}
 
 	static <E> SortedIdSet<E> copyOf(Set<E> set, IdMap<E> idMap) {
@@ -138,6 +174,85 @@ public class SortedIdSet<E> extends AbstractSet<E>
 		return true;
 	}
 
+	/**
+	 * @param first
+	 *            a sorted array
+	 * @param second
+	 *            a sorted array
+	 * @return the number of distinct elements in both arrays
+	 */
+	static int unionSize(int[] first, int[] second) {
+		int i = 0;
+		int j = 0;
+		int result = first.length + second.length;
+		while (i < first.length && j < second.length) {
+			int x = first[i];
+			int y = second[j];
+			if (x <= y) {
+				i++;
+			}
+			if (y <= x) {
+				j++;
+			}
+			if (x == y) {
+				result--;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Merges two sorted arrays into one sorted array without duplicates,
+	 * skipping the given element
+	 * 
+	 * @param first
+	 *            a sorted array
+	 * @param second
+	 *            a sorted array
+	 * @param excluded
+	 *            the element that should not be included into the result
+	 * @param size
+	 *            the number of elements in the result, e.g., computed using
+	 *            {@link #unionSize(int[], int[])}
+	 * @return the sorted array containing all elements of the given arrays
+	 *         except for the excluded one
+	 */
+	static int[] union(int[] first, int[] second, int excluded, int size) {
+		if (size == 0) {
+			return NO_IDS_;
+		}
+		// else
+		int[] result = new int[size];
+		int i = 0;
+		int j = 0;
+		int pos = 0;
+		for (;;) {
+			int next;
+			if (i < first.length) {
+				if (j < second.length) {
+					int x = first[i];
+					int y = second[j];
+					if (x <= y) {
+						i++;
+					}
+					if (y <= x) {
+						j++;
+					}
+					next = x < y ? x : y;
+				} else {
+					next = first[i++];
+				}
+			} else if (j < second.length) {
+				next = second[j++];
+			} else {
+				return result;
+			}
+			if (next != excluded) {
+				result[pos++] = next;
+			}
+		}
+	}
+
 	static int[] union(int[] first, int[] second) {
 		int[] tmp = new int[first.length + second.length];
 		int i = 0;
@@ -187,4 +302,96 @@ public class SortedIdSet<E> extends AbstractSet<E>
 		return Arrays.copyOf(tmp, pos);
 	}
 
+	/**
+	 * @param ids
+	 *            a sorted array
+	 * @param id
+	 * @return the sorted array containing the elements of the given array and
+	 *         the given element; if the element is already in the array, the
+	 *         given array is returned
+	 */
+	static int[] add(int[] ids, int id) {
+		int pos = Arrays.binarySearch(ids, id);
+		if (pos >= 0) {
+			return ids;
+		}
+		// else
+		pos = -pos - 1;
+		int[] result = new int[ids.length + 1];
+		System.arraycopy(ids, 0, result, 0, pos);
+		result[pos] = id;
+		System.arraycopy(ids, pos, result, pos + 1, ids.length - pos);
+		return result;
+	}
+
+	/**
+	 * @param first
+	 *            a sorted array
+	 * @param second
+	 *            a sorted array
+	 * @return {@code true} if the arrays have a common element
+	 */
+	static boolean intersects(int[] first, int[] second) {
+		int i = 0;
+		int j = 0;
+		while (i < first.length && j < second.length) {
+			int x = first[i];
+			int y = second[j];
+			if (x == y) {
+				return true;
+			}
+			// else
+			if (x < y) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the given array of ids so that it can be read back using
+	 * {@link #readIds(DataInput)}
+	 * 
+	 * @param ids
+	 * @param out
+	 * @throws IOException
+	 */
+	static void writeIds(int[] ids, DataOutput out) throws IOException {
+		out.writeInt(ids.length);
+		for (int id : ids) {
+			out.writeInt(id);
+		}
+	}
+
+	/**
+	 * @param in
+	 * @return the array of ids written using
+	 *         {@link #writeIds(int[], DataOutput)}
+	 * @throws IOException
+	 *             if the input cannot be read or does not contain a sorted
+	 *             array of distinct ids
+	 */
+	static int[] readIds(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Invalid number of ids: " + length);
+		}
+		// else
+		if (length == 0) {
+			return NO_IDS_;
+		}
+		// else
+		int[] result = new int[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = in.readInt();
+			if (i > 0 && result[i] <= result[i - 1]) {
+				throw new IOException("Ids are not sorted: " + result[i - 1]
+						+ ", " + result[i]);
+			}
+		}
+		return result;
+	}
+
 }
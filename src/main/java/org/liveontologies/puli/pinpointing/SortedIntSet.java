@@ -27,9 +27,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 
+import org.liveontologies.puli.collections.SortedIntCollection;
+
 import com.google.common.primitives.Ints;
 
-public class SortedIntSet extends AbstractSet<Integer> {
+public class SortedIntSet extends AbstractSet<Integer>
+		implements SortedIntCollection {
+
+	private static final SortedIntSet EMPTY_ = new SortedIntSet(
+			SortedIdSet.NO_IDS_);
 
 	private final int[] elements_; // sorted!
 
@@ -37,10 +43,84 @@ public class SortedIntSet extends AbstractSet<Integer> {
 		this.elements_ = elements;
 	}
 
+	/**
+	 * @return the empty set
+	 */
+	static SortedIntSet empty() {
+		return EMPTY_;
+	}
+
 	int[] getElements() {
 		return elements_;
 	}
 
+	/**
+	 * @param element
+	 * @return the set containing the elements of this set and the given
+	 *         element; if the element is already in this set, this set is
+	 *         returned
+	 */
+	SortedIntSet with(int element) {
+		int[] elements = SortedIdSet.add(elements_, element);
+		return elements == elements_ ? this : new SortedIntSet(elements);
+	}
+
+	/**
+	 * @param elements
+	 *            a sorted array
+	 * @return the set containing the elements of this set and the given
+	 *         elements; if all of them are already in this set, this set is
+	 *         returned
+	 */
+	SortedIntSet withAll(int[] elements) {
+		int[] union = SortedIdSet.union(elements_, elements);
+		return union == elements_ ? this : new SortedIntSet(union);
+	}
+
+	/**
+	 * @param elements
+	 *            the sorted array containing the elements to remove
+	 * @param count
+	 *            the number of the first elements in the array to remove
+	 * @return the set containing the elements of this set except for the
+	 *         given ones; if none of them is in this set, this set is
+	 *         returned
+	 */
+	SortedIntSet without(int[] elements, int count) {
+		int[] result = null;
+		int size = 0;
+		for (int i = 0; i < elements_.length; i++) {
+			int element = elements_[i];
+			if (Arrays.binarySearch(elements, 0, count, element) < 0) {
+				if (result != null) {
+					result[size] = element;
+				}
+				size++;
+			} else if (result == null) {
+				result = Arrays.copyOf(elements_, elements_.length - 1);
+			}
+		}
+		if (result == null) {
+			return this;
+		}
+		// else
+		if (size == 0) {
+			return EMPTY_;
+		}
+		// else
+		return new SortedIntSet(
+				size == result.length ? result : Arrays.copyOf(result, size));
+	}
+
+	/**
+	 * {@inheritDoc} The returned array is the one backing this set, so
+	 * modifying it breaks this set and every set sharing the array.
+	 */
+	@Override
+	public int[] getSortedElements() {
+		return elements_;
+	}
+
 	@Override
 	public boolean contains(Object o) {
 		if (o instanceof Integer) {
@@ -0,0 +1,480 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A priority queue that keeps at most the given number of elements in memory.
+ * When this number is exceeded, the elements with the lowest priority (i.e.,
+ * the largest according to the comparator) are written to a sorted run file.
+ * The run files are merged lazily with the elements in memory when elements
+ * are polled, so the elements are still returned in the order defined by the
+ * comparator. The elements read from the files are new objects equal to the
+ * written ones according to the {@link Codec}. When the number of runs that
+ * are not completely read reaches the given limit, some of them are merged
+ * into one run, so that the number of open files stays bounded. The runs are
+ * merged in tiers: every run has a level, which is {@code 0} for the runs of
+ * spilled elements, and the runs of the lowest level that has several runs
+ * are merged into a run of the next level. Thus every element is rewritten at
+ * most once per level, and the number of levels grows logarithmically with
+ * the number of spilled elements.
+ * <p>
+ * The temporary files are deleted when they are read completely or when
+ * {@link #dispose()} is called.
+ *
+ * @param <E>
+ *            the type of elements in this queue
+ */
+class SpillingPriorityQueue<E> extends AbstractQueue<E> {
+
+	/**
+	 * the size of buffers used for reading and writing runs
+	 */
+	private final static int BUFFER_SIZE_ = 1 << 12;
+
+	/**
+	 * the default maximal number of runs that are not completely read
+	 */
+	private final static int MAX_RUN_COUNT_ = 32;
+
+	private final Comparator<? super E> comparator_;
+
+	/**
+	 * the maximal number of elements kept in {@link #inMemory_}
+	 */
+	private final int maxInMemoryCount_;
+
+	/**
+	 * the maximal number of elements in {@link #runs_}
+	 */
+	private final int maxRunCount_;
+
+	/**
+	 * the directory where the runs are created or {@code null} if the default
+	 * temporary-file directory should be used
+	 */
+	private final File directory_;
+
+	private final Codec<E> codec_;
+
+	private final PriorityQueue<E> inMemory_;
+
+	/**
+	 * the runs that are not yet completely read ordered by their first
+	 * elements
+	 */
+	private final PriorityQueue<Run> runs_;
+
+	private int size_ = 0;
+
+	// Statistics
+	private int spilledCount_ = 0, mergedCount_ = 0;
+
+	SpillingPriorityQueue(Comparator<? super E> comparator,
+			int maxInMemoryCount, File directory, Codec<E> codec) {
+		this(comparator, maxInMemoryCount, MAX_RUN_COUNT_, directory, codec);
+	}
+
+	SpillingPriorityQueue(Comparator<? super E> comparator,
+			int maxInMemoryCount, int maxRunCount, File directory,
+			Codec<E> codec) {
+		if (maxInMemoryCount < 2) {
+			throw new IllegalArgumentException(
+					"Maximal number of elements in memory must be at least 2: "
+							+ maxInMemoryCount);
+		}
+		if (maxRunCount < 2) {
+			throw new IllegalArgumentException(
+					"Maximal number of runs must be at least 2: "
+							+ maxRunCount);
+		}
+		this.comparator_ = comparator;
+		this.maxInMemoryCount_ = maxInMemoryCount;
+		this.maxRunCount_ = maxRunCount;
+		this.directory_ = directory;
+		this.codec_ = codec;
+		this.inMemory_ = new PriorityQueue<E>(256, comparator);
+		this.runs_ = new PriorityQueue<Run>(16, new Comparator<Run>() {
+
+			@Override
+			public int compare(Run first, Run second) {
+				return comparator_.compare(first.head_, second.head_);
+			}
+
+		});
+	}
+
+	@Override
+	public boolean offer(E e) {
+		inMemory_.add(e);
+		size_++;
+		if (inMemory_.size() > maxInMemoryCount_) {
+			spill();
+		}
+		return true;
+	}
+
+	@Override
+	public E poll() {
+		Run run = runs_.peek();
+		if (run == null || !inMemory_.isEmpty()
+				&& comparator_.compare(inMemory_.peek(), run.head_) <= 0) {
+			E result = inMemory_.poll();
+			if (result != null) {
+				size_--;
+			}
+			return result;
+		}
+		// else take the element from the run
+		runs_.poll();
+		E result = run.head_;
+		if (run.advance()) {
+			runs_.add(run);
+		}
+		size_--;
+		return result;
+	}
+
+	@Override
+	public E peek() {
+		Run run = runs_.peek();
+		if (run == null || !inMemory_.isEmpty()
+				&& comparator_.compare(inMemory_.peek(), run.head_) <= 0) {
+			return inMemory_.peek();
+		}
+		// else
+		return run.head_;
+	}
+
+	@Override
+	public int size() {
+		return size_;
+	}
+
+	/**
+	 * @return the number of elements that were written to disk so far
+	 */
+	int getSpilledCount() {
+		return spilledCount_;
+	}
+
+	/**
+	 * @return the number of elements that were written to disk when merging
+	 *         runs so far
+	 */
+	int getMergedCount() {
+		return mergedCount_;
+	}
+
+	/**
+	 * @return the number of runs that are not completely read
+	 */
+	int getRunCount() {
+		return runs_.size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		throw new UnsupportedOperationException(
+				"Spilled elements cannot be iterated");
+	}
+
+	/**
+	 * Deletes all temporary files created by this queue; the queue should not
+	 * be used afterwards
+	 */
+	void dispose() {
+		for (Run run : runs_) {
+			run.close();
+		}
+		runs_.clear();
+		inMemory_.clear();
+		size_ = 0;
+	}
+
+	/**
+	 * Writes the half of elements with the lowest priority to a new run; only
+	 * the written elements are sorted
+	 */
+	private void spill() {
+		@SuppressWarnings("unchecked")
+		E[] elements = (E[]) inMemory_.toArray();
+		inMemory_.clear();
+		int kept = maxInMemoryCount_ / 2;
+		select(elements, kept, comparator_);
+		for (int i = 0; i < kept; i++) {
+			inMemory_.add(elements[i]);
+		}
+		List<E> spilled = Arrays.asList(elements).subList(kept,
+				elements.length);
+		Collections.sort(spilled, comparator_);
+		try {
+			if (runs_.size() >= maxRunCount_ - 1) {
+				mergeRuns();
+			}
+			writeRun(0, spilled.iterator());
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot write elements to disk", e);
+		}
+		spilledCount_ += spilled.size();
+	}
+
+	/**
+	 * Rearranges the given elements so that the first {@code k} of them are
+	 * not greater than the remaining ones according to the given comparator;
+	 * takes linear time on average
+	 * 
+	 * @param elements
+	 * @param k
+	 * @param comparator
+	 */
+	static <E> void select(E[] elements, int k,
+			Comparator<? super E> comparator) {
+		int from = 0, to = elements.length - 1;
+		while (from < to) {
+			E pivot = elements[(from + to) >>> 1];
+			int i = from, j = to;
+			while (i <= j) {
+				while (comparator.compare(elements[i], pivot) < 0) {
+					i++;
+				}
+				while (comparator.compare(elements[j], pivot) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					E tmp = elements[i];
+					elements[i++] = elements[j];
+					elements[j--] = tmp;
+				}
+			}
+			// the elements in [from, j] are not greater than the elements in
+			// [i, to], and the elements between them are equal to the pivot
+			if (k <= j) {
+				to = j;
+			} else if (k >= i) {
+				from = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the runs of the lowest level that has several runs by one run
+	 * of the next level; if every level has at most one run, the two runs
+	 * with the lowest levels are merged
+	 * 
+	 * @throws IOException
+	 */
+	private void mergeRuns() throws IOException {
+		List<Run> runs = new ArrayList<Run>(runs_);
+		Collections.sort(runs, new Comparator<Run>() {
+
+			@Override
+			public int compare(Run first, Run second) {
+				return first.level_ - second.level_;
+			}
+
+		});
+		// the runs with indexes from (inclusive) to (exclusive) are merged
+		int from = 0, to;
+		for (;;) {
+			to = from + 1;
+			while (to < runs.size()
+					&& runs.get(to).level_ == runs.get(from).level_) {
+				to++;
+			}
+			if (to - from > 1) {
+				break;
+			}
+			// else
+			if (to == runs.size()) {
+				from = 0;
+				to = 2;
+				break;
+			}
+			// else
+			from = to;
+		}
+		final PriorityQueue<Run> merged = new PriorityQueue<Run>(16,
+				runs_.comparator());
+		for (Run run : runs.subList(from, to)) {
+			runs_.remove(run);
+			merged.add(run);
+		}
+		writeRun(runs.get(to - 1).level_ + 1, new Iterator<E>() {
+
+			@Override
+			public boolean hasNext() {
+				return !merged.isEmpty();
+			}
+
+			@Override
+			public E next() {
+				Run run = merged.poll();
+				E result = run.head_;
+				if (run.advance()) {
+					merged.add(run);
+				}
+				mergedCount_++;
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		});
+	}
+
+	/**
+	 * Writes the given sorted elements to a new run
+	 * 
+	 * @param level
+	 *            the level of the new run
+	 * @param elements
+	 * @throws IOException
+	 */
+	private void writeRun(int level, Iterator<E> elements)
+			throws IOException {
+		File file = File.createTempFile("puli-queue", ".run", directory_);
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file),
+							BUFFER_SIZE_));
+			try {
+				while (elements.hasNext()) {
+					codec_.write(elements.next(), out);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+		Run run = new Run(file, level);
+		if (run.advance()) {
+			runs_.add(run);
+		}
+	}
+
+	/**
+	 * A sorted sequence of elements stored in a file
+	 */
+	private class Run {
+
+		private final File file_;
+
+		private final DataInputStream in_;
+
+		/**
+		 * the next element of this run that was not yet polled
+		 */
+		E head_;
+
+		/**
+		 * the tier of this run, see {@link SpillingPriorityQueue}
+		 */
+		private final int level_;
+
+		Run(File file, int level) throws IOException {
+			this.file_ = file;
+			this.level_ = level;
+			this.in_ = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file), BUFFER_SIZE_));
+		}
+
+		/**
+		 * Reads the next element to {@link #head_}
+		 * 
+		 * @return {@code true} if the element was read and {@code false} if
+		 *         there are no elements left, in which case the run is closed
+		 */
+		boolean advance() {
+			try {
+				head_ = codec_.read(in_);
+				return true;
+			} catch (EOFException e) {
+				close();
+				return false;
+			} catch (IOException e) {
+				close();
+				throw new RuntimeException("Cannot read elements from disk",
+						e);
+			}
+		}
+
+		void close() {
+			head_ = null;
+			try {
+				in_.close();
+			} catch (IOException e) {
+				// the file is deleted anyway
+			}
+			file_.delete();
+		}
+
+	}
+
+	/**
+	 * Converts elements of the queue to binary form and back
+	 *
+	 * @param <E>
+	 *            the type of converted elements
+	 */
+	interface Codec<E> {
+
+		void write(E element, DataOutput out) throws IOException;
+
+		/**
+		 * @param in
+		 * @return the next element read from the input
+		 * @throws EOFException
+		 *             if there are no more elements in the input
+		 * @throws IOException
+		 */
+		E read(DataInput in) throws IOException;
+
+	}
+
+}
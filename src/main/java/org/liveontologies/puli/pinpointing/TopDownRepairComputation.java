@@ -22,28 +22,40 @@
 package org.liveontologies.puli.pinpointing;
 
 import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-import org.liveontologies.puli.Delegator;
 import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.collections.BloomFilteredCollection;
 import org.liveontologies.puli.collections.BloomTrieCollection2;
 import org.liveontologies.puli.collections.Collection2;
+import org.liveontologies.puli.collections.ConcurrentBloomTrieCollection2;
 import org.liveontologies.puli.statistics.NestedStats;
 import org.liveontologies.puli.statistics.ResetStats;
 import org.liveontologies.puli.statistics.Stat;
 
-import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterators;
+import com.google.common.primitives.Ints;
 
 /**
  * 
@@ -59,27 +71,187 @@ import com.google.common.collect.Iterators;
 public class TopDownRepairComputation<C, I extends Inference<? extends C>, A>
 		extends MinimalSubsetsFromProofs<C, I, A> {
 
-	private static final TopDownRepairComputation.Factory<?, ?, ?> FACTORY_ = new Factory<Object, Inference<?>, Object>();
+	private static final TopDownRepairComputation.Factory<?, ?, ?> FACTORY_ = new Factory<Object, Inference<?>, Object>(
+			1, false);
+
+	/**
+	 * the longest time for which the enumeration waits for the jobs processed
+	 * in parallel without waking up
+	 */
+	private static final long WAIT_TIMEOUT_MS_ = 100;
 
 	@SuppressWarnings("unchecked")
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
 		return (Factory<C, I, A>) FACTORY_;
 	}
 
+	/**
+	 * @param workerCount
+	 *            the number of threads used for processing the jobs; if it is
+	 *            greater than one, the jobs with the same priority are
+	 *            processed in parallel by a {@link ForkJoinPool}, and the
+	 *            repairs found for this priority are reported after all of
+	 *            them are processed; the number should not exceed the
+	 *            number of available processors since additional workers
+	 *            only add overhead
+	 * @return the factory creating the computations that use the given
+	 *         number of threads
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final int workerCount) {
+		return getFactory(workerCount, false);
+	}
+
+	/**
+	 * @param workerCount
+	 *            the number of threads used for processing the jobs, see
+	 *            {@link #getFactory(int)}
+	 * @param costHeuristic
+	 *            if {@code true} and the repairs are enumerated using a
+	 *            {@link WeightedPriorityComparator}, the jobs are processed
+	 *            in the order of the weights of their repairs plus a lower
+	 *            bound on the weights of the axioms that still need to be
+	 *            added to these repairs, like in the A* search; the repairs
+	 *            are enumerated in the same order, but the jobs that cannot
+	 *            result in cheaper repairs are processed later and, when the
+	 *            repairs are bounded, not produced at all
+	 * @return the factory creating the computations with the given
+	 *         parameters
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final int workerCount, final boolean costHeuristic) {
+		Preconditions.checkArgument(workerCount > 0,
+				"The number of workers must be positive: %s", workerCount);
+		if (workerCount == 1 && !costHeuristic) {
+			return getFactory();
+		}
+		// else
+		return new Factory<C, I, A>(workerCount, costHeuristic);
+	}
+
+	/**
+	 * the number of threads used for processing jobs
+	 */
+	private final int workerCount_;
+
+	/**
+	 * whether the jobs are ordered using a lower bound on the weights of the
+	 * axioms to be added to their repairs
+	 */
+	private final boolean costHeuristic_;
+
+	private final IdMap<Object> conclusionIds_ = HashIdMap.create();
+
+	private final HashIdMap<A> axiomIds_ = new HashIdMap<A>();
+
+	private final IdMap<I> inferenceIds_ = HashIdMap.create();
+
+	/**
+	 * the sorted ids of the inferences of the conclusions, indexed by the ids
+	 * of these conclusions
+	 */
+	private final IntHashMap<int[]> inferenceIdsByConclusionIds_ = new IntHashMap<int[]>();
+
+	/**
+	 * the sorted ids of the premises and of the justifications of the
+	 * inferences, indexed by the ids of these inferences
+	 */
+	private final List<int[]> premiseIds_ = new ArrayList<int[]>(),
+			justificationIds_ = new ArrayList<int[]>();
+
+	/**
+	 * the sorted ids of the inferences obtained using
+	 * {@link #getInferenceIds(int)} that use the conclusions as premises,
+	 * respectively, the axioms in justifications, indexed by the ids of these
+	 * conclusions, respectively, axioms
+	 */
+	private final IntHashMap<IdList> premiseUsers_ = new IntHashMap<IdList>(),
+			axiomUsers_ = new IntHashMap<IdList>();
+
 	// Statistics
 	private int producedJobsCount_ = 0;
 
 	private TopDownRepairComputation(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor) {
+			final InterruptMonitor monitor, final int workerCount,
+			final boolean costHeuristic) {
 		super(proof, justifier, monitor);
+		this.workerCount_ = workerCount;
+		this.costHeuristic_ = costHeuristic;
 	}
 
 	@Override
-	public MinimalSubsetEnumerator<A> newEnumerator(final Object query) {
+	public BoundedMinimalSubsetEnumerator<A> newEnumerator(final Object query) {
 		return new Enumerator(query);
 	}
 
+	/**
+	 * @param conclusionId
+	 * @return the sorted ids of the inferences of the conclusion with the
+	 *         given id; the ids of their premises and justifications can be
+	 *         obtained using {@link #premiseIds_} and
+	 *         {@link #justificationIds_}
+	 */
+	private int[] getInferenceIds(final int conclusionId) {
+		int[] result = inferenceIdsByConclusionIds_.get(conclusionId);
+		if (result != null) {
+			return result;
+		}
+		// else
+		final Collection<? extends I> inferences = getProof()
+				.getInferences(conclusionIds_.getElement(conclusionId));
+		result = new int[inferences.size()];
+		int pos = 0;
+		for (final I inf : inferences) {
+			final int id = inferenceIds_.getId(inf);
+			if (id == premiseIds_.size()) {
+				final int[] premiseIds = SortedIdSet.getIds(inf.getPremises(),
+						conclusionIds_);
+				final int[] axiomIds = SortedIdSet
+						.getIds(getJustification(inf), axiomIds_);
+				premiseIds_.add(premiseIds);
+				justificationIds_.add(axiomIds);
+				// the ids are added in the increasing order
+				for (final int premiseId : premiseIds) {
+					IdList.add(premiseUsers_, premiseId, id);
+				}
+				for (final int axiomId : axiomIds) {
+					IdList.add(axiomUsers_, axiomId, id);
+				}
+			}
+			result[pos++] = id;
+		}
+		result = SortedIdSet.getIds(Ints.asList(result));
+		inferenceIdsByConclusionIds_.put(conclusionId, result);
+		return result;
+	}
+
+	/**
+	 * Computes the ids of all inferences used in the proof of the conclusion
+	 * with the given id, so that {@link #getInferenceIds(int)} does not
+	 * modify anything when called afterwards for the conclusions of this
+	 * proof, and thus, can be called from several threads
+	 * 
+	 * @param conclusionId
+	 */
+	private void loadInferenceIds(final int conclusionId) {
+		final IntHashMap<Boolean> visited = new IntHashMap<Boolean>();
+		final List<Integer> toVisit = new ArrayList<Integer>();
+		visited.put(conclusionId, true);
+		toVisit.add(conclusionId);
+		while (!toVisit.isEmpty()) {
+			final int next = toVisit.remove(toVisit.size() - 1);
+			for (final int infId : getInferenceIds(next)) {
+				for (final int premiseId : premiseIds_.get(infId)) {
+					if (visited.get(premiseId) == null) {
+						visited.put(premiseId, true);
+						toVisit.add(premiseId);
+					}
+				}
+			}
+		}
+	}
+
 	private class Enumerator extends AbstractMinimalSubsetEnumerator<A> {
 
 		private final Object query_;
@@ -87,24 +259,63 @@ public class TopDownRepairComputation<C, I extends Inference<? extends C>, A>
 		/**
 		 * jobs to be processed
 		 */
-		private Queue<JobFactory<I, A, ?>.Job> toDoJobs_;
+		private Queue<JobFactory<?>.Job> toDoJobs_;
+
+		/**
+		 * Used to collect the result and prune jobs; a
+		 * {@link ConcurrentBloomTrieCollection2} when the jobs are processed
+		 * in parallel
+		 */
+		private final Collection2<SortedIntSet> minimalRepairs_;
+
+		/**
+		 * Used to filter out redundant jobs; a
+		 * {@link ConcurrentBloomTrieCollection2} when the jobs are processed
+		 * in parallel
+		 */
+		private final Collection2<JobFactory<?>.Job> minimalJobs_;
 
 		/**
-		 * Used to collect the result and prune jobs
+		 * the jobs produced by the last processed job
 		 */
-		private final Collection2<Set<A>> minimalRepairs_ = new BloomTrieCollection2<Set<A>>();
+		private final List<JobFactory<?>.Job> producedJobs_ = new ArrayList<JobFactory<?>.Job>();
 
 		/**
-		 * Used to filter out redundant jobs
+		 * the repairs found by processing jobs in parallel that are not
+		 * reported yet
 		 */
-		private final Collection2<JobFactory<I, A, ?>.Job> minimalJobs_ = new BloomTrieCollection2<JobFactory<I, A, ?>.Job>();
+		private final Queue<SortedIntSet> foundRepairs_ = new ArrayDeque<SortedIntSet>();
+
+		/**
+		 * the pool for processing jobs in parallel or {@code null} if it is
+		 * not created yet
+		 */
+		private ForkJoinPool pool_ = null;
 
 		private Listener<A> listener_ = null;
 
-		private JobFactory<I, A, ?> jobFactory_ = null;
+		private JobFactory<?> jobFactory_ = null;
+
+		/**
+		 * the maximal number of repairs to report
+		 */
+		private int limit_ = Integer.MAX_VALUE;
+
+		/**
+		 * how the enumeration has finished or {@code null} if it is not
+		 * finished yet
+		 */
+		private EnumerationStatus status_ = null;
 
 		Enumerator(final Object query) {
 			this.query_ = query;
+			if (workerCount_ == 1) {
+				this.minimalRepairs_ = new BloomTrieCollection2<SortedIntSet>();
+				this.minimalJobs_ = new BloomTrieCollection2<JobFactory<?>.Job>();
+			} else {
+				this.minimalRepairs_ = new ConcurrentBloomTrieCollection2<SortedIntSet>();
+				this.minimalJobs_ = new ConcurrentBloomTrieCollection2<JobFactory<?>.Job>();
+			}
 		}
 
 		@Override
@@ -116,231 +327,852 @@ public class TopDownRepairComputation<C, I extends Inference<? extends C>, A>
 				return;
 			}
 			// else
+			enumerate(listener, priorityComparator, null, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public <P> void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, P> priorityComparator,
+				final P bound, final int limit) {
+			Preconditions.checkNotNull(listener);
+			Preconditions.checkNotNull(priorityComparator);
+			Preconditions.checkArgument(limit > 0,
+					"The limit must be positive: %s", limit);
 			this.listener_ = listener;
-			this.jobFactory_ = JobFactory.create(getProof(),
-					getInferenceJustifier(), priorityComparator);
-			this.toDoJobs_ = new PriorityQueue<JobFactory<I, A, ?>.Job>();
+			this.limit_ = limit;
+			start(priorityComparator, bound);
+			final int repairCount = process();
+			final int unprocessedCount = toDoJobs_.size();
+			toDoJobs_.clear();
+			foundRepairs_.clear();
+			dispose();
+			notifyFinished(listener, new EnumerationResult(status_,
+					repairCount, unprocessedCount, 0));
+
+			this.listener_ = null;
+		}
+
+		@Override
+		public MinimalSubsetCursor<A> newCursor(
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(priorityComparator);
+			start(priorityComparator, null);
+			return new MinimalSubsetCursor<A>() {
+
+				/**
+				 * the repair to be returned next or {@code null} if it is not
+				 * computed yet
+				 */
+				private Set<A> next_ = null;
+
+				private boolean finished_ = false;
+
+				@Override
+				public boolean hasNext() {
+					if (next_ == null && !finished_) {
+						next_ = processNext();
+						finished_ = next_ == null;
+						if (finished_) {
+							dispose();
+						}
+					}
+					return next_ != null;
+				}
+
+				@Override
+				public Set<A> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					// else
+					final Set<A> result = next_;
+					next_ = null;
+					return result;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() {
+					next_ = null;
+					finished_ = true;
+					toDoJobs_.clear();
+					foundRepairs_.clear();
+					dispose();
+				}
+
+			};
+		}
+
+		private <P> void start(
+				final PriorityComparator<? super Set<A>, P> priorityComparator,
+				final P bound) {
+			this.jobFactory_ = new JobFactory<P>(priorityComparator, bound);
+			this.toDoJobs_ = new PriorityQueue<JobFactory<?>.Job>();
+			this.minimalJobs_.clear();
 			this.minimalRepairs_.clear();
+			this.foundRepairs_.clear();
+			this.status_ = null;
 
 			initialize(query_);
-			process();
-
-			this.listener_ = null;
 		}
 
 		private void initialize(final Object goal) {
-			produce(jobFactory_.newJob(goal));
+			final int goalId = conclusionIds_.getId(goal);
+			if (workerCount_ > 1) {
+				// the jobs processed in parallel can only read the ids
+				loadInferenceIds(goalId);
+				jobFactory_.priorityFunction_.prepare(axiomIds_.size());
+			}
+			produce(jobFactory_.newJob(goalId));
+		}
+
+		/**
+		 * Releases the resources used for processing jobs in parallel
+		 */
+		private void dispose() {
+			if (pool_ != null) {
+				pool_.shutdownNow();
+				pool_ = null;
+			}
+		}
+
+		/**
+		 * @return the number of reported repairs
+		 */
+		private int process() {
+			int repairCount = 0;
+			for (; repairCount < limit_; repairCount++) {
+				final Set<A> repair = processNext();
+				if (repair == null) {
+					return repairCount;
+				}
+				// else
+				if (listener_ != null) {
+					listener_.newMinimalSubset(repair);
+				}
+			}
+			status_ = EnumerationStatus.LIMIT_REACHED;
+			return repairCount;
 		}
 
-		private void process() {
+		/**
+		 * Processes the jobs until a new repair is found
+		 * 
+		 * @return the new repair or {@code null} if all repairs have been
+		 *         found or the computation was interrupted
+		 */
+		private Set<A> processNext() {
+			if (workerCount_ > 1) {
+				return processNextInParallel();
+			}
+			// else
 			for (;;) {
 				if (isInterrupted()) {
-					break;
+					status_ = getInterruptionStatus();
+					return null;
 				}
-				final JobFactory<I, A, ?>.Job job = toDoJobs_.poll();
+				final JobFactory<?>.Job job = toDoJobs_.poll();
 				if (job == null) {
-					break;
+					status_ = EnumerationStatus.COMPLETE;
+					return null;
 				}
 				// else
-				if (!minimalRepairs_.isMinimal(job.repair_)) {
-					continue;
+				final SortedIntSet repair = expand(job, producedJobs_);
+				for (final JobFactory<?>.Job produced : producedJobs_) {
+					producedJobsCount_++;
+					toDoJobs_.add(produced);
+				}
+				producedJobs_.clear();
+				if (repair != null) {
+					addIfMinimal(minimalRepairs_, repair);
+					return new SortedIdSet<A>(repair.getElements(), axiomIds_);
+				}
+			}
+		}
+
+		/**
+		 * Processes the jobs with the smallest priority in parallel until
+		 * some new repairs are found; the repairs found for the same priority
+		 * are returned one by one
+		 * 
+		 * @return the new repair or {@code null} if all repairs have been
+		 *         found or the computation was interrupted
+		 */
+		private Set<A> processNextInParallel() {
+			for (;;) {
+				final SortedIntSet found = foundRepairs_.poll();
+				if (found != null) {
+					return new SortedIdSet<A>(found.getElements(), axiomIds_);
 				}
 				// else
-				if (!minimalJobs_.isMinimal(job)) {
-					continue;
+				if (isInterrupted()) {
+					status_ = getInterruptionStatus();
+					return null;
+				}
+				final JobFactory<?>.Job first = toDoJobs_.poll();
+				if (first == null) {
+					status_ = EnumerationStatus.COMPLETE;
+					return null;
 				}
 				// else
-				minimalJobs_.add(job);
-				final I nextToBreak = chooseToBreak(job.toBreak_);
-				if (nextToBreak == null) {
-					minimalRepairs_.add(job.repair_);
-					if (listener_ != null) {
-						listener_.newMinimalSubset(job.repair_);
+				final ForkJoinPool pool = getPool();
+				final Wave wave = new Wave(first);
+				wave.submit(pool, first);
+				for (;;) {
+					final JobFactory<?>.Job next = toDoJobs_.peek();
+					if (next == null || !next.hasSamePriority(first)) {
+						break;
 					}
-					continue;
+					// else
+					wave.submit(pool, toDoJobs_.poll());
 				}
-				for (Object premise : nextToBreak.getPremises()) {
-					produce(jobFactory_.doBreak(job.repair_, job.toBreak_,
-							job.broken_, premise));
+				wave.await();
+				producedJobsCount_ += wave.producedJobsCount_.get();
+				toDoJobs_.addAll(wave.postponedJobs_);
+				if (wave.threadInterrupted_) {
+					Thread.currentThread().interrupt();
+					status_ = EnumerationStatus.INTERRUPTED;
+					return null;
 				}
-				for (A axiom : getJustification(nextToBreak)) {
-					produce(jobFactory_.repair(job.repair_, job.toBreak_,
-							job.broken_, axiom));
+				// else
+				final List<SortedIntSet> repairs = new ArrayList<SortedIntSet>(
+						wave.repairs_);
+				Collections.sort(repairs, REPAIR_SIZE_COMPARATOR_);
+				for (final SortedIntSet repair : repairs) {
+					if (hasProperSubset(repair)) {
+						// a smaller repair was found later in the same wave
+						minimalRepairs_.remove(repair);
+					} else {
+						foundRepairs_.add(repair);
+					}
 				}
 			}
 		}
 
-		private I chooseToBreak(final Collection<I> inferences) {
-			// select the smallest conclusion according to the comparator
-			I result = null;
-			for (I inf : inferences) {
-				if (result == null
-						|| inferenceComparator.compare(inf, result) < 0) {
-					result = inf;
+		/**
+		 * @param repair
+		 *            a repair in {@link #minimalRepairs_}
+		 * @return {@code true} if {@link #minimalRepairs_} contains a proper
+		 *         subset of the given repair
+		 */
+		private boolean hasProperSubset(final SortedIntSet repair) {
+			for (final SortedIntSet other : minimalRepairs_
+					.subCollectionsOf(repair)) {
+				if (other != repair) {
+					return true;
+				}
+			}
+			// else
+			return false;
+		}
+
+		private ForkJoinPool getPool() {
+			if (pool_ == null) {
+				pool_ = new ForkJoinPool(workerCount_);
+			}
+			return pool_;
+		}
+
+		/**
+		 * Processes the given job: if the job is not redundant, either
+		 * produces the jobs for breaking one of its inferences or, if there
+		 * are no inferences to break, returns its repair
+		 * 
+		 * @param job
+		 * @param produced
+		 *            the collection to which the produced jobs within the
+		 *            bound are added
+		 * @return the repair of the given job if it should be reported or
+		 *         {@code null} otherwise
+		 */
+		private SortedIntSet expand(final JobFactory<?>.Job job,
+				final Collection<JobFactory<?>.Job> produced) {
+			final SortedIntSet repair = new SortedIntSet(job.repairIds_);
+			if (!minimalRepairs_.isMinimal(repair)) {
+				return null;
+			}
+			// else
+			if (!addIfMinimal(minimalJobs_, job)) {
+				return null;
+			}
+			// else
+			final int nextToBreak = chooseToBreak(job.toBreak_);
+			if (nextToBreak < 0) {
+				return repair;
+			}
+			for (int premiseId : premiseIds_.get(nextToBreak)) {
+				addIfWithinBound(jobFactory_.doBreak(job.repairIds_,
+						job.toBreak_, job.broken_, premiseId), produced);
+			}
+			for (int axiomId : justificationIds_.get(nextToBreak)) {
+				addIfWithinBound(jobFactory_.repair(job.repairIds_,
+						job.toBreak_, job.broken_, axiomId), produced);
+			}
+			return null;
+		}
+
+		/**
+		 * Adds the given set to the given {@link Collection2} if it does not
+		 * contain a subset of this set; the check and the addition are atomic
+		 * if the jobs are processed in parallel
+		 * 
+		 * @param collection
+		 *            {@link #minimalJobs_} or {@link #minimalRepairs_}
+		 * @param set
+		 * @return {@code true} if the set was added
+		 */
+		private <S extends Collection<?>> boolean addIfMinimal(
+				final Collection2<S> collection, final S set) {
+			if (workerCount_ > 1) {
+				return ((ConcurrentBloomTrieCollection2<S>) collection)
+						.addIfMinimal(set);
+			}
+			// else
+			if (!collection.isMinimal(set)) {
+				return false;
+			}
+			// else
+			collection.add(set);
+			return true;
+		}
+
+		/**
+		 * @param inferenceIds
+		 * @return the id of the inference with the smallest number of
+		 *         premises and axioms among the inferences with the given ids
+		 *         or {@code -1} if there are no such inferences
+		 */
+		private int chooseToBreak(final SortedIntSet inferenceIds) {
+			int result = -1;
+			int resultSize = Integer.MAX_VALUE;
+			for (int id : inferenceIds.getElements()) {
+				int size = premiseIds_.get(id).length
+						+ justificationIds_.get(id).length;
+				if (size < resultSize) {
+					result = id;
+					resultSize = size;
 				}
 			}
 			return result;
 		}
 
-		private void produce(final JobFactory<I, A, ?>.Job job) {
+		private void produce(final JobFactory<?>.Job job) {
+			if (!job.isWithinBound()) {
+				// cannot result in repairs within the bound
+				return;
+			}
+			// else
 			producedJobsCount_++;
 			toDoJobs_.add(job);
 		}
 
-	}
+		private void addIfWithinBound(final JobFactory<?>.Job job,
+				final Collection<JobFactory<?>.Job> jobs) {
+			if (job.isWithinBound()) {
+				jobs.add(job);
+			}
+			// else cannot result in repairs within the bound
+		}
 
-	private static class JobFactory<I extends Inference<?>, A, P> {
+		/**
+		 * The jobs with the same priority processed in parallel; every job is
+		 * processed by a separate {@link JobTask}, which is forked but never
+		 * joined, so that the depth of the stack does not grow with the
+		 * length of the chains of jobs produced one from another
+		 */
+		private class Wave {
 
-		private final Proof<? extends I> proof_;
-		private final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier_;
-		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
+			/**
+			 * a job with the priority of this wave
+			 */
+			private final JobFactory<?>.Job first_;
 
-		public JobFactory(final Proof<? extends I> proof,
-				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-				final PriorityComparator<? super Set<A>, P> priorityComparator) {
-			this.proof_ = proof;
-			this.justifier_ = justifier;
-			this.priorityComparator_ = priorityComparator;
-		}
+			/**
+			 * the number of submitted tasks that are not finished yet plus
+			 * one until {@link #await()} is called, so that the tasks
+			 * finished during the submission do not release
+			 * {@link #finished_}
+			 */
+			private final AtomicInteger pendingTasksCount_ = new AtomicInteger(
+					1);
 
-		public static <I extends Inference<?>, A, P> JobFactory<I, A, P> create(
-				final Proof<? extends I> proof,
-				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-				final PriorityComparator<? super Set<A>, P> priorityComparator) {
-			return new JobFactory<I, A, P>(proof, justifier,
-					priorityComparator);
-		}
+			/**
+			 * released when all submitted tasks are finished
+			 */
+			private final CountDownLatch finished_ = new CountDownLatch(1);
+
+			/**
+			 * the first exception thrown by the tasks or {@code null} if
+			 * there is none
+			 */
+			private final AtomicReference<Throwable> failure_ = new AtomicReference<Throwable>();
+
+			/**
+			 * {@code true} if the thread waiting for this wave was
+			 * interrupted; then the tasks do not process their jobs anymore
+			 */
+			private volatile boolean threadInterrupted_ = false;
+
+			/**
+			 * the produced jobs that have a different priority, which are
+			 * processed in the next waves, and the jobs not processed due to
+			 * interruption
+			 */
+			private final Queue<JobFactory<?>.Job> postponedJobs_ = new ConcurrentLinkedQueue<JobFactory<?>.Job>();
+
+			private final Queue<SortedIntSet> repairs_ = new ConcurrentLinkedQueue<SortedIntSet>();
+
+			private final AtomicInteger producedJobsCount_ = new AtomicInteger();
+
+			Wave(final JobFactory<?>.Job first) {
+				this.first_ = first;
+			}
+
+			/**
+			 * Schedules the given job for processing in the given pool; must
+			 * be called from outside of the pool
+			 * 
+			 * @param pool
+			 * @param job
+			 */
+			void submit(final ForkJoinPool pool, final JobFactory<?>.Job job) {
+				pendingTasksCount_.incrementAndGet();
+				pool.execute(new JobTask(this, job));
+			}
+
+			/**
+			 * Schedules the given job for processing in the pool of the
+			 * current task
+			 * 
+			 * @param job
+			 */
+			void fork(final JobFactory<?>.Job job) {
+				pendingTasksCount_.incrementAndGet();
+				new JobTask(this, job).fork();
+			}
+
+			void taskFinished() {
+				if (pendingTasksCount_.decrementAndGet() == 0) {
+					finished_.countDown();
+				}
+			}
+
+			/**
+			 * @return {@code true} if the jobs of this wave should not be
+			 *         processed anymore, but postponed
+			 */
+			boolean isStopped() {
+				return threadInterrupted_ || isInterrupted();
+			}
+
+			/**
+			 * Waits until all submitted jobs and the jobs produced by them
+			 * with the same priority are processed or postponed; if the
+			 * current thread is interrupted, the remaining jobs are postponed
+			 * and {@link #threadInterrupted_} is set
+			 */
+			void await() {
+				taskFinished();
+				for (;;) {
+					try {
+						if (finished_.await(WAIT_TIMEOUT_MS_,
+								TimeUnit.MILLISECONDS)) {
+							break;
+						}
+					} catch (InterruptedException e) {
+						threadInterrupted_ = true;
+					}
+				}
+				final Throwable failure = failure_.get();
+				if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				}
+				// else
+				if (failure instanceof Error) {
+					throw (Error) failure;
+				}
+				// else
+				if (failure != null) {
+					throw new RuntimeException("Processing of a job failed",
+							failure);
+				}
+			}
 
-		public Job newJob(final Object conclusion) {
-			return doBreak(Collections.<A> emptySet(),
-					Collections.<I> emptySet(), Collections.<Object> emptySet(),
-					conclusion);
 		}
 
-		public Job doBreak(final Set<A> repair, final Collection<I> toBreak,
-				final Set<Object> broken, final Object conclusion) {
+		/**
+		 * Processes a job of a {@link Wave} and forks the tasks for the produced
+		 * jobs that have the same priority
+		 */
+		private class JobTask extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
 
-			final Set<A> newRepair = repair.isEmpty() ? new HashSet<A>(1)
-					: new HashSet<A>(repair);
-			final Set<I> newToBreak = toBreak.isEmpty() ? new HashSet<I>(3)
-					: new HashSet<I>(toBreak.size());
-			final Set<Object> newBroken = broken.isEmpty()
-					? new HashSet<Object>(1)
-					: new HashSet<Object>(broken);
+			private final Wave wave_;
+
+			private final JobFactory<?>.Job job_;
+
+			JobTask(final Wave wave, final JobFactory<?>.Job job) {
+				this.wave_ = wave;
+				this.job_ = job;
+			}
 
-			newBroken.add(conclusion);
-			for (final I inf : toBreak) {
-				if (!inf.getPremises().contains(conclusion)) {
-					newToBreak.add(inf);
+			@Override
+			protected void compute() {
+				try {
+					process();
+				} catch (Throwable e) {
+					wave_.failure_.compareAndSet(null, e);
+				} finally {
+					wave_.taskFinished();
 				}
 			}
-			infLoop: for (final I inf : proof_.getInferences(conclusion)) {
-				for (final Object premise : inf.getPremises()) {
-					if (broken.contains(premise)) {
-						continue infLoop;
+
+			private void process() {
+				if (wave_.isStopped()) {
+					wave_.postponedJobs_.add(job_);
+					return;
+				}
+				// else
+				final List<JobFactory<?>.Job> produced = new ArrayList<JobFactory<?>.Job>();
+				final SortedIntSet repair = expand(job_, produced);
+				if (repair != null) {
+					// prunes the remaining jobs of the wave immediately
+					if (addIfMinimal(minimalRepairs_, repair)) {
+						wave_.repairs_.add(repair);
 					}
+					return;
 				}
-				for (final A axiom : justifier_.getJustification(inf)) {
-					if (repair.contains(axiom)) {
-						continue infLoop;
+				// else
+				wave_.producedJobsCount_.addAndGet(produced.size());
+				final boolean stopped = wave_.isStopped();
+				for (final JobFactory<?>.Job job : produced) {
+					if (!stopped && job.hasSamePriority(wave_.first_)) {
+						wave_.fork(job);
+					} else {
+						wave_.postponedJobs_.add(job);
 					}
 				}
-				newToBreak.add(inf);
 			}
-			return new Job(newRepair, newToBreak, newBroken,
-					priorityComparator_.getPriority(newRepair));
+
 		}
 
-		public Job repair(final Set<A> repair, final Collection<I> toBreak,
-				final Set<Object> broken, final A axiom) {
+	}
 
-			final Set<A> newRepair = new HashSet<A>(repair);
-			final Set<I> newToBreak = new HashSet<I>(toBreak.size());
-			final Set<Object> newBroken = new HashSet<Object>(broken);
+	/**
+	 * orders repairs by their sizes
+	 */
+	private static final Comparator<SortedIntSet> REPAIR_SIZE_COMPARATOR_ = new Comparator<SortedIntSet>() {
+
+		@Override
+		public int compare(final SortedIntSet first,
+				final SortedIntSet second) {
+			return first.size() - second.size();
+		}
+
+	};
 
-			newRepair.add(axiom);
-			for (final I inf : toBreak) {
-				if (!justifier_.getJustification(inf).contains(axiom)) {
-					newToBreak.add(inf);
+	/**
+	 * Creates jobs represented by sorted arrays of ids of axioms, inferences
+	 * and conclusions
+	 *
+	 * @param <P>
+	 *            the type of priorities of repairs
+	 */
+	private class JobFactory<P> {
+
+		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
+		/**
+		 * computes the priorities of repairs from the ids of their axioms
+		 */
+		private final IdPriorityFunction<P> priorityFunction_;
+		/**
+		 * the maximal priority of the repairs to compute or {@code null} if
+		 * the priorities are not bounded
+		 */
+		private final P bound_;
+		/**
+		 * the weights of axioms used to estimate the weights of the repairs
+		 * obtained from jobs or {@code null} if the jobs are ordered by the
+		 * priorities of their repairs
+		 */
+		private final IdPriorityFunction.WeightedFunction<?> weights_;
+
+		JobFactory(
+				final PriorityComparator<? super Set<A>, P> priorityComparator,
+				final P bound) {
+			this.priorityComparator_ = priorityComparator;
+			this.priorityFunction_ = IdPriorityFunction
+					.create(priorityComparator, axiomIds_);
+			this.bound_ = bound;
+			this.weights_ = costHeuristic_
+					&& priorityFunction_ instanceof IdPriorityFunction.WeightedFunction<?>
+							? (IdPriorityFunction.WeightedFunction<?>) priorityFunction_
+							: null;
+		}
+
+		public Job newJob(final int conclusionId) {
+			return doBreak(SortedIdSet.NO_IDS_, SortedIntSet.empty(),
+					SortedIntSet.empty(), conclusionId);
+		}
+
+		public Job doBreak(final int[] repairIds, final SortedIntSet toBreak,
+				final SortedIntSet broken, final int conclusionId) {
+
+			final SortedIntSet newBroken = broken.with(conclusionId);
+			final IdList users = premiseUsers_.get(conclusionId);
+			final SortedIntSet newToBreak = users == null ? toBreak
+					: toBreak.without(users.ids_, users.size_);
+			final int[] inferenceIds = getInferenceIds(conclusionId);
+			final int[] addedIds = new int[inferenceIds.length];
+			int size = 0;
+			for (final int infId : inferenceIds) {
+				if (SortedIdSet.intersects(premiseIds_.get(infId),
+						broken.getElements())
+						|| SortedIdSet.intersects(justificationIds_.get(infId),
+								repairIds)) {
+					continue;
 				}
+				// else
+				addedIds[size++] = infId;
 			}
-			return new Job(newRepair, newToBreak, newBroken,
-					priorityComparator_.getPriority(newRepair));
+			return createJob(repairIds,
+					newToBreak.withAll(Arrays.copyOf(addedIds, size)),
+					newBroken);
+		}
+
+		public Job repair(final int[] repairIds, final SortedIntSet toBreak,
+				final SortedIntSet broken, final int axiomId) {
+
+			final int[] newRepairIds = SortedIdSet.add(repairIds, axiomId);
+			final IdList users = axiomUsers_.get(axiomId);
+			final SortedIntSet newToBreak = users == null ? toBreak
+					: toBreak.without(users.ids_, users.size_);
+			return createJob(newRepairIds, newToBreak, broken);
+		}
+
+		@SuppressWarnings("unchecked")
+		private Job createJob(final int[] repairIds,
+				final SortedIntSet toBreak, final SortedIntSet broken) {
+			final P priority = priorityFunction_.getPriority(repairIds);
+			if (weights_ == null) {
+				return new Job(repairIds, toBreak, broken, priority, priority);
+			}
+			// else the priorities are the weights
+			final long estimate = (Long) priority
+					+ getRemainingWeightBound(toBreak);
+			return new Job(repairIds, toBreak, broken, priority,
+					(P) Long.valueOf(estimate));
+		}
+
+		/**
+		 * Computes a lower bound on the weight of axioms that should be added
+		 * to a repair to break the given inferences. Each inference to break
+		 * without premises requires adding one of its axioms. Such inferences
+		 * with pairwise disjoint justifications are chosen greedily, and the
+		 * minimal weights of their axioms are summed up.
+		 * 
+		 * @param toBreak
+		 *            the ids of inferences to break whose axioms are not in
+		 *            the repair
+		 * @return the lower bound on the weight of axioms needed for breaking
+		 *         the given inferences
+		 */
+		private long getRemainingWeightBound(final SortedIntSet toBreak) {
+			long result = 0;
+			BitSet usedAxiomIds = null;
+			infLoop: for (final int infId : toBreak.getElements()) {
+				if (premiseIds_.get(infId).length > 0) {
+					// can be broken by breaking a premise
+					continue;
+				}
+				// else
+				final int[] axiomIds = justificationIds_.get(infId);
+				if (axiomIds.length == 0) {
+					// cannot be broken
+					continue;
+				}
+				// else
+				if (usedAxiomIds == null) {
+					usedAxiomIds = new BitSet();
+				}
+				long minWeight = Long.MAX_VALUE;
+				for (final int axiomId : axiomIds) {
+					if (usedAxiomIds.get(axiomId)) {
+						continue infLoop;
+					}
+					// else
+					minWeight = Math.min(minWeight,
+							weights_.getWeight(axiomId));
+				}
+				for (final int axiomId : axiomIds) {
+					usedAxiomIds.set(axiomId);
+				}
+				result += minWeight;
+			}
+			return result;
 		}
 
 		/**
-		 * A simple state for computing a repair;
+		 * A simple state for computing a repair; the job is represented as
+		 * the set of members of {@link #repairIds_} and {@link #toBreak_}
+		 * encoded as integers
 		 * 
 		 * @author Peter Skocovsky
 		 * @author Yevgeny Kazakov
 		 */
-		public class Job extends AbstractSet<JobMember<I, A>>
-				implements Comparable<Job> {
+		public class Job extends AbstractSet<Integer>
+				implements BloomFilteredCollection<Integer>, Comparable<Job> {
 
-			private final Set<A> repair_;
-			private final Set<I> toBreak_;
 			/**
-			 * the cached set of conclusions not derivable without using
-			 * {@link #repair_} and {@link #toBreak_}
+			 * the sorted ids of axioms in the repair
+			 */
+			private final int[] repairIds_;
+			/**
+			 * the ids of inferences to break
+			 */
+			private final SortedIntSet toBreak_;
+			/**
+			 * the ids of the cached set of conclusions not derivable without
+			 * using the repair and the inferences to break
+			 */
+			private final SortedIntSet broken_;
+			/**
+			 * the priority of {@link #repairIds_}
 			 */
-			private final Set<Object> broken_;
 			private final P priority_;
+			/**
+			 * a lower bound on the priorities of the repairs that can be
+			 * obtained from this job
+			 */
+			private final P estimate_;
+			/**
+			 * the Bloom filters of the members of this job
+			 */
+			private final long filter_, filter2_;
 
-			private Job(final Set<A> repair, final Set<I> toBreak,
-					final Set<Object> broken, final P priority) {
-				this.repair_ = repair;
+			private Job(final int[] repairIds, final SortedIntSet toBreak,
+					final SortedIntSet broken, final P priority,
+					final P estimate) {
+				this.repairIds_ = repairIds;
 				this.toBreak_ = toBreak;
 				this.broken_ = broken;
 				this.priority_ = priority;
+				this.estimate_ = estimate;
+				long filter = 0, filter2 = 0;
+				for (int i = 0; i < repairIds.length; i++) {
+					int member = repairIds[i] << 1;
+					filter |= BloomTrieCollection2.getFilterBit(member);
+					filter2 |= BloomTrieCollection2.getFilter2Bit(member);
+				}
+				for (int id : toBreak.getElements()) {
+					int member = (id << 1) | 1;
+					filter |= BloomTrieCollection2.getFilterBit(member);
+					filter2 |= BloomTrieCollection2.getFilter2Bit(member);
+				}
+				this.filter_ = filter;
+				this.filter2_ = filter2;
+			}
+
+			@Override
+			public long getBloomFilter() {
+				return filter_;
+			}
+
+			@Override
+			public long getBloomFilter2() {
+				return filter2_;
 			}
 
 			@Override
 			public boolean containsAll(final Collection<?> c) {
-				if (c instanceof JobFactory<?, ?, ?>.Job) {
-					final JobFactory<?, ?, ?>.Job other = (JobFactory<?, ?, ?>.Job) c;
-					return repair_.containsAll(other.repair_)
+				if (c instanceof TopDownRepairComputation<?, ?, ?>.JobFactory<?>.Job) {
+					final TopDownRepairComputation<?, ?, ?>.JobFactory<?>.Job other = (TopDownRepairComputation<?, ?, ?>.JobFactory<?>.Job) c;
+					return SortedIdSet.containsAll(repairIds_,
+							other.repairIds_)
 							&& toBreak_.containsAll(other.toBreak_);
 				}
 				// else
 				return super.containsAll(c);
 			}
 
+			/**
+			 * @return {@code true} if the estimated priority of this job is
+			 *         not greater than the bound; otherwise the repairs
+			 *         obtained from this job cannot be within the bound since
+			 *         their priorities are not smaller than the estimated one
+			 */
+			boolean isWithinBound() {
+				return bound_ == null || priorityComparator_.compare(estimate_,
+						bound_) <= 0;
+			}
+
+			/**
+			 * @param other
+			 * @return {@code true} if this job and the given job created by
+			 *         the same {@link JobFactory} have equal estimated
+			 *         priorities
+			 */
+			@SuppressWarnings("unchecked")
+			boolean hasSamePriority(final JobFactory<?>.Job other) {
+				return priorityComparator_.compare(estimate_,
+						(P) other.estimate_) == 0;
+			}
+
 			@Override
 			public String toString() {
-				return repair_.toString() + "; " + broken_.toString() + "; "
-						+ toBreak_.toString();
+				return new SortedIdSet<A>(repairIds_, axiomIds_) + "; "
+						+ broken_ + "; " + toBreak_;
 			}
 
 			@Override
-			public Iterator<JobMember<I, A>> iterator() {
-				return Iterators.<JobMember<I, A>> concat(Iterators.transform(
-						repair_.iterator(), new Function<A, Axiom<I, A>>() {
+			public Iterator<Integer> iterator() {
+				return new Iterator<Integer>() {
 
-							@Override
-							public Axiom<I, A> apply(final A axiom) {
-								return new Axiom<I, A>(axiom);
-							}
+					private int pos_ = 0;
 
-						}), Iterators.transform(toBreak_.iterator(),
-								new Function<I, Inf<I, A>>() {
+					@Override
+					public boolean hasNext() {
+						return pos_ < size();
+					}
 
-									@Override
-									public Inf<I, A> apply(I inf) {
-										return new Inf<I, A>(inf);
-									}
+					@Override
+					public Integer next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						// else
+						final int pos = pos_++;
+						// the lowest bit distinguishes axioms from inferences
+						if (pos < repairIds_.length) {
+							return repairIds_[pos] << 1;
+						}
+						// else
+						return (toBreak_.getElements()[pos
+								- repairIds_.length] << 1) | 1;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
 
-								}));
+				};
 			}
 
 			@Override
 			public int size() {
-				return repair_.size() + toBreak_.size();
+				return repairIds_.length + toBreak_.size();
 			}
 
 			@Override
 			public int compareTo(final Job other) {
-				final int result = priorityComparator_.compare(priority_,
-						other.priority_);
+				final int result = priorityComparator_.compare(estimate_,
+						other.estimate_);
 				if (result != 0) {
 					return result;
 				}
@@ -352,6 +1184,30 @@ public class TopDownRepairComputation<C, I extends Inference<? extends C>, A>
 
 	}
 
+	/**
+	 * A growable list of ids
+	 */
+	private static class IdList {
+
+		private int[] ids_ = new int[2];
+
+		private int size_ = 0;
+
+		static void add(final IntHashMap<IdList> lists, final int key,
+				final int id) {
+			IdList list = lists.get(key);
+			if (list == null) {
+				list = new IdList();
+				lists.put(key, list);
+			}
+			if (list.size_ == list.ids_.length) {
+				list.ids_ = Arrays.copyOf(list.ids_, list.size_ << 1);
+			}
+			list.ids_[list.size_++] = id;
+		}
+
+	}
+
 	@Stat
 	public int nProducedJobs() {
 		return producedJobsCount_;
@@ -367,38 +1223,6 @@ public class TopDownRepairComputation<C, I extends Inference<? extends C>, A>
 		return BloomTrieCollection2.class;
 	}
 
-	private final Comparator<I> inferenceComparator = new Comparator<I>() {
-
-		@Override
-		public int compare(final I inf1, final I inf2) {
-			return inf1.getPremises().size() + getJustification(inf1).size()
-					- inf2.getPremises().size() - getJustification(inf2).size();
-		}
-
-	};
-
-	private interface JobMember<C, A> {
-
-	}
-
-	private final static class Inf<I extends Inference<?>, A>
-			extends Delegator<I> implements JobMember<I, A> {
-
-		public Inf(I delegate) {
-			super(delegate);
-		}
-
-	}
-
-	private final static class Axiom<C, A> extends Delegator<A>
-			implements JobMember<C, A> {
-
-		public Axiom(A delegate) {
-			super(delegate);
-		}
-
-	}
-
 	/**
 	 * The factory.
 	 * 
@@ -414,13 +1238,22 @@ public class TopDownRepairComputation<C, I extends Inference<? extends C>, A>
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
+		private final int workerCount_;
+
+		private final boolean costHeuristic_;
+
+		Factory(final int workerCount, final boolean costHeuristic) {
+			this.workerCount_ = workerCount;
+			this.costHeuristic_ = costHeuristic;
+		}
+
 		@Override
 		public MinimalSubsetEnumerator.Factory<C, A> create(
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor) {
 			return new TopDownRepairComputation<C, I, A>(proof, justifier,
-					monitor);
+					monitor, workerCount_, costHeuristic_);
 		}
 
 	}
@@ -0,0 +1,45 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+/**
+ * An {@link InterruptMonitor} that can tell why it has interrupted the
+ * computation, so that the enumeration can be reported as truncated with the
+ * corresponding {@link EnumerationStatus}.
+ * 
+ * @see InterruptMonitors
+ */
+public interface TruncationMonitor extends InterruptMonitor {
+
+	/**
+	 * @return the status of the enumeration interrupted by this monitor or
+	 *         {@code null} if this monitor has not interrupted it
+	 */
+	EnumerationStatus getInterruptionStatus();
+
+	/**
+	 * Restarts the monitoring, e.g., before the next enumeration, so that the
+	 * computation is not interrupted any longer
+	 */
+	void reset();
+
+}
@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.Collection;
+
+/**
+ * A {@link PriorityComparator} that compares collections based on the sum of
+ * weights of their elements. The weights must be positive, so that this
+ * comparator is compatible with the subset ordering, as required by
+ * {@link MinimalSubsetEnumerator#enumerate(MinimalSubsetEnumerator.Listener, PriorityComparator)}.
+ * <p>
+ * Computations can evaluate the priorities of such comparators directly on
+ * their internal representations of sets, without creating the sets and
+ * without calling {@link #getPriority(Collection)}. They can also compare the
+ * priorities as numbers, so if {@code compare} is overridden, a
+ * smaller sum of weights must never have a greater priority.
+ *
+ * @param <E>
+ *            the type of elements of the compared collections
+ */
+public abstract class WeightedPriorityComparator<E>
+		extends NaturalPriorityComparator<Collection<? extends E>, Long> {
+
+	/**
+	 * @param element
+	 * @return the weight of the given element, which must be positive and
+	 *         should not change over time
+	 */
+	public abstract long getWeight(E element);
+
+	@Override
+	public Long getPriority(final Collection<? extends E> original) {
+		long result = 0;
+		for (E element : original) {
+			result += getWeight(element);
+		}
+		return result;
+	}
+
+}
@@ -26,8 +26,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
@@ -35,12 +40,25 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.primitives.Ints;
+
 public class Collection2Test {
 
 	private final static Logger LOGGER_ = LoggerFactory
 			.getLogger(Collection2Test.class);
 
 	private final static Random SEED_PROVIDER_ = new Random();
+
+	/**
+	 * if {@code true}, some of the random sets are {@link SortedIntCollection}s
+	 */
+	private boolean useSortedInts_ = false;
+
+	/**
+	 * if {@code true}, some of the random sets are
+	 * {@link BloomFilteredCollection}s
+	 */
+	private boolean useFilteredSets_ = false;
 	
 	public void testCollection2(Random rnd, Collection2<Set<Integer>> tested,
 			int rounds, int noElements, int minSetSize, int maxSetSize) {
@@ -132,13 +150,190 @@ public class Collection2Test {
 		runTestSuit(new BloomTrieCollection2<Set<Integer>>());
 	}
 
+	@Test
+	public void testSynchronizedCollection2() {
+		runTestSuit(new SynchronizedCollection2<Set<Integer>>(
+				new BloomTrieCollection2<Set<Integer>>()));
+	}
+
+	@Test
+	public void testConcurrentBloomTrieCollection2() {
+		runTestSuit(new ConcurrentBloomTrieCollection2<Set<Integer>>());
+	}
+
+	@Test
+	public void testConcurrentBloomTrieCollection2Stress()
+			throws InterruptedException {
+		long seed = SEED_PROVIDER_.nextLong();
+		LOGGER_.debug("seed: {}", seed);
+		final Random seeds = new Random(seed);
+		final ConcurrentBloomTrieCollection2<Set<Integer>> tested = new ConcurrentBloomTrieCollection2<Set<Integer>>();
+		final int threadCount = 8;
+		final List<List<Set<Integer>>> added = new ArrayList<List<Set<Integer>>>();
+		final List<List<Set<Integer>>> kept = new ArrayList<List<Set<Integer>>>();
+		final List<List<Set<Integer>>> rejected = new ArrayList<List<Set<Integer>>>();
+		final List<Throwable> errors = Collections
+				.synchronizedList(new ArrayList<Throwable>());
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			final Random rnd = new Random(seeds.nextLong());
+			final List<Set<Integer>> threadAdded = new ArrayList<Set<Integer>>();
+			final List<Set<Integer>> threadKept = new ArrayList<Set<Integer>>();
+			final List<Set<Integer>> threadRejected = new ArrayList<Set<Integer>>();
+			added.add(threadAdded);
+			kept.add(threadKept);
+			rejected.add(threadRejected);
+			threads.add(new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 2000; j++) {
+							Set<Integer> next = getRandomSet(rnd,
+									2 + rnd.nextInt(10), 50);
+							if (tested.addIfMinimal(next)) {
+								threadAdded.add(next);
+							} else {
+								// checked when all threads are finished since
+								// the subset may be removed concurrently
+								threadRejected.add(next);
+							}
+						}
+						// remove every second collection added by this
+						// thread
+						for (int j = 0; j < threadAdded.size(); j++) {
+							Set<Integer> next = threadAdded.get(j);
+							if (j % 2 == 0) {
+								assertTrue(tested.remove(next));
+							} else {
+								threadKept.add(next);
+							}
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals("seed: " + seed, Collections.emptyList(), errors);
+		// every rejected collection has a subset that was added
+		Collection2<Set<Integer>> allAdded = new BloomTrieCollection2<Set<Integer>>();
+		for (List<Set<Integer>> threadAdded : added) {
+			allAdded.addAll(threadAdded);
+		}
+		for (List<Set<Integer>> threadRejected : rejected) {
+			for (Set<Integer> s : threadRejected) {
+				assertFalse("seed: " + seed, allAdded.isMinimal(s));
+			}
+		}
+		// no update is lost
+		Set<Set<Integer>> expected = new HashSet<Set<Integer>>();
+		int expectedSize = 0;
+		for (List<Set<Integer>> threadKept : kept) {
+			expected.addAll(threadKept);
+			expectedSize += threadKept.size();
+		}
+		assertEquals("seed: " + seed, expectedSize, tested.size());
+		assertEquals("seed: " + seed, expected,
+				new HashSet<Set<Integer>>(tested));
+		for (Set<Integer> s : expected) {
+			assertTrue("seed: " + seed, tested.contains(s));
+			assertFalse("seed: " + seed, tested.isMinimal(s));
+			assertFalse("seed: " + seed, tested.isMaximal(s));
+		}
+	}
+
+	@Test
+	public void testBloomTrieCollection2SortedInts() {
+		useSortedInts_ = true;
+		runTestSuit(new BloomTrieCollection2<Set<Integer>>());
+	}
+
+	@Test
+	public void testBloomTrieCollection2FilteredSets() {
+		useFilteredSets_ = true;
+		runTestSuit(new BloomTrieCollection2<Set<Integer>>());
+	}
+
 	Set<Integer> getRandomSet(Random rnd, int size, int maxValue) {
 		Set<Integer> result = new HashSet<Integer>();
 		for (int i = 0; i < size; i++) {
 			int next = rnd.nextInt(maxValue);
 			result.add(next);
 		}
+		if (useSortedInts_ && rnd.nextBoolean()) {
+			return new MockSortedIntSet(result);
+		}
+		// else
+		if (useFilteredSets_ && rnd.nextBoolean()) {
+			return new MockBloomFilteredSet(result);
+		}
+		// else
 		return result;
 	}
 
+	static class MockBloomFilteredSet extends HashSet<Integer>
+			implements BloomFilteredCollection<Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long filter_, filter2_;
+
+		MockBloomFilteredSet(Set<Integer> elements) {
+			super(elements);
+			long filter = 0, filter2 = 0;
+			for (int e : elements) {
+				filter |= BloomTrieCollection2.getFilterBit(e);
+				filter2 |= BloomTrieCollection2.getFilter2Bit(e);
+			}
+			this.filter_ = filter;
+			this.filter2_ = filter2;
+		}
+
+		@Override
+		public long getBloomFilter() {
+			return filter_;
+		}
+
+		@Override
+		public long getBloomFilter2() {
+			return filter2_;
+		}
+
+	}
+
+	static class MockSortedIntSet extends AbstractSet<Integer>
+			implements SortedIntCollection {
+
+		private final int[] elements_;
+
+		MockSortedIntSet(Set<Integer> elements) {
+			elements_ = Ints.toArray(elements);
+			Arrays.sort(elements_);
+		}
+
+		@Override
+		public int[] getSortedElements() {
+			return elements_;
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return Ints.asList(elements_).iterator();
+		}
+
+		@Override
+		public int size() {
+			return elements_.length;
+		}
+
+	}
+
 }
@@ -0,0 +1,130 @@
+package org.liveontologies.puli.collections;
+
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how the throughput of {@link ConcurrentBloomTrieCollection2}
+ * scales with the number of threads compared to a
+ * {@link SynchronizedCollection2} wrapping a {@link BloomTrieCollection2}.
+ * Every thread repeatedly tests random sets for minimality and adds those
+ * that are minimal, like the parallel pinpointing computations do. Not run
+ * as part of the tests; usage:
+ * 
+ * <pre>
+ * ConcurrentCollection2Benchmark [maxThreads [operationsPerThread]]
+ * </pre>
+ * 
+ * @author Yevgeny Kazakov
+ */
+public class ConcurrentCollection2Benchmark {
+
+	private static final int ELEMENT_COUNT_ = 200, MIN_SET_SIZE_ = 3,
+			MAX_SET_SIZE_ = 12;
+
+	public static void main(String[] args) throws InterruptedException {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		System.out.println("threads\tsynchronized ops/ms\tconcurrent ops/ms");
+		for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+			double locked = run(
+					new SynchronizedCollection2<Set<Integer>>(
+							new BloomTrieCollection2<Set<Integer>>()),
+					threads, operations);
+			double lockFree = run(
+					new ConcurrentBloomTrieCollection2<Set<Integer>>(),
+					threads, operations);
+			System.out.printf("%d\t%.1f\t%.1f%n", threads, locked, lockFree);
+		}
+	}
+
+	/**
+	 * @return the number of operations per millisecond
+	 */
+	static double run(final Collection2<Set<Integer>> tested, int threadCount,
+			final int operations) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicLong added = new AtomicLong();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			final Random rnd = new Random(i);
+			threads.add(new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < operations; j++) {
+						Set<Integer> next = getRandomSet(rnd);
+						if (addIfMinimal(tested, next)) {
+							added.incrementAndGet();
+						}
+					}
+				}
+
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		long startTime = System.nanoTime();
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - startTime;
+		return (double) threadCount * operations * 1000000 / elapsed;
+	}
+
+	static boolean addIfMinimal(Collection2<Set<Integer>> tested,
+			Set<Integer> s) {
+		if (tested instanceof ConcurrentBloomTrieCollection2<?>) {
+			return ((ConcurrentBloomTrieCollection2<Set<Integer>>) tested)
+					.addIfMinimal(s);
+		}
+		// else
+		return ((SynchronizedCollection2<Set<Integer>>) tested)
+				.addIfMinimal(s);
+	}
+
+	static Set<Integer> getRandomSet(Random rnd) {
+		int size = MIN_SET_SIZE_
+				+ rnd.nextInt(MAX_SET_SIZE_ - MIN_SET_SIZE_ + 1);
+		Set<Integer> result = new HashSet<Integer>();
+		for (int i = 0; i < size; i++) {
+			result.add(rnd.nextInt(ELEMENT_COUNT_));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,213 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.collections;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link Collection2} that can be used from several threads concurrently.
+ * The calls are delegated to the given {@link Collection2}; the methods that
+ * do not modify it, such as {@link #isMinimal(Collection)}, can run in
+ * parallel, and the methods that modify it, such as {@link #add(Collection)},
+ * run exclusively. The iterators returned by this {@link Collection2} are not
+ * protected, except for {@link Iterator#remove()}, so the iteration should
+ * not run concurrently with modifications. It serves as a baseline for
+ * {@link ConcurrentBloomTrieCollection2} in tests and benchmarks.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of collections maintained by this {@link Collection2}
+ */
+public class SynchronizedCollection2<C extends Collection<?>>
+		extends AbstractCollection<C> implements Collection2<C> {
+
+	private final Collection2<C> delegate_;
+
+	private final Lock readLock_, writeLock_;
+
+	/**
+	 * @param delegate
+	 *            the {@link Collection2} to which the calls are delegated;
+	 *            it should not be used directly afterwards
+	 */
+	public SynchronizedCollection2(Collection2<C> delegate) {
+		this.delegate_ = delegate;
+		ReadWriteLock lock = new ReentrantReadWriteLock();
+		this.readLock_ = lock.readLock();
+		this.writeLock_ = lock.writeLock();
+	}
+
+	@Override
+	public boolean add(C s) {
+		writeLock_.lock();
+		try {
+			return delegate_.add(s);
+		} finally {
+			writeLock_.unlock();
+		}
+	}
+
+	/**
+	 * Adds the given collection if this {@link Collection2} does not contain
+	 * any of its subsets; the check and the addition are performed
+	 * atomically
+	 * 
+	 * @param s
+	 * @return {@code true} if the collection was added
+	 */
+	public boolean addIfMinimal(C s) {
+		if (!isMinimal(s)) {
+			return false;
+		}
+		// else
+		writeLock_.lock();
+		try {
+			// could have been changed
+			if (!delegate_.isMinimal(s)) {
+				return false;
+			}
+			// else
+			return delegate_.add(s);
+		} finally {
+			writeLock_.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		writeLock_.lock();
+		try {
+			return delegate_.remove(o);
+		} finally {
+			writeLock_.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		writeLock_.lock();
+		try {
+			delegate_.clear();
+		} finally {
+			writeLock_.unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		readLock_.lock();
+		try {
+			return delegate_.contains(o);
+		} finally {
+			readLock_.unlock();
+		}
+	}
+
+	@Override
+	public boolean isMinimal(Collection<?> s) {
+		readLock_.lock();
+		try {
+			return delegate_.isMinimal(s);
+		} finally {
+			readLock_.unlock();
+		}
+	}
+
+	@Override
+	public boolean isMaximal(Collection<?> s) {
+		readLock_.lock();
+		try {
+			return delegate_.isMaximal(s);
+		} finally {
+			readLock_.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		readLock_.lock();
+		try {
+			return delegate_.size();
+		} finally {
+			readLock_.unlock();
+		}
+	}
+
+	@Override
+	public Iterator<C> iterator() {
+		return new LockedIterator<C>(delegate_.iterator());
+	}
+
+	@Override
+	public Iterable<C> subCollectionsOf(final Collection<?> s) {
+		return new Iterable<C>() {
+
+			@Override
+			public Iterator<C> iterator() {
+				return new LockedIterator<C>(
+						delegate_.subCollectionsOf(s).iterator());
+			}
+
+		};
+	}
+
+	@Override
+	public Iterable<C> superCollectionsOf(final Collection<?> s) {
+		return new Iterable<C>() {
+
+			@Override
+			public Iterator<C> iterator() {
+				return new LockedIterator<C>(
+						delegate_.superCollectionsOf(s).iterator());
+			}
+
+		};
+	}
+
+	/**
+	 * An iterator that removes the elements exclusively
+	 */
+	private class LockedIterator<E> extends DelegatingIterator<E> {
+
+		LockedIterator(Iterator<E> delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public void remove() {
+			writeLock_.lock();
+			try {
+				super.remove();
+			} finally {
+				writeLock_.unlock();
+			}
+		}
+
+	}
+
+}
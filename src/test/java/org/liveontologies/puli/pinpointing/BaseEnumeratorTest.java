@@ -26,9 +26,12 @@ import java.io.FilenameFilter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -64,6 +67,312 @@ public abstract class BaseEnumeratorTest<C, I extends Inference<? extends C>, A>
 
 	}
 
+	@Test
+	public void testLimitedEnumeration() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		final PriorityComparator<Collection<A>, Integer> cardinality = PriorityComparators
+				.cardinality();
+		final Set<? extends Set<? extends A>> expected = new HashSet<Set<? extends A>>(
+				input.getExpectedResult());
+		final List<Integer> sizes = new ArrayList<Integer>();
+		for (final Set<? extends A> set : expected) {
+			sizes.add(set.size());
+		}
+		Collections.sort(sizes);
+
+		for (int limit = 1; limit <= sizes.size() + 1; limit++) {
+			final List<Set<A>> actual = new ArrayList<Set<A>>();
+			MinimalSubsetEnumerators
+					.bounded(computation.newEnumerator(input.getQuery()))
+					.enumerate(new MinimalSubsetEnumerator.Listener<A>() {
+
+						@Override
+						public void newMinimalSubset(final Set<A> set) {
+							actual.add(set);
+						}
+
+					}, cardinality, null, limit);
+			Assert.assertEquals(Math.min(limit, sizes.size()), actual.size());
+			for (int i = 0; i < actual.size(); i++) {
+				Assert.assertTrue(expected.contains(actual.get(i)));
+				Assert.assertEquals(sizes.get(i).intValue(),
+						actual.get(i).size());
+			}
+		}
+
+		for (int bound = 0; bound <= sizes.get(sizes.size() - 1); bound++) {
+			final Set<Set<? extends A>> actual = new HashSet<Set<? extends A>>();
+			MinimalSubsetEnumerators
+					.bounded(computation.newEnumerator(input.getQuery()))
+					.enumerate(new MinimalSubsetCollector<A>(actual),
+							cardinality, bound, Integer.MAX_VALUE);
+			final Set<Set<? extends A>> bounded = new HashSet<Set<? extends A>>();
+			for (final Set<? extends A> set : expected) {
+				if (set.size() <= bound) {
+					bounded.add(set);
+				}
+			}
+			Assert.assertEquals(bounded, actual);
+		}
+
+		// the results of limited enumerations should not affect the
+		// subsequent unlimited enumerations
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		Assert.assertEquals(expected, actualResult);
+
+	}
+
+	@Test
+	public void testCursor() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		final Set<? extends Set<? extends A>> expected = new HashSet<Set<? extends A>>(
+				input.getExpectedResult());
+
+		// take only the first set
+		MinimalSubsetCursor<A> cursor = MinimalSubsetEnumerators
+				.bounded(computation.newEnumerator(input.getQuery()))
+				.newCursor(PriorityComparators.<A> cardinality());
+		try {
+			Assert.assertEquals(!expected.isEmpty(), cursor.hasNext());
+			if (cursor.hasNext()) {
+				Assert.assertTrue(expected.contains(cursor.next()));
+			}
+		} finally {
+			cursor.close();
+		}
+		Assert.assertFalse(cursor.hasNext());
+
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		cursor = MinimalSubsetEnumerators
+				.bounded(computation.newEnumerator(input.getQuery()))
+				.newCursor(PriorityComparators.<A> cardinality());
+		int lastSize = 0;
+		while (cursor.hasNext()) {
+			final Set<A> next = cursor.next();
+			Assert.assertTrue(lastSize <= next.size());
+			lastSize = next.size();
+			Assert.assertTrue(actualResult.add(next));
+		}
+		Assert.assertEquals(expected, actualResult);
+
+	}
+
+	@Test
+	public void testBoundedFallback() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		final Set<? extends Set<? extends A>> expected = new HashSet<Set<? extends A>>(
+				input.getExpectedResult());
+		// an enumerator that supports only the unbounded enumeration
+		final BoundedMinimalSubsetEnumerator<A> fallback = MinimalSubsetEnumerators
+				.bounded(new MinimalSubsetEnumerator<A>() {
+
+					@Override
+					public void enumerate(final Listener<A> listener) {
+						computation.newEnumerator(input.getQuery())
+								.enumerate(listener);
+					}
+
+					@Override
+					public void enumerate(final Listener<A> listener,
+							final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+						computation.newEnumerator(input.getQuery())
+								.enumerate(listener, priorityComparator);
+					}
+
+				});
+
+		final List<Set<? extends A>> limited = new ArrayList<Set<? extends A>>();
+		fallback.enumerate(new MinimalSubsetCollector<A>(limited),
+				PriorityComparators.<A> cardinality(), null, 1);
+		Assert.assertEquals(Math.min(1, expected.size()), limited.size());
+		Assert.assertTrue(expected.containsAll(limited));
+
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		final MinimalSubsetCursor<A> cursor = fallback
+				.newCursor(PriorityComparators.<A> cardinality());
+		while (cursor.hasNext()) {
+			Assert.assertTrue(actualResult.add(cursor.next()));
+		}
+		Assert.assertEquals(expected, actualResult);
+
+	}
+
+	@Test
+	public void testEnumerationResult() {
+
+		final boolean[] interrupted = { true };
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						new InterruptMonitor() {
+
+							@Override
+							public boolean isInterrupted() {
+								return interrupted[0];
+							}
+
+						});
+		final Set<? extends Set<? extends A>> expected = new HashSet<Set<? extends A>>(
+				input.getExpectedResult());
+
+		ResultCollector<A> collector = new ResultCollector<A>();
+		computation.newEnumerator(input.getQuery()).enumerate(collector);
+		Assert.assertEquals(EnumerationStatus.INTERRUPTED,
+				collector.result.getStatus());
+		Assert.assertTrue(collector.result.getStatus().isTruncated());
+		Assert.assertEquals(0, collector.result.getEnumeratedCount());
+
+		// the interrupted enumeration should not affect the subsequent ones
+		interrupted[0] = false;
+		collector = new ResultCollector<A>();
+		computation.newEnumerator(input.getQuery()).enumerate(collector);
+		Assert.assertEquals(EnumerationStatus.COMPLETE,
+				collector.result.getStatus());
+		Assert.assertEquals(expected.size(),
+				collector.result.getEnumeratedCount());
+		Assert.assertEquals(expected, collector.sets);
+
+		if (expected.isEmpty()) {
+			return;
+		}
+		// else
+		collector = new ResultCollector<A>();
+		MinimalSubsetEnumerators
+				.bounded(computation.newEnumerator(input.getQuery()))
+				.enumerate(collector, PriorityComparators.<A> cardinality(),
+						null, 1);
+		Assert.assertEquals(EnumerationStatus.LIMIT_REACHED,
+				collector.result.getStatus());
+		Assert.assertEquals(1, collector.result.getEnumeratedCount());
+
+		final Set<Set<? extends A>> truncated = new HashSet<Set<? extends A>>();
+		factory.create(input.getProof(), input.getJustifier(),
+				InterruptMonitors.budget(0)).newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(truncated));
+		Assert.assertTrue(truncated.isEmpty());
+
+	}
+
+	@Test
+	public void testConcurrentEnumeration() throws InterruptedException {
+
+		final ConcurrentComputation<C, I, A> computation = ConcurrentComputation
+				.create(factory, input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY, 2);
+		final Set<? extends Set<? extends A>> expected = new HashSet<Set<? extends A>>(
+				input.getExpectedResult());
+		final List<Throwable> errors = Collections
+				.synchronizedList(new ArrayList<Throwable>());
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 5; j++) {
+							final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+							computation.newEnumerator(input.getQuery())
+									.enumerate(new MinimalSubsetCollector<A>(
+											actualResult));
+							Assert.assertEquals(expected, actualResult);
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(Collections.emptyList(), errors);
+		Assert.assertTrue(computation.nComputations() <= 2);
+
+	}
+
+	/**
+	 * A thread holding the only computation of the pool in a cursor starts
+	 * another enumeration, which waits until the monitor is interrupted
+	 */
+	@Test
+	public void testConcurrentEnumerationInterrupted()
+			throws InterruptedException {
+
+		final AtomicBoolean interrupted = new AtomicBoolean(false);
+		final ConcurrentComputation<C, I, A> computation = ConcurrentComputation
+				.create(factory, input.getProof(), input.getJustifier(),
+						new InterruptMonitor() {
+
+							@Override
+							public boolean isInterrupted() {
+								return interrupted.get();
+							}
+
+						}, 1);
+		final MinimalSubsetCursor<A> cursor = computation
+				.newEnumerator(input.getQuery())
+				.newCursor(PriorityComparators.<A> cardinality());
+		final Thread interrupter = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					// interrupt now
+				}
+				interrupted.set(true);
+			}
+
+		};
+		interrupter.start();
+		final ResultCollector<A> collector = new ResultCollector<A>();
+		computation.newEnumerator(input.getQuery()).enumerate(collector);
+		interrupter.join();
+		Assert.assertEquals(EnumerationStatus.INTERRUPTED,
+				collector.result.getStatus());
+		Assert.assertTrue(collector.sets.isEmpty());
+		Assert.assertFalse(computation.newEnumerator(input.getQuery())
+				.newCursor(PriorityComparators.<A> cardinality()).hasNext());
+		cursor.close();
+
+	}
+
+	static class ResultCollector<A>
+			implements MinimalSubsetEnumerator.ResultListener<A> {
+
+		final Set<Set<A>> sets = new HashSet<Set<A>>();
+
+		EnumerationResult result = null;
+
+		@Override
+		public void newMinimalSubset(Set<A> set) {
+			sets.add(set);
+		}
+
+		@Override
+		public void enumerationFinished(EnumerationResult result) {
+			Assert.assertNull(this.result);
+			this.result = result;
+		}
+
+	}
+
 	public static Iterable<Object[]> getParameters(
 			final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories,
 			final String testInputSubpkg) throws Exception {
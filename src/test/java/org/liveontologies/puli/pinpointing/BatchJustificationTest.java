@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.JustificationListener;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.SelectionType;
+
+public class BatchJustificationTest {
+
+	private final BaseProof<JustifiedInference<String, Integer>> proof_ = new BaseProof<JustifiedInference<String, Integer>>();
+
+	private final InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>> justifier_ = new InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>>() {
+
+		@Override
+		public Set<Integer> getJustification(
+				JustifiedInference<String, Integer> inference) {
+			return inference.getJustification();
+		}
+
+	};
+
+	private void add(String conclusion, List<String> premises,
+			Integer... axioms) {
+		proof_.produce(new JustifiedInference<String, Integer>("inf",
+				conclusion, premises,
+				new HashSet<Integer>(Arrays.asList(axioms))));
+	}
+
+	private ResolutionJustificationComputation<String, JustifiedInference<String, Integer>, Integer> newComputation(
+			SelectionType selection) {
+		return (ResolutionJustificationComputation<String, JustifiedInference<String, Integer>, Integer>) ResolutionJustificationComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+				.create(proof_, justifier_, InterruptMonitor.DUMMY, selection);
+	}
+
+	@Test
+	public void testBatchJustifications() {
+		add("A", Arrays.asList("B"), 1);
+		add("B", Arrays.asList("C"), 2);
+		add("C", Arrays.<String> asList(), 3, 4);
+		add("C", Arrays.<String> asList(), 5);
+		add("B", Arrays.<String> asList(), 6, 7, 8);
+		add("D", Arrays.asList("B", "C"), 9);
+		add("D", Arrays.asList("A"));
+		add("E", Arrays.asList("E"), 10);
+		List<String> queries = Arrays.asList("A", "B", "C", "D", "E", "F");
+		for (SelectionType selection : SelectionType.values()) {
+			final Map<String, Set<Set<? extends Integer>>> expected = new HashMap<String, Set<Set<? extends Integer>>>();
+			for (String query : queries) {
+				Set<Set<? extends Integer>> justifications = new HashSet<Set<? extends Integer>>();
+				newComputation(selection).newEnumerator(query).enumerate(
+						new MinimalSubsetCollector<Integer>(justifications));
+				expected.put(query, justifications);
+			}
+			final Map<String, Set<Set<? extends Integer>>> actual = new HashMap<String, Set<Set<? extends Integer>>>();
+			for (String query : queries) {
+				actual.put(query, new HashSet<Set<? extends Integer>>());
+			}
+			final Map<String, Integer> lastSize = new HashMap<String, Integer>();
+			final EnumerationResult result = newComputation(selection)
+					.enumerate(queries, new JustificationListener<String, Integer>() {
+
+						@Override
+						public void newJustification(String query,
+								Set<Integer> justification) {
+							assertTrue(actual.get(query).add(justification));
+							Integer last = lastSize.put(query,
+									justification.size());
+							// reported in the order of cardinality
+							assertTrue(last == null
+									|| last <= justification.size());
+						}
+
+					});
+			assertEquals(expected, actual);
+			assertEquals(EnumerationStatus.COMPLETE, result.getStatus());
+		}
+	}
+
+	@Test
+	public void testPartialCompaction() {
+		add("A", Arrays.asList("B"), 1);
+		add("B", Arrays.asList("C"), 2);
+		add("C", Arrays.<String> asList(), 3, 4);
+		add("C", Arrays.<String> asList(), 5);
+		add("B", Arrays.<String> asList(), 6, 7, 8);
+		add("D", Arrays.asList("B", "C"), 9);
+		add("D", Arrays.asList("A"));
+		List<String> queries = Arrays.asList("A", "B", "C", "D");
+		for (SelectionType selection : SelectionType.values()) {
+			final Map<String, Set<Set<? extends Integer>>> expected = new HashMap<String, Set<Set<? extends Integer>>>();
+			final ResolutionJustificationComputation<String, JustifiedInference<String, Integer>, Integer> computation = newComputation(
+					selection);
+			for (String query : queries) {
+				Set<Set<? extends Integer>> justifications = new HashSet<Set<? extends Integer>>();
+				computation.newEnumerator(query).enumerate(
+						new MinimalSubsetCollector<Integer>(justifications));
+				expected.put(query, justifications);
+			}
+			for (String active : queries) {
+				computation.compact(Arrays.asList(active));
+				for (String query : queries) {
+					Set<Set<? extends Integer>> justifications = new HashSet<Set<? extends Integer>>();
+					computation.newEnumerator(query)
+							.enumerate(new MinimalSubsetCollector<Integer>(
+									justifications));
+					assertEquals(expected.get(query), justifications);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+import org.liveontologies.puli.Proof;
+
+public class CompiledProofTest {
+
+	private static final int CONCLUSION_COUNT_ = 10, AXIOM_COUNT_ = 15,
+			ROUNDS_ = 20;
+
+	private final InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>> justifier_ = new InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>>() {
+
+		@Override
+		public Set<Integer> getJustification(
+				JustifiedInference<String, Integer> inference) {
+			return inference.getJustification();
+		}
+
+	};
+
+	/**
+	 * Creates a random proof in which every conclusion {@code c<i>} has
+	 * inferences with premises {@code c<j>}, {@code j > i}, and a conclusion
+	 * {@code d} that is not used by the inferences of {@code c<i>}
+	 */
+	private BaseProof<JustifiedInference<String, Integer>> createProof(
+			final Random random) {
+		final BaseProof<JustifiedInference<String, Integer>> result = new BaseProof<JustifiedInference<String, Integer>>();
+		for (int i = 0; i < CONCLUSION_COUNT_; i++) {
+			final int inferenceCount = 1 + random.nextInt(3);
+			for (int j = 0; j < inferenceCount; j++) {
+				final List<String> premises = new ArrayList<String>();
+				final int premiseCount = i + 1 < CONCLUSION_COUNT_
+						? random.nextInt(3) : 0;
+				for (int k = 0; k < premiseCount; k++) {
+					premises.add("c" + (i + 1 + random
+							.nextInt(CONCLUSION_COUNT_ - i - 1)));
+				}
+				final Set<Integer> justification = new HashSet<Integer>();
+				final int axiomCount = random.nextInt(3);
+				for (int k = 0; k < axiomCount; k++) {
+					justification.add(random.nextInt(AXIOM_COUNT_));
+				}
+				result.produce(new JustifiedInference<String, Integer>("inf",
+						"c" + i, premises, justification));
+			}
+		}
+		result.produce(new JustifiedInference<String, Integer>("inf", "d",
+				Collections.singletonList("c0"),
+				Collections.singleton(AXIOM_COUNT_)));
+		return result;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Set<Set<Integer>> enumerate(
+			final MinimalSubsetsFromProofs.Factory factory, final Proof proof,
+			final InferenceJustifier justifier, final String query) {
+		final Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		final MinimalSubsetEnumerator.Factory<String, Integer> computation = factory
+				.create(proof, justifier, InterruptMonitor.DUMMY);
+		computation.newEnumerator(query).enumerate(
+				new MinimalSubsetEnumerator.Listener<Integer>() {
+
+					@Override
+					public void newMinimalSubset(final Set<Integer> set) {
+						result.add(new HashSet<Integer>(set));
+					}
+
+				});
+		return result;
+	}
+
+	@Test
+	public void testCompiledInferences() {
+		final Random random = new Random(3);
+		for (int round = 0; round < ROUNDS_; round++) {
+			final BaseProof<JustifiedInference<String, Integer>> proof = createProof(
+					random);
+			final CompiledProof<String, Integer> compiled = CompiledProof
+					.compile(proof, justifier_, Collections.singleton("c0"));
+			int inferenceCount = 0;
+			for (int i = 0; i < CONCLUSION_COUNT_; i++) {
+				final String conclusion = "c" + i;
+				final List<JustifiedInference<String, Integer>> expected = new ArrayList<JustifiedInference<String, Integer>>(
+						proof.getInferences(conclusion));
+				final List<CompiledProof.CompiledInference<String>> actual = compiled
+						.getInferences(conclusion);
+				if (actual.isEmpty()) {
+					// not reachable from the query
+					continue;
+				}
+				// else
+				assertEquals(expected.size(), actual.size());
+				for (int j = 0; j < expected.size(); j++) {
+					final JustifiedInference<String, Integer> inf = expected
+							.get(j);
+					final CompiledProof.CompiledInference<String> compiledInf = actual
+							.get(j);
+					assertEquals(inf.getName(), compiledInf.getName());
+					assertEquals(conclusion, compiledInf.getConclusion());
+					assertEquals(inf.getPremises(),
+							new ArrayList<String>(compiledInf.getPremises()));
+					assertEquals(inf.getJustification(), compiled
+							.getJustifier().getJustification(compiledInf));
+				}
+				inferenceCount += actual.size();
+			}
+			assertTrue(compiled.getInferences("d").isEmpty());
+			assertEquals(inferenceCount, compiled.getInferenceCount());
+		}
+	}
+
+	@Test
+	public void testEnumeration() {
+		final Random random = new Random(5);
+		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
+		factories.add(ResolutionJustificationComputation.getFactory());
+		factories.add(TopDownRepairComputation.getFactory());
+		for (int round = 0; round < ROUNDS_; round++) {
+			final BaseProof<JustifiedInference<String, Integer>> proof = createProof(
+					random);
+			final Collection<String> queries = Collections.singleton("c0");
+			final CompiledProof<String, Integer> compiled = CompiledProof
+					.compile(proof, justifier_, queries);
+			for (final MinimalSubsetsFromProofs.Factory<?, ?, ?> factory : factories) {
+				assertEquals(enumerate(factory, proof, justifier_, "c0"),
+						enumerate(factory, compiled, compiled.getJustifier(),
+								"c0"));
+			}
+		}
+	}
+
+}
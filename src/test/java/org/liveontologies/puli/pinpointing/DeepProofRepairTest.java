@@ -0,0 +1,220 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the sequential and parallel processing of jobs of
+ * {@link TopDownRepairComputation} on deep synthetic proofs, in which the sets
+ * of broken conclusions and inferences to break of jobs grow with the depth;
+ * the time and the memory allocated per job are logged. Run
+ * {@link #main(String[])} to compare proofs of different sizes and the
+ * numbers of workers up to twice the number of available processors.
+ */
+public class DeepProofRepairTest {
+
+	private final static Logger LOGGER_ = LoggerFactory
+			.getLogger(DeepProofRepairTest.class);
+
+	private static final int DEPTH_ = 150, WIDTH_ = 3;
+
+	/**
+	 * the length of the chain of conclusions in which the jobs with the same
+	 * priority are produced one from another
+	 */
+	private static final int CHAIN_LENGTH_ = 2000;
+
+	private final BaseProof<JustifiedInference<String, Integer>> proof_ = new BaseProof<JustifiedInference<String, Integer>>();
+
+	private final InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>> justifier_ = new InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>>() {
+
+		@Override
+		public Set<Integer> getJustification(
+				JustifiedInference<String, Integer> inference) {
+			return inference.getJustification();
+		}
+
+	};
+
+	private int axiomCount_ = 0;
+
+	private void add(String conclusion, List<String> premises) {
+		proof_.produce(new JustifiedInference<String, Integer>("inf",
+				conclusion, premises,
+				Collections.singleton(axiomCount_++)));
+	}
+
+	/**
+	 * Creates a proof in which every conclusion {@code c<i>} can be derived
+	 * either from one axiom or from {@code c<i+1>} using several inferences
+	 * with different axioms, so that repairs of {@code c0} must break
+	 * conclusions up to some depth
+	 */
+	private void buildProof(int depth, int width) {
+		for (int i = 0; i < depth; i++) {
+			add("c" + i, Collections.<String> emptyList());
+			for (int j = 0; j < width; j++) {
+				add("c" + i, Arrays.asList("c" + (i + 1)));
+			}
+		}
+		add("c" + depth, Collections.<String> emptyList());
+	}
+
+	/**
+	 * @return the number of bytes allocated by the current thread so far or
+	 *         {@code -1} if the virtual machine does not report it; the
+	 *         memory allocated by the workers processing jobs in parallel is
+	 *         not included
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory
+				.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		// else
+		return -1;
+	}
+
+	private Set<Set<? extends Integer>> computeRepairs(int workerCount) {
+		final TopDownRepairComputation<String, JustifiedInference<String, Integer>, Integer> computation = (TopDownRepairComputation<String, JustifiedInference<String, Integer>, Integer>) TopDownRepairComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory(
+						workerCount)
+				.create(proof_, justifier_, InterruptMonitor.DUMMY);
+		final Set<Set<? extends Integer>> result = new HashSet<Set<? extends Integer>>();
+		final long allocatedBefore = allocatedBytes();
+		final long startTime = System.currentTimeMillis();
+		final MinimalSubsetEnumerator<Integer> enumerator = computation
+				.newEnumerator("c0");
+		enumerator.enumerate(new MinimalSubsetCollector<Integer>(result));
+		final long time = System.currentTimeMillis() - startTime;
+		final int jobs = computation.nProducedJobs();
+		final long allocated = allocatedBytes() - allocatedBefore;
+		LOGGER_.info(
+				"workers: {}, inferences: {}, repairs: {}, jobs: {}, time: {} ms, allocated: {} KB, {} bytes per job",
+				workerCount, axiomCount_, result.size(), jobs, time,
+				allocated >> 10, jobs == 0 ? 0 : allocated / jobs);
+		return result;
+	}
+
+	/**
+	 * Creates a proof in which every conclusion {@code c<i>} is derived only
+	 * from {@code c<i+1>} without axioms and only the last conclusion is
+	 * derived from an axiom
+	 */
+	private void buildChain() {
+		for (int i = 0; i < CHAIN_LENGTH_; i++) {
+			proof_.produce(new JustifiedInference<String, Integer>("inf",
+					"c" + i, Arrays.asList("c" + (i + 1)),
+					Collections.<Integer> emptySet()));
+		}
+		proof_.produce(new JustifiedInference<String, Integer>("inf",
+				"c" + CHAIN_LENGTH_, Collections.<String> emptyList(),
+				Collections.singleton(7)));
+	}
+
+	@Test
+	public void testDeepChain() {
+		buildChain();
+		final Set<Set<? extends Integer>> expected = computeRepairs(1);
+		assertEquals(Collections.singleton(Collections.singleton(7)),
+				expected);
+		// all jobs have the same priority and are processed in one wave
+		assertEquals(expected, computeRepairs(4));
+	}
+
+	@Test
+	public void testDeepProof() {
+		buildProof(DEPTH_, WIDTH_);
+		final Set<Set<? extends Integer>> expected = computeRepairs(1);
+		// every repair breaks the conclusions up to some depth
+		assertEquals(DEPTH_ + 1, expected.size());
+		assertEquals(expected, computeRepairs(4));
+	}
+
+	@Test
+	public void testEnumerateTwice() {
+		buildProof(DEPTH_, WIDTH_);
+		final MinimalSubsetEnumerator<Integer> enumerator = TopDownRepairComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+				.create(proof_, justifier_, InterruptMonitor.DUMMY)
+				.newEnumerator("c0");
+		final BaseEnumeratorTest.ResultCollector<Integer> first = new BaseEnumeratorTest.ResultCollector<Integer>();
+		enumerator.enumerate(first);
+		final BaseEnumeratorTest.ResultCollector<Integer> second = new BaseEnumeratorTest.ResultCollector<Integer>();
+		// the jobs of the first enumeration do not block the second one
+		enumerator.enumerate(second);
+		assertEquals(DEPTH_ + 1, first.sets.size());
+		assertEquals(first.sets, second.sets);
+		assertEquals(EnumerationStatus.COMPLETE, second.result.getStatus());
+	}
+
+	@Test
+	public void testInterruptedThread() {
+		buildChain();
+		final BaseEnumeratorTest.ResultCollector<Integer> collector = new BaseEnumeratorTest.ResultCollector<Integer>();
+		Thread.currentThread().interrupt();
+		TopDownRepairComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory(
+						4)
+				.create(proof_, justifier_, InterruptMonitor.DUMMY)
+				.newEnumerator("c0").enumerate(collector);
+		// the interruption is not swallowed
+		assertTrue(Thread.interrupted());
+		assertEquals(EnumerationStatus.INTERRUPTED,
+				collector.result.getStatus());
+		assertEquals(0, collector.result.getEnumeratedCount());
+	}
+
+	public static void main(String[] args) {
+		for (int width : new int[] { 3, 12 }) {
+			for (int depth = 25; depth <= 800; depth <<= 1) {
+				DeepProofRepairTest test = new DeepProofRepairTest();
+				test.buildProof(depth, width);
+				// warm up
+				test.computeRepairs(1);
+				for (int workerCount = 1; workerCount <= Runtime.getRuntime()
+						.availableProcessors() * 2; workerCount <<= 1) {
+					test.computeRepairs(workerCount);
+				}
+			}
+		}
+	}
+
+}
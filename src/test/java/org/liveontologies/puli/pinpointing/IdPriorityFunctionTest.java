@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class IdPriorityFunctionTest {
+
+	private final static Random SEED_PROVIDER_ = new Random();
+
+	private final static WeightedPriorityComparator<Integer> WEIGHTS_ = new WeightedPriorityComparator<Integer>() {
+
+		@Override
+		public long getWeight(Integer element) {
+			return 1 + element % 5;
+		}
+
+	};
+
+	private final IdMap<Integer> idMap_ = HashIdMap.create();
+
+	int[] getRandomIds(Random rnd, int maxSize, int maxValue) {
+		Set<Integer> result = new TreeSet<Integer>();
+		int size = rnd.nextInt(maxSize + 1);
+		for (int i = 0; i < size; i++) {
+			result.add(rnd.nextInt(maxValue));
+		}
+		return SortedIdSet.getIds(result, idMap_);
+	}
+
+	<P> void testUnionPriority(Random rnd, IdPriorityFunction<P> tested,
+			PriorityComparator<? super Set<Integer>, P> expected) {
+		for (int i = 0; i < 1000; i++) {
+			int[] first = getRandomIds(rnd, 10, 20);
+			int[] second = getRandomIds(rnd, 10, 20);
+			P firstPriority = tested.getPriority(first);
+			P secondPriority = tested.getPriority(second);
+			assertEquals(expected.getPriority(
+					new SortedIdSet<Integer>(first, idMap_)), firstPriority);
+			assertEquals(
+					expected.getPriority(new SortedIdSet<Integer>(
+							SortedIdSet.union(first, second), idMap_)),
+					tested.getUnionPriority(first, firstPriority, second,
+							secondPriority));
+		}
+	}
+
+	@Test
+	public void testUnionPriority() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			testUnionPriority(rnd,
+					IdPriorityFunction.create(
+							PriorityComparators.<Integer> cardinality(),
+							idMap_),
+					PriorityComparators.<Integer> cardinality());
+			testUnionPriority(rnd,
+					IdPriorityFunction.create(WEIGHTS_, idMap_), WEIGHTS_);
+			testUnionPriority(rnd, new IdPriorityFunction.DefaultFunction<Integer, Long>(
+					WEIGHTS_, idMap_), WEIGHTS_);
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+	@Test
+	public void testCompatible() {
+		IdPriorityFunction<Integer> cardinality = IdPriorityFunction
+				.create(PriorityComparators.<Integer> cardinality(), idMap_);
+		IdPriorityFunction<Long> weighted = IdPriorityFunction
+				.create(WEIGHTS_, idMap_);
+		assertTrue(cardinality.isCompatible(IdPriorityFunction
+				.create(PriorityComparators.<Integer> cardinality(), idMap_)));
+		assertTrue(weighted
+				.isCompatible(IdPriorityFunction.create(WEIGHTS_, idMap_)));
+		assertFalse(cardinality.isCompatible(weighted));
+		assertFalse(weighted.isCompatible(cardinality));
+		assertFalse(weighted.isCompatible(null));
+	}
+
+}
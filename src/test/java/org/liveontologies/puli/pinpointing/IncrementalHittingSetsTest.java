@@ -0,0 +1,122 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+
+public class IncrementalHittingSetsTest {
+
+	private static final int ROUNDS_ = 20, SETS_ = 30;
+
+	private static Set<Set<Integer>> toSets(
+			final Collection<? extends Set<? extends Integer>> sets) {
+		final Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		for (final Set<? extends Integer> set : sets) {
+			result.add(new HashSet<Integer>(set));
+		}
+		return result;
+	}
+
+	@Test
+	public void testRandomSets() {
+		final Random random = new Random(19);
+		for (int round = 0; round < ROUNDS_; round++) {
+			final IncrementalHittingSets<Integer> hittingSets = new IncrementalHittingSets<Integer>();
+			final List<Set<Integer>> sets = new ArrayList<Set<Integer>>();
+			assertEquals(Collections.singleton(Collections.emptySet()),
+					toSets(hittingSets.getMinimalHittingSets()));
+			for (int i = 0; i < SETS_; i++) {
+				final Set<Integer> set = new HashSet<Integer>();
+				final int size = random.nextInt(5);
+				for (int j = 0; j < size; j++) {
+					set.add(random.nextInt(20));
+				}
+				sets.add(set);
+				hittingSets.add(set);
+				assertEquals(sets.size(), hittingSets.getSetCount());
+				assertEquals(
+						toSets(MinimalHittingSetComputation.compute(sets)),
+						toSets(hittingSets.getMinimalHittingSets()));
+			}
+		}
+	}
+
+	@Test
+	public void testRepairsFromJustifications() {
+		final BaseProof<JustifiedInference<String, Integer>> proof = new BaseProof<JustifiedInference<String, Integer>>();
+		proof.produce(new JustifiedInference<String, Integer>("inf", "A",
+				Arrays.asList("B", "C"), Collections.singleton(1)));
+		proof.produce(new JustifiedInference<String, Integer>("inf", "A",
+				Collections.<String> emptyList(),
+				new HashSet<Integer>(Arrays.asList(2, 3))));
+		proof.produce(new JustifiedInference<String, Integer>("inf", "B",
+				Collections.<String> emptyList(), Collections.singleton(4)));
+		proof.produce(new JustifiedInference<String, Integer>("inf", "B",
+				Collections.<String> emptyList(), Collections.singleton(5)));
+		proof.produce(new JustifiedInference<String, Integer>("inf", "C",
+				Collections.<String> emptyList(), Collections.singleton(3)));
+		final InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>> justifier = new InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>>() {
+
+			@Override
+			public Set<Integer> getJustification(
+					JustifiedInference<String, Integer> inference) {
+				return inference.getJustification();
+			}
+
+		};
+		final IncrementalHittingSets<Integer> repairs = new IncrementalHittingSets<Integer>();
+		ResolutionJustificationComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+				.create(proof, justifier, InterruptMonitor.DUMMY)
+				.newEnumerator("A").enumerate(repairs);
+		assertEquals(3, repairs.getSetCount());
+		final Set<Set<Integer>> expected = new HashSet<Set<Integer>>();
+		TopDownRepairComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+				.create(proof, justifier, InterruptMonitor.DUMMY)
+				.newEnumerator("A")
+				.enumerate(new MinimalSubsetEnumerator.Listener<Integer>() {
+
+					@Override
+					public void newMinimalSubset(final Set<Integer> set) {
+						expected.add(new HashSet<Integer>(set));
+					}
+
+				});
+		assertEquals(expected, toSets(repairs.getMinimalHittingSets()));
+	}
+
+}
@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.Selection;
+
+public class IncrementalJustificationTest {
+
+	private final BaseProof<JustifiedInference<String, Integer>> proof_ = new BaseProof<JustifiedInference<String, Integer>>();
+
+	private final InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>> justifier_ = new InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>>() {
+
+		@Override
+		public Set<Integer> getJustification(
+				JustifiedInference<String, Integer> inference) {
+			return inference.getJustification();
+		}
+
+	};
+
+	private void add(String conclusion, String premise, Integer... axioms) {
+		proof_.produce(new JustifiedInference<String, Integer>("inf",
+				conclusion,
+				premise == null ? Arrays.<String> asList()
+						: Arrays.asList(premise),
+				new HashSet<Integer>(Arrays.asList(axioms))));
+	}
+
+	private static Set<Set<Integer>> sets(Integer[]... sets) {
+		Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		for (Integer[] set : sets) {
+			result.add(new HashSet<Integer>(Arrays.asList(set)));
+		}
+		return result;
+	}
+
+	private static Set<Set<? extends Integer>> enumerate(
+			MinimalSubsetEnumerator<Integer> enumerator) {
+		Set<Set<? extends Integer>> result = new HashSet<Set<? extends Integer>>();
+		enumerator.enumerate(new MinimalSubsetCollector<Integer>(result));
+		return result;
+	}
+
+	@Test
+	public void testIncrementalJustifications() {
+		add("A", "B", 1);
+		add("B", "C", 2);
+		add("C", null, 3, 4);
+		for (Selection selection : new Selection[] { Selection.topDown(),
+				Selection.bottomUp(), Selection.threshold(2),
+				Selection.adaptive() }) {
+			ResolutionJustificationComputation<String, JustifiedInference<String, Integer>, Integer> computation = ResolutionJustificationComputation
+					.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+					.createIncremental(proof_, justifier_,
+							InterruptMonitor.DUMMY, selection);
+			assertEquals(sets(new Integer[] { 1, 2, 3, 4 }),
+					enumerate(computation.newIncrementalEnumerator("A")));
+			add("C", null, 5);
+			add("D", null, 6);
+			// only the new justification is reported
+			assertEquals(sets(new Integer[] { 1, 2, 5 }),
+					enumerate(computation.newIncrementalEnumerator("A")));
+			assertEquals(sets(),
+					enumerate(computation.newIncrementalEnumerator("A")));
+			// all justifications are still reported by usual enumerators
+			assertEquals(
+					sets(new Integer[] { 1, 2, 3, 4 },
+							new Integer[] { 1, 2, 5 }),
+					enumerate(computation.newEnumerator("A")));
+			add("B", null, 1);
+			assertEquals(sets(new Integer[] { 1 }),
+					enumerate(computation.newIncrementalEnumerator("A")));
+			// after removal of inferences everything is recomputed
+			proof_.clear();
+			add("A", null, 7);
+			assertEquals(sets(new Integer[] { 7 }),
+					enumerate(computation.newIncrementalEnumerator("A")));
+			computation.dispose();
+			proof_.clear();
+			add("A", "B", 1);
+			add("B", "C", 2);
+			add("C", null, 3, 4);
+		}
+	}
+
+	@Test
+	public void testSupersededJustifications() {
+		add("A", "B", 1);
+		add("B", "C", 2);
+		add("C", null, 3, 4);
+		add("C", null, 5);
+		ResolutionJustificationComputation<String, JustifiedInference<String, Integer>, Integer> computation = ResolutionJustificationComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+				.createIncremental(proof_, justifier_, InterruptMonitor.DUMMY,
+						Selection.bottomUp());
+		assertEquals(
+				sets(new Integer[] { 1, 2, 3, 4 }, new Integer[] { 1, 2, 5 }),
+				enumerate(computation.newIncrementalEnumerator("A")));
+		add("B", null, 1);
+		final Set<Set<? extends Integer>> reported = new HashSet<Set<? extends Integer>>();
+		final Set<Set<? extends Integer>> superseded = new HashSet<Set<? extends Integer>>();
+		computation.newIncrementalEnumerator("A").enumerate(
+				new ResolutionJustificationComputation.IncrementalListener<Integer>() {
+
+					@Override
+					public void newMinimalSubset(Set<Integer> set) {
+						reported.add(new HashSet<Integer>(set));
+					}
+
+					@Override
+					public void supersededMinimalSubset(Set<Integer> set) {
+						superseded.add(new HashSet<Integer>(set));
+					}
+
+				});
+		assertEquals(sets(new Integer[] { 1 }), reported);
+		assertEquals(
+				sets(new Integer[] { 1, 2, 3, 4 }, new Integer[] { 1, 2, 5 }),
+				superseded);
+		add("D", null, 6);
+		assertEquals(sets(),
+				enumerate(computation.newIncrementalEnumerator("A")));
+		computation.dispose();
+	}
+
+	@Test
+	public void testNewPremises() {
+		add("A", "B", 1);
+		ResolutionJustificationComputation<String, JustifiedInference<String, Integer>, Integer> computation = ResolutionJustificationComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory()
+				.createIncremental(proof_, justifier_, InterruptMonitor.DUMMY,
+						Selection.threshold(2));
+		assertEquals(sets(), enumerate(computation.newEnumerator("A")));
+		add("B", "C", 2);
+		add("C", null, 3);
+		assertEquals(sets(new Integer[] { 1, 2, 3 }),
+				enumerate(computation.newEnumerator("A")));
+		computation.dispose();
+	}
+
+}
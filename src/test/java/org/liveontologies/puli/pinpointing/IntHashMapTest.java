@@ -0,0 +1,68 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntHashMapTest {
+
+	private final static Random SEED_PROVIDER_ = new Random();
+
+	void testIntHashMap(Random rnd, int rounds, int maxKey) {
+		IntHashMap<Integer> tested = new IntHashMap<Integer>();
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		for (int i = 0; i < rounds; i++) {
+			int key = rnd.nextInt(maxKey) - maxKey / 2;
+			switch (rnd.nextInt(3)) {
+			case 0:
+				assertEquals(expected.remove(key), tested.remove(key));
+				break;
+			default:
+				assertEquals(expected.put(key, i), tested.put(key, i));
+			}
+			assertEquals(expected.size(), tested.size());
+		}
+		for (int key = -maxKey / 2; key < maxKey / 2; key++) {
+			assertEquals(expected.get(key), tested.get(key));
+		}
+	}
+
+	@Test
+	public void testIntHashMap() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			testIntHashMap(rnd, 1000, 20);
+			testIntHashMap(rnd, 10000, 1000);
+			testIntHashMap(rnd, 100000, 100000);
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+}
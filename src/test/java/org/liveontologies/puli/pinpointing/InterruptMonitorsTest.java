@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InterruptMonitorsTest {
+
+	@Test
+	public void testBudget() {
+		TruncationMonitor monitor = InterruptMonitors.budget(3);
+		for (int i = 0; i < 3; i++) {
+			Assert.assertFalse(monitor.isInterrupted());
+			Assert.assertNull(monitor.getInterruptionStatus());
+		}
+		Assert.assertTrue(monitor.isInterrupted());
+		Assert.assertEquals(EnumerationStatus.TRUNCATED_BY_BUDGET,
+				monitor.getInterruptionStatus());
+		monitor.reset();
+		Assert.assertFalse(monitor.isInterrupted());
+	}
+
+	@Test
+	public void testDeadline() {
+		TruncationMonitor monitor = InterruptMonitors.deadline(0,
+				TimeUnit.MILLISECONDS);
+		Assert.assertTrue(monitor.isInterrupted());
+		Assert.assertEquals(EnumerationStatus.TRUNCATED_BY_TIME,
+				monitor.getInterruptionStatus());
+		monitor = InterruptMonitors.deadline(1, TimeUnit.HOURS);
+		Assert.assertFalse(monitor.isInterrupted());
+		Assert.assertNull(monitor.getInterruptionStatus());
+	}
+
+	@Test
+	public void testHeapThreshold() {
+		TruncationMonitor monitor = InterruptMonitors.heapThreshold(1);
+		Assert.assertFalse(monitor.isInterrupted());
+		Assert.assertNull(monitor.getInterruptionStatus());
+	}
+
+	@Test
+	public void testAnyOf() {
+		TruncationMonitor monitor = InterruptMonitors.anyOf(
+				InterruptMonitor.DUMMY,
+				InterruptMonitors.deadline(1, TimeUnit.HOURS),
+				InterruptMonitors.budget(1));
+		Assert.assertFalse(monitor.isInterrupted());
+		Assert.assertTrue(monitor.isInterrupted());
+		Assert.assertEquals(EnumerationStatus.TRUNCATED_BY_BUDGET,
+				monitor.getInterruptionStatus());
+		monitor.reset();
+		Assert.assertFalse(monitor.isInterrupted());
+	}
+
+}
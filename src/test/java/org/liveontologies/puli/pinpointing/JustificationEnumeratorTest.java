@@ -21,13 +21,28 @@
  */
 package org.liveontologies.puli.pinpointing;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.junit.Assert;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.ResolutionInference;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.Selection;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.SelectionContext;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.SelectionFunction;
 
 @RunWith(Parameterized.class)
 public class JustificationEnumeratorTest<C, I extends Inference<? extends C>, A>
@@ -38,6 +53,21 @@ public class JustificationEnumeratorTest<C, I extends Inference<? extends C>, A>
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getJustificationEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
 		factories.add(ResolutionJustificationComputation.getFactory());
+		factories.add(
+				new MinimalSubsetsFromProofs.Factory<Object, Inference<?>, Object>() {
+
+					@Override
+					public MinimalSubsetEnumerator.Factory<Object, Object> create(
+							Proof<? extends Inference<?>> proof,
+							InferenceJustifier<? super Inference<?>, ? extends Set<? extends Object>> justifier,
+							InterruptMonitor monitor) {
+						return ResolutionJustificationComputation
+								.<Object, Inference<?>, Object> getFactory()
+								.create(proof, justifier, monitor,
+										Selection.adaptive());
+					}
+
+				});
 		return factories;
 	}
 
@@ -47,4 +77,241 @@ public class JustificationEnumeratorTest<C, I extends Inference<? extends C>, A>
 				TEST_INPUT_SUBPKG);
 	}
 
+	@Test
+	public void testSavedState() throws IOException {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		if (!(computation instanceof ResolutionJustificationComputation)) {
+			return;
+		}
+		// else
+		computation.newEnumerator(input.getQuery()).enumerate(
+				new MinimalSubsetCollector<A>(new HashSet<Set<? extends A>>()));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		((ResolutionJustificationComputation<?, ?, ?>) computation)
+				.saveState(out);
+
+		final MinimalSubsetEnumerator.Factory<C, A> restored = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		((ResolutionJustificationComputation<?, ?, ?>) restored)
+				.loadState(new ByteArrayInputStream(out.toByteArray()));
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		restored.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+
+	}
+
+	/**
+	 * Keeps at most two unprocessed inferences in memory and stops the first
+	 * enumeration after one justification; the next enumeration continues
+	 * with the inferences stored on disk and deletes the temporary files
+	 */
+	@Test
+	public void testSpilling() throws IOException {
+
+		final File directory = Files.createTempDirectory("puli-test")
+				.toFile();
+		try {
+			final ResolutionJustificationComputation<C, I, A> computation = (ResolutionJustificationComputation<C, I, A>) ResolutionJustificationComputation
+					.<C, I, A> getFactory()
+					.create(input.getProof(), input.getJustifier(),
+							InterruptMonitor.DUMMY, Selection.adaptive(), 2,
+							directory);
+			final List<Set<A>> actual = new ArrayList<Set<A>>();
+			final MinimalSubsetEnumerator.Listener<A> listener = new MinimalSubsetEnumerator.Listener<A>() {
+
+				@Override
+				public void newMinimalSubset(final Set<A> set) {
+					actual.add(new HashSet<A>(set));
+				}
+
+			};
+			computation.newEnumerator(input.getQuery()).enumerate(listener,
+					PriorityComparators.<A> cardinality(), null, 1);
+			actual.clear();
+			computation.newEnumerator(input.getQuery()).enumerate(listener,
+					PriorityComparators.<A> cardinality());
+			Assert.assertEquals(input.getExpectedResult(),
+					new HashSet<Set<A>>(actual));
+			for (int i = 1; i < actual.size(); i++) {
+				Assert.assertTrue(
+						actual.get(i - 1).size() <= actual.get(i).size());
+			}
+			Assert.assertEquals(0, directory.list().length);
+			computation.dispose();
+		} finally {
+			for (final File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+
+	}
+
+	/**
+	 * Starts an enumeration while a cursor is open; the cursor is stopped
+	 * and its unprocessed inferences are used by the new enumeration
+	 */
+	@Test
+	public void testEnumerationDuringCursor() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		if (!(computation instanceof ResolutionJustificationComputation)) {
+			return;
+		}
+		// else
+		final MinimalSubsetCursor<A> cursor = MinimalSubsetEnumerators
+				.bounded(computation.newEnumerator(input.getQuery()))
+				.newCursor(PriorityComparators.<A> cardinality());
+		if (!cursor.hasNext()) {
+			Assert.assertTrue(input.getExpectedResult().isEmpty());
+			return;
+		}
+		// else
+		cursor.next();
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+		Assert.assertFalse(cursor.hasNext());
+		cursor.close();
+		actualResult.clear();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+
+	}
+
+	/**
+	 * Uses a {@link Selection} defined outside of the computation
+	 */
+	@Test
+	public void testCustomSelection() {
+
+		final Selection lastPremise = new Selection() {
+
+			@Override
+			public SelectionFunction createFunction(
+					final SelectionContext context) {
+				return new SelectionFunction() {
+
+					@Override
+					public Integer getResolvingAtomId(
+							final ResolutionInference inference) {
+						final int premiseCount = inference.getPremiseCount();
+						return premiseCount == 0 ? null
+								: inference.getPremiseId(premiseCount - 1);
+					}
+
+				};
+			}
+
+		};
+		final MinimalSubsetEnumerator.Factory<C, A> computation = ResolutionJustificationComputation
+				.<C, I, A> getFactory().create(input.getProof(),
+						input.getJustifier(), InterruptMonitor.DUMMY,
+						lastPremise);
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+
+	}
+
+	/**
+	 * Enumerates justifications using different priority comparators with
+	 * the same computation; the priorities of the inferences kept by the
+	 * computation should be updated when the comparator changes
+	 */
+	@Test
+	public void testChangingPriorities() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		final WeightedPriorityComparator<A> weights = new WeightedPriorityComparator<A>() {
+
+			@Override
+			public long getWeight(final A element) {
+				return 1 + (element.hashCode() & 7);
+			}
+
+		};
+		final List<PriorityComparator<? super Set<A>, ?>> comparators = new ArrayList<PriorityComparator<? super Set<A>, ?>>();
+		comparators.add(PriorityComparators.<A> cardinality());
+		comparators.add(weights);
+		comparators.add(weights);
+		comparators.add(PriorityComparators.<A> cardinality());
+		for (final PriorityComparator<? super Set<A>, ?> comparator : comparators) {
+			final List<Set<A>> actual = new ArrayList<Set<A>>();
+			computation.newEnumerator(input.getQuery()).enumerate(
+					new MinimalSubsetEnumerator.Listener<A>() {
+
+						@Override
+						public void newMinimalSubset(final Set<A> set) {
+							actual.add(new HashSet<A>(set));
+						}
+
+					}, comparator);
+			Assert.assertEquals(input.getExpectedResult(),
+					new HashSet<Set<A>>(actual));
+			if (weights.equals(comparator)) {
+				for (int i = 1; i < actual.size(); i++) {
+					Assert.assertTrue(weights.getPriority(actual.get(i - 1))
+							.longValue() <= weights.getPriority(actual.get(i)));
+				}
+			}
+		}
+
+	}
+
+	@Test
+	public void testCompaction() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+		if (!(computation instanceof ResolutionJustificationComputation)) {
+			return;
+		}
+		// else
+		final ResolutionJustificationComputation<?, ?, ?> resolution = (ResolutionJustificationComputation<?, ?, ?>) computation;
+		Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		final int retainedCount = resolution.nRetainedInferences();
+
+		// the results for the enumerated query should be kept
+		resolution.compact(1);
+		Assert.assertEquals(retainedCount, resolution.nRetainedInferences());
+		actualResult = new HashSet<Set<? extends A>>();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+
+		// discard all results
+		resolution.compact(0);
+		Assert.assertEquals(0, resolution.nRetainedInferences());
+		actualResult = new HashSet<Set<? extends A>>();
+		computation.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+
+		resolution.setAutoCompaction(1);
+		for (int i = 0; i < 3; i++) {
+			actualResult = new HashSet<Set<? extends A>>();
+			computation.newEnumerator(input.getQuery())
+					.enumerate(new MinimalSubsetCollector<A>(actualResult));
+			Assert.assertEquals(input.getExpectedResult(), actualResult);
+		}
+
+	}
+
 }
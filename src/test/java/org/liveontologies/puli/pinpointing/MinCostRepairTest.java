@@ -0,0 +1,184 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that {@link TopDownRepairComputation} using the lower bounds on the
+ * weights of repairs enumerates the same repairs in the order of their
+ * weights as without using them; the numbers of jobs produced in both cases
+ * are logged.
+ */
+public class MinCostRepairTest {
+
+	private final static Logger LOGGER_ = LoggerFactory
+			.getLogger(MinCostRepairTest.class);
+
+	private static final int CONCLUSION_COUNT_ = 12, AXIOM_COUNT_ = 20,
+			ROUNDS_ = 20;
+
+	private static final WeightedPriorityComparator<Integer> WEIGHTS_ = new WeightedPriorityComparator<Integer>() {
+
+		@Override
+		public long getWeight(final Integer axiom) {
+			return 1 + axiom % 7;
+		}
+
+	};
+
+	private final InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>> justifier_ = new InferenceJustifier<JustifiedInference<String, Integer>, Set<Integer>>() {
+
+		@Override
+		public Set<Integer> getJustification(
+				JustifiedInference<String, Integer> inference) {
+			return inference.getJustification();
+		}
+
+	};
+
+	/**
+	 * Creates a random acyclic proof in which every conclusion {@code c<i>}
+	 * has inferences with premises {@code c<j>}, {@code j > i}
+	 */
+	private BaseProof<JustifiedInference<String, Integer>> createProof(
+			final Random random) {
+		final BaseProof<JustifiedInference<String, Integer>> result = new BaseProof<JustifiedInference<String, Integer>>();
+		for (int i = 0; i < CONCLUSION_COUNT_; i++) {
+			final int inferenceCount = 1 + random.nextInt(3);
+			for (int j = 0; j < inferenceCount; j++) {
+				final List<String> premises = new ArrayList<String>();
+				final int premiseCount = i + 1 < CONCLUSION_COUNT_
+						? random.nextInt(3) : 0;
+				for (int k = 0; k < premiseCount; k++) {
+					premises.add("c" + (i + 1 + random
+							.nextInt(CONCLUSION_COUNT_ - i - 1)));
+				}
+				final Set<Integer> justification = new HashSet<Integer>();
+				final int axiomCount = 1 + random.nextInt(2);
+				for (int k = 0; k < axiomCount; k++) {
+					justification.add(random.nextInt(AXIOM_COUNT_));
+				}
+				result.produce(new JustifiedInference<String, Integer>("inf",
+						"c" + i, premises, justification));
+			}
+		}
+		return result;
+	}
+
+	private List<Set<Integer>> computeRepairs(
+			final BaseProof<JustifiedInference<String, Integer>> proof,
+			final boolean costHeuristic, final Long bound) {
+		return computeRepairs(proof, costHeuristic, bound, null);
+	}
+
+	/**
+	 * @param proof
+	 * @param costHeuristic
+	 * @param bound
+	 * @param producedJobs
+	 *            if not {@code null}, the number of jobs produced by the
+	 *            computation is stored as its first element
+	 * @return the repairs of "c0" in the order they are enumerated
+	 */
+	private List<Set<Integer>> computeRepairs(
+			final BaseProof<JustifiedInference<String, Integer>> proof,
+			final boolean costHeuristic, final Long bound,
+			final int[] producedJobs) {
+		final TopDownRepairComputation<String, JustifiedInference<String, Integer>, Integer> computation = (TopDownRepairComputation<String, JustifiedInference<String, Integer>, Integer>) TopDownRepairComputation
+				.<String, JustifiedInference<String, Integer>, Integer> getFactory(
+						1, costHeuristic)
+				.create(proof, justifier_, InterruptMonitor.DUMMY);
+		final List<Set<Integer>> result = new ArrayList<Set<Integer>>();
+		computation.newEnumerator("c0").enumerate(
+				new MinimalSubsetEnumerator.Listener<Integer>() {
+
+					@Override
+					public void newMinimalSubset(final Set<Integer> set) {
+						result.add(new HashSet<Integer>(set));
+					}
+
+				}, WEIGHTS_, bound, Integer.MAX_VALUE);
+		LOGGER_.debug("cost heuristic: {}, bound: {}, repairs: {}, jobs: {}",
+				costHeuristic, bound, result.size(),
+				computation.nProducedJobs());
+		if (producedJobs != null) {
+			producedJobs[0] = computation.nProducedJobs();
+		}
+		return result;
+	}
+
+	private void checkOrdered(final List<Set<Integer>> repairs) {
+		long previous = 0;
+		for (final Set<Integer> repair : repairs) {
+			final long weight = WEIGHTS_.getPriority(repair);
+			assertTrue(previous <= weight);
+			previous = weight;
+		}
+	}
+
+	@Test
+	public void testMinCostRepairs() {
+		final Random random = new Random(7);
+		for (int round = 0; round < ROUNDS_; round++) {
+			final BaseProof<JustifiedInference<String, Integer>> proof = createProof(
+					random);
+			final List<Set<Integer>> expected = computeRepairs(proof, false,
+					null);
+			final int[] unboundedJobs = new int[1];
+			final List<Set<Integer>> actual = computeRepairs(proof, true,
+					null, unboundedJobs);
+			checkOrdered(expected);
+			checkOrdered(actual);
+			assertEquals(new HashSet<Set<Integer>>(expected),
+					new HashSet<Set<Integer>>(actual));
+			if (expected.isEmpty()) {
+				continue;
+			}
+			// else the cheapest repairs
+			final Long minWeight = WEIGHTS_.getPriority(expected.get(0));
+			final int[] boundedJobs = new int[1];
+			assertEquals(
+					new HashSet<Set<Integer>>(
+							computeRepairs(proof, false, minWeight)),
+					new HashSet<Set<Integer>>(computeRepairs(proof, true,
+							minWeight, boundedJobs)));
+			// the bound can only prune the jobs
+			assertTrue(boundedJobs[0] <= unboundedJobs[0]);
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MinimalHittingSetComputationTest {
+
+	private final static Logger LOGGER_ = LoggerFactory
+			.getLogger(MinimalHittingSetComputationTest.class);
+
+	private static final int ROUNDS_ = 50;
+
+	private static List<Set<Integer>> getRandomSets(final Random random,
+			final int setCount, final int maxSetSize, final int elementCount) {
+		final List<Set<Integer>> result = new ArrayList<Set<Integer>>();
+		for (int i = 0; i < setCount; i++) {
+			final Set<Integer> set = new HashSet<Integer>();
+			final int size = 1 + random.nextInt(maxSetSize);
+			for (int j = 0; j < size; j++) {
+				set.add(random.nextInt(elementCount));
+			}
+			result.add(set);
+		}
+		return result;
+	}
+
+	private static Set<Set<Integer>> toSets(
+			final Collection<? extends Set<? extends Integer>> sets) {
+		final Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		for (final Set<? extends Integer> set : sets) {
+			result.add(new HashSet<Integer>(set));
+		}
+		return result;
+	}
+
+	/**
+	 * @param sets
+	 * @return the sets that do not contain other sets
+	 */
+	private static Set<Set<Integer>> getMinimal(final List<Set<Integer>> sets) {
+		final Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		setLoop: for (final Set<Integer> set : sets) {
+			for (final Set<Integer> other : sets) {
+				if (set.containsAll(other) && !other.containsAll(set)) {
+					continue setLoop;
+				}
+			}
+			result.add(set);
+		}
+		return result;
+	}
+
+	/**
+	 * @param sets
+	 *            sets of elements smaller than the given count
+	 * @param elementCount
+	 * @return the minimal hitting sets of the given sets computed by checking
+	 *         all subsets of elements
+	 */
+	private static Set<Set<Integer>> getHittingSets(
+			final List<Set<Integer>> sets, final int elementCount) {
+		final List<Set<Integer>> hittingSets = new ArrayList<Set<Integer>>();
+		subsetLoop: for (int mask = 0; mask < 1 << elementCount; mask++) {
+			final Set<Integer> subset = new HashSet<Integer>();
+			for (int element = 0; element < elementCount; element++) {
+				if ((mask & (1 << element)) != 0) {
+					subset.add(element);
+				}
+			}
+			for (final Set<Integer> set : sets) {
+				if (Collections.disjoint(set, subset)) {
+					continue subsetLoop;
+				}
+			}
+			hittingSets.add(subset);
+		}
+		return getMinimal(hittingSets);
+	}
+
+	@Test
+	public void testRandomSets() {
+		final Random random = new Random(11);
+		for (int round = 0; round < ROUNDS_; round++) {
+			final List<Set<Integer>> sets = getRandomSets(random,
+					random.nextInt(10), 4, 10);
+			assertEquals(getHittingSets(sets, 10),
+					toSets(MinimalHittingSetComputation.compute(sets)));
+		}
+	}
+
+	@Test
+	public void testEmptySets() {
+		final List<Set<Integer>> sets = new ArrayList<Set<Integer>>();
+		assertEquals(1, MinimalHittingSetComputation.compute(sets).size());
+		sets.add(new HashSet<Integer>());
+		assertEquals(0, MinimalHittingSetComputation.compute(sets).size());
+	}
+
+	@Test
+	public void testOrderAndLimit() {
+		final Random random = new Random(13);
+		final List<Set<Integer>> sets = getRandomSets(random, 20, 5, 15);
+		final List<Set<? extends Integer>> all = new ArrayList<Set<? extends Integer>>();
+		new MinimalHittingSetComputation<Integer>(InterruptMonitor.DUMMY)
+				.newEnumerator(sets)
+				.enumerate(new MinimalSubsetCollector<Integer>(all));
+		for (int i = 1; i < all.size(); i++) {
+			assertEquals(true, all.get(i - 1).size() <= all.get(i).size());
+		}
+		final int minSize = all.get(0).size();
+		final List<Set<? extends Integer>> bounded = new ArrayList<Set<? extends Integer>>();
+		new MinimalHittingSetComputation<Integer>(InterruptMonitor.DUMMY)
+				.newEnumerator(sets)
+				.enumerate(new MinimalSubsetCollector<Integer>(bounded),
+						PriorityComparators.<Integer> cardinality(), minSize,
+						Integer.MAX_VALUE);
+		int expectedCount = 0;
+		for (final Set<? extends Integer> set : all) {
+			if (set.size() == minSize) {
+				expectedCount++;
+			}
+		}
+		assertEquals(expectedCount, bounded.size());
+	}
+
+	/**
+	 * The minimal hitting sets of the minimal hitting sets are the minimal
+	 * input sets; checked for thousands of sets
+	 */
+	@Test
+	public void testDuality() {
+		final Random random = new Random(17);
+		final List<Set<Integer>> sets = getRandomSets(random, 2000, 8, 200);
+		final long startTime = System.currentTimeMillis();
+		final List<Set<Integer>> hittingSets = new ArrayList<Set<Integer>>(
+				toSets(MinimalHittingSetComputation.compute(sets)));
+		final Set<Set<Integer>> dual = toSets(
+				MinimalHittingSetComputation.compute(hittingSets));
+		LOGGER_.debug("sets: {}, hitting sets: {}, time: {} ms", sets.size(),
+				hittingSets.size(), System.currentTimeMillis() - startTime);
+		assertEquals(getMinimal(sets), dual);
+	}
+
+}
@@ -38,6 +38,7 @@ public class RepairEnumeratorTest<C, I extends Inference<? extends C>, A>
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getRepairEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
 		factories.add(TopDownRepairComputation.getFactory());
+		factories.add(TopDownRepairComputation.getFactory(4));
 		return factories;
 	}
 
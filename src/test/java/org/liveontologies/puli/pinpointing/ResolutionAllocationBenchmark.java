@@ -0,0 +1,177 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.JustifiedInference;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.ProofAndJustifierBuilder;
+import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation.SelectionType;
+
+/**
+ * Measures the memory allocated and retained by
+ * {@link ResolutionJustificationComputation} per derived inference on random
+ * proofs consisting of several disjoint blocks; the justifications for the
+ * roots of all blocks are enumerated using one computation, so that the
+ * indexes of the computation contain many conclusions. Uses only the public
+ * API of the computation, so that the numbers can be compared between
+ * versions. The heap retained by the computation is measured only in the
+ * first round since later rounds may start before the computation of the
+ * previous round can be collected; the allocation should be taken from the
+ * later rounds, after the code is compiled. Since almost all produced
+ * inferences are resolvents, the allocation per produced inference is
+ * essentially the allocation per resolvent; the selection type, e.g.,
+ * {@code BOTTOM_UP}, changes the number of resolvents. Not run as part of the tests;
+ * usage:
+ * 
+ * <pre>
+ * ResolutionAllocationBenchmark [blocks [blockSize [seed [rounds [selection]]]]]
+ * </pre>
+ */
+public class ResolutionAllocationBenchmark {
+
+	private static final int INFERENCES_PER_CONCLUSION_ = 3,
+			MAX_PREMISES_ = 2, PREMISE_RANGE_ = 4, AXIOMS_PER_BLOCK_ = 30;
+
+	private static final ThreadMXBean THREADS_ = ManagementFactory
+			.getThreadMXBean();
+
+	/**
+	 * keeps the computation reachable while its memory is measured
+	 */
+	private static volatile Object measured_ = null;
+
+	public static void main(String[] args) {
+		int blockCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int blockSize = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+		SelectionType selection = args.length > 4
+				? SelectionType.valueOf(args[4])
+				: SelectionType.THRESHOLD;
+		ProofAndJustifierBuilder<Integer, Integer> builder = new ProofAndJustifierBuilder<Integer, Integer>();
+		Random rnd = new Random(seed);
+		for (int block = 0; block < blockCount; block++) {
+			addBlock(builder, block, blockSize, rnd);
+		}
+		Proof<? extends JustifiedInference<Integer, Integer>> proof = builder
+				.build();
+		InferenceJustifier<JustifiedInference<Integer, Integer>, ? extends Set<? extends Integer>> justifier = builder
+				.buildJustifier();
+		System.out.println(
+				"justifications\tproduced\tminimal\tms\tbytes/produced\tretained bytes/minimal");
+		for (int i = 0; i < rounds; i++) {
+			run(proof, justifier, selection, blockCount, blockSize, i == 0);
+		}
+	}
+
+	/**
+	 * Adds a block in which every conclusion has several inferences with one
+	 * axiom and up to two premises among the next few conclusions of the
+	 * block; the last conclusion is derived from axioms only. The first
+	 * conclusion of the block is the root.
+	 */
+	static void addBlock(ProofAndJustifierBuilder<Integer, Integer> builder,
+			int block, int blockSize, Random rnd) {
+		int first = block * blockSize;
+		for (int i = 0; i < blockSize; i++) {
+			int remaining = blockSize - i - 1;
+			for (int j = 0; j < INFERENCES_PER_CONCLUSION_; j++) {
+				ProofAndJustifierBuilder<Integer, Integer>.ThisInferenceBuilder inference = builder
+						.conclusion(first + i).axiom(block * AXIOMS_PER_BLOCK_
+								+ rnd.nextInt(AXIOMS_PER_BLOCK_));
+				int premiseCount = Math.min(rnd.nextInt(MAX_PREMISES_ + 1),
+						remaining);
+				for (int k = 0; k < premiseCount; k++) {
+					inference.premise(first + i + 1
+							+ rnd.nextInt(Math.min(PREMISE_RANGE_, remaining)));
+				}
+				inference.add();
+			}
+		}
+	}
+
+	static void run(Proof<? extends JustifiedInference<Integer, Integer>> proof,
+			InferenceJustifier<JustifiedInference<Integer, Integer>, ? extends Set<? extends Integer>> justifier,
+			SelectionType selection, int blockCount, int blockSize,
+			boolean measureRetained) {
+		long usedBefore = measureRetained ? getUsedMemory() : 0;
+		long allocatedBefore = getAllocatedBytes();
+		long startTime = System.currentTimeMillis();
+		ResolutionJustificationComputation<Integer, JustifiedInference<Integer, Integer>, Integer> computation = (ResolutionJustificationComputation<Integer, JustifiedInference<Integer, Integer>, Integer>) ResolutionJustificationComputation
+				.<Integer, JustifiedInference<Integer, Integer>, Integer> getFactory()
+				.create(proof, justifier, InterruptMonitor.DUMMY, selection);
+		Set<Set<? extends Integer>> justifications = new HashSet<Set<? extends Integer>>();
+		for (int block = 0; block < blockCount; block++) {
+			computation.newEnumerator(block * blockSize).enumerate(
+					new MinimalSubsetCollector<Integer>(justifications));
+		}
+		long time = System.currentTimeMillis() - startTime;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+		int justificationCount = justifications.size();
+		// the justifications are not part of the state of the computation
+		justifications.clear();
+		int produced = computation.nProducedInferences();
+		int minimal = computation.nMinimalInferences();
+		String retained = "-";
+		if (measureRetained) {
+			measured_ = computation;
+			retained = String.valueOf(
+					(getUsedMemory() - usedBefore) / Math.max(1, minimal));
+			measured_ = null;
+		}
+		System.out.printf("%d\t%d\t%d\t%d\t%d\t%s%n", justificationCount,
+				produced, minimal, time, allocated / Math.max(1, produced),
+				retained);
+	}
+
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		long result = Long.MAX_VALUE;
+		// collect until no more memory is freed
+		for (;;) {
+			System.gc();
+			long used = runtime.totalMemory() - runtime.freeMemory();
+			if (used >= result) {
+				return result;
+			}
+			// else
+			result = used;
+		}
+	}
+
+	private static long getAllocatedBytes() {
+		if (THREADS_ instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) THREADS_)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		// else not supported
+		return 0;
+	}
+
+}
@@ -0,0 +1,165 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class SortedIdSetTest {
+
+	private final static Random SEED_PROVIDER_ = new Random();
+
+	int[] getRandomIds(Random rnd, int maxSize, int maxValue) {
+		Set<Integer> result = new TreeSet<Integer>();
+		int size = rnd.nextInt(maxSize + 1);
+		for (int i = 0; i < size; i++) {
+			result.add(rnd.nextInt(maxValue));
+		}
+		return SortedIdSet.getIds(result);
+	}
+
+	@Test
+	public void testGetIdsWithDuplicates() {
+		assertArrayEquals(new int[] { 1, 3, 5 },
+				SortedIdSet.getIds(Arrays.asList(5, 3, 1, 3, 5)));
+		assertArrayEquals(new int[0],
+				SortedIdSet.getIds(Arrays.<Integer> asList()));
+	}
+
+	@Test
+	public void testUnion() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			for (int i = 0; i < 1000; i++) {
+				int[] first = getRandomIds(rnd, 10, 20);
+				int[] second = getRandomIds(rnd, 10, 20);
+				int excluded = rnd.nextInt(20);
+				Set<Integer> expected = new TreeSet<Integer>();
+				for (int id : first) {
+					expected.add(id);
+				}
+				for (int id : second) {
+					expected.add(id);
+				}
+				assertEquals(expected.size(),
+						SortedIdSet.unionSize(first, second));
+				assertArrayEquals(SortedIdSet.getIds(expected),
+						SortedIdSet.union(first, second));
+				int size = expected.size();
+				if (expected.remove(excluded)) {
+					size--;
+				}
+				assertArrayEquals(SortedIdSet.getIds(expected),
+						SortedIdSet.union(first, second, excluded, size));
+			}
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+	@Test
+	public void testAddAndIntersects() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			for (int i = 0; i < 1000; i++) {
+				int[] first = getRandomIds(rnd, 10, 20);
+				int[] second = getRandomIds(rnd, 10, 20);
+				int added = rnd.nextInt(20);
+				Set<Integer> expected = new TreeSet<Integer>();
+				for (int id : first) {
+					expected.add(id);
+				}
+				expected.add(added);
+				assertArrayEquals(SortedIdSet.getIds(expected),
+						SortedIdSet.add(first, added));
+				expected.clear();
+				for (int id : first) {
+					expected.add(id);
+				}
+				boolean intersects = false;
+				for (int id : second) {
+					intersects |= expected.contains(id);
+				}
+				assertEquals(intersects,
+						SortedIdSet.intersects(first, second));
+			}
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+	@Test
+	public void testWriteAndReadIds() throws IOException {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			for (int i = 0; i < 100; i++) {
+				int[] ids = getRandomIds(rnd, 10, 20);
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				SortedIdSet.writeIds(ids, new DataOutputStream(out));
+				assertArrayEquals(ids, SortedIdSet.readIds(new DataInputStream(
+						new ByteArrayInputStream(out.toByteArray()))));
+			}
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+	@Test
+	public void testReadInvalidIds() throws IOException {
+		assertInvalidIds(-1);
+		assertInvalidIds(Integer.MIN_VALUE);
+		assertInvalidIds(2, 3, 3);
+		assertInvalidIds(3, 1, 2, 0);
+	}
+
+	private static void assertInvalidIds(int... values) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(out);
+		for (int value : values) {
+			data.writeInt(value);
+		}
+		try {
+			SortedIdSet.readIds(new DataInputStream(
+					new ByteArrayInputStream(out.toByteArray())));
+			fail("Invalid ids read: " + Arrays.toString(values));
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+
+public class SortedIntSetTest {
+
+	private final static Random SEED_PROVIDER_ = new Random();
+
+	static Set<Integer> toSet(SortedIntSet set) {
+		Set<Integer> result = new TreeSet<Integer>();
+		for (int element : set.getElements()) {
+			assertTrue(result.add(element));
+		}
+		return result;
+	}
+
+	void testRandomOperations(int maxValue) {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			SortedIntSet tested = SortedIntSet.empty();
+			Set<Integer> expected = new TreeSet<Integer>();
+			for (int i = 0; i < 2000; i++) {
+				SortedIntSet previous = tested;
+				Set<Integer> previousExpected = new TreeSet<Integer>(expected);
+				int[] elements = new int[rnd.nextInt(5)];
+				for (int j = 0; j < elements.length; j++) {
+					elements[j] = rnd.nextInt(maxValue);
+				}
+				elements = SortedIdSet.getIds(Ints.asList(elements));
+				switch (rnd.nextInt(3)) {
+				case 0:
+					int element = rnd.nextInt(maxValue);
+					tested = tested.with(element);
+					if (!expected.add(element)) {
+						assertSame(previous, tested);
+					}
+					break;
+				case 1:
+					tested = tested.withAll(elements);
+					if (!expected.addAll(Ints.asList(elements))) {
+						assertSame(previous, tested);
+					}
+					break;
+				default:
+					int count = rnd.nextInt(elements.length + 1);
+					tested = tested.without(elements, count);
+					boolean changed = false;
+					for (int j = 0; j < count; j++) {
+						changed |= expected.remove(elements[j]);
+					}
+					if (!changed) {
+						assertSame(previous, tested);
+					}
+				}
+				assertEquals(expected.size(), tested.size());
+				assertEquals(expected, toSet(tested));
+				assertEquals(expected, tested);
+				for (int j = 0; j < 10; j++) {
+					int element = rnd.nextInt(maxValue);
+					assertEquals(expected.contains(element),
+							tested.contains(element));
+				}
+				assertEquals(expected.containsAll(previousExpected),
+						tested.containsAll(previous));
+				assertEquals(previousExpected.containsAll(expected),
+						previous.containsAll(tested));
+				// the previous set is not modified
+				assertEquals(previousExpected, toSet(previous));
+			}
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+	@Test
+	public void testRandomOperations() {
+		testRandomOperations(10);
+		testRandomOperations(100);
+		testRandomOperations(Integer.MAX_VALUE);
+	}
+
+}
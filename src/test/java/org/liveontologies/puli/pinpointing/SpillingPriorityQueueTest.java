@@ -0,0 +1,192 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.liveontologies.puli.pinpointing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SpillingPriorityQueueTest {
+
+	private final static Random SEED_PROVIDER_ = new Random();
+
+	private final static Comparator<Integer> COMPARATOR_ = new Comparator<Integer>() {
+
+		@Override
+		public int compare(Integer first, Integer second) {
+			return first.compareTo(second);
+		}
+
+	};
+
+	private final static SpillingPriorityQueue.Codec<Integer> CODEC_ = new SpillingPriorityQueue.Codec<Integer>() {
+
+		@Override
+		public void write(Integer element, DataOutput out) throws IOException {
+			out.writeInt(element);
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+
+	};
+
+	void testQueue(Random rnd, int rounds, int maxInMemoryCount) {
+		SpillingPriorityQueue<Integer> tested = new SpillingPriorityQueue<Integer>(
+				COMPARATOR_, maxInMemoryCount, null, CODEC_);
+		testQueue(rnd, rounds, tested);
+	}
+
+	void testQueue(Random rnd, int rounds,
+			SpillingPriorityQueue<Integer> tested) {
+		PriorityQueue<Integer> expected = new PriorityQueue<Integer>();
+		try {
+			for (int i = 0; i < rounds; i++) {
+				if (rnd.nextInt(3) == 0) {
+					assertEquals(expected.poll(), tested.poll());
+				} else {
+					int next = rnd.nextInt(rounds);
+					expected.add(next);
+					tested.add(next);
+				}
+				assertEquals(expected.size(), tested.size());
+				assertEquals(expected.peek(), tested.peek());
+			}
+			for (;;) {
+				Integer next = expected.poll();
+				assertEquals(next, tested.poll());
+				if (next == null) {
+					break;
+				}
+			}
+			assertNull(tested.peek());
+		} finally {
+			tested.dispose();
+		}
+	}
+
+	@Test
+	public void testMergingCost() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		SpillingPriorityQueue<Integer> tested = new SpillingPriorityQueue<Integer>(
+				COMPARATOR_, 4, 8, null, CODEC_);
+		try {
+			for (int i = 0; i < 20000; i++) {
+				tested.add(rnd.nextInt());
+			}
+			// every element is merged only a few times
+			assertTrue("seed: " + seed + ", merged: "
+					+ tested.getMergedCount(),
+					tested.getMergedCount() <= 20
+							* tested.getSpilledCount());
+		} finally {
+			tested.dispose();
+		}
+	}
+
+	@Test
+	public void testSelect() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		for (int round = 0; round < 1000; round++) {
+			Integer[] elements = new Integer[1 + rnd.nextInt(50)];
+			for (int i = 0; i < elements.length; i++) {
+				elements[i] = rnd.nextInt(10);
+			}
+			int k = rnd.nextInt(elements.length + 1);
+			SpillingPriorityQueue.select(elements, k, COMPARATOR_);
+			for (int i = 0; i < k; i++) {
+				for (int j = k; j < elements.length; j++) {
+					assertTrue("seed: " + seed, elements[i] <= elements[j]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMergingRuns() throws IOException {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		File directory = Files.createTempDirectory("puli-queue").toFile();
+		try {
+			SpillingPriorityQueue<Integer> tested = new SpillingPriorityQueue<Integer>(
+					COMPARATOR_, 4, 3, directory, CODEC_);
+			for (int i = 0; i < 1000; i++) {
+				tested.add(rnd.nextInt(1000));
+				assertTrue(tested.getRunCount() <= 3);
+				assertTrue(directory.list().length <= 3);
+			}
+			assertTrue(tested.getMergedCount() > 0);
+			Integer previous = tested.poll();
+			for (int i = 1; i < 1000; i++) {
+				Integer next = tested.poll();
+				assertTrue(previous <= next);
+				previous = next;
+			}
+			assertNull(tested.poll());
+			// all runs are read completely
+			assertEquals(0, directory.list().length);
+			testQueue(rnd, 10000, new SpillingPriorityQueue<Integer>(
+					COMPARATOR_, 4, 3, directory, CODEC_));
+			assertEquals(0, directory.list().length);
+			tested = new SpillingPriorityQueue<Integer>(COMPARATOR_, 4, 3,
+					directory, CODEC_);
+			for (int i = 0; i < 100; i++) {
+				tested.add(i);
+			}
+			tested.dispose();
+			assertEquals(0, directory.list().length);
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		} finally {
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testSpillingPriorityQueue() {
+		long seed = SEED_PROVIDER_.nextLong();
+		Random rnd = new Random(seed);
+		try {
+			testQueue(rnd, 100, 2);
+			testQueue(rnd, 10000, 10);
+			testQueue(rnd, 10000, 1000);
+		} catch (Throwable e) {
+			throw new RuntimeException("seed: " + seed, e);
+		}
+	}
+
+}